@@ -5,7 +5,11 @@ import java.awt.Component;
 import java.awt.FlowLayout;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,15 +23,24 @@ import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 
 import core.Cami;
+import core.ComparativaCues;
+import core.CuaEsdeveniments;
 import core.Conductor;
 import core.Estadistiques;
+import core.ExploracioParametres;
 import core.LectorCSV;
 import core.LectorJSON;
 import core.Lloc;
 import core.Mapa;
 import core.Optimitzador;
 import core.Peticio;
+import core.Registre;
+import core.Rellotge;
+import core.ReplicacionsMonteCarlo;
+import core.ResumReplicacions;
 import core.Simulador;
+import core.Temps;
+import core.TipusEncaminament;
 import core.Vehicle;
 import events.Event;
 import views.EstadistiquesPanel;
@@ -46,6 +59,9 @@ import views.VistaPuntsCarrega;
  */
 public class Main {
 
+    private static final int BLOCS_DIARI_EN_MEMORIA = 16; /// < Blocs del diari que es queden a memòria amb -Dbolcat.
+    private static final long MINUTS_PUNTS_CONTROL = 60; /// < Minuts entre punts de control amb -Dcontrol, per defecte.
+
     /**
      * @pre llocs != null && camins != null
      * @post Afegim tots els llocs i camins al mapa
@@ -62,6 +78,16 @@ public class Main {
             mapa.afegirCami(cami);
         }
 
+        String encaminament = System.getProperty("encaminament");
+        if (encaminament != null) {
+            mapa.setTipusEncaminament(TipusEncaminament.valueOf(encaminament.toUpperCase()));
+            mapa.congelar();
+        }
+
+        if (mapa.precalcularMatrius()) {
+            Registre.info(() -> "Matrius de temps i distàncies precalculades.");
+        }
+
         System.out.println("Mapa carregat correctament!");
 
         return mapa;
@@ -107,6 +133,7 @@ public class Main {
         System.out.println("--------------------------------");
         Simulador simulador = new Simulador(horaInici, horaFinal, mapa, vehicles, conductors,
                 peticions);
+        configurarLlavor(simulador);
 
         mostrarMapa(mapa, simulador, vehicles, llocs, true, jsonFile, EstadisticFile);
     }
@@ -135,16 +162,16 @@ public class Main {
         List<Conductor> conductors = LectorJSON.carregarConductors(SimulacioFile.getAbsolutePath(), vehiclesPerId,
                 llocsPerId);
 
-        LocalTime[] hores = LectorJSON.carregarHorari(SimulacioFile.getAbsolutePath());
+        long[] hores = LectorJSON.carregarHorari(SimulacioFile.getAbsolutePath());
 
-        LocalTime horaInici = hores[0];
-        LocalTime horaFinal = hores[1];
+        long horaInici = hores[0];
+        long horaFinal = hores[1];
         List<Estadistiques> estadistiqueses_Llegides = LectorJSON.carregarEstadistiques(SimulacioFile.getAbsolutePath());
 
         //List<Event> eventsProgramats = LectorJSON.carregarEvents(SimulacioFile.getAbsolutePath(), vehiclesPerId,LectorJSON.convertirLlistaAMap_Conductors(conductors), llocsPerId);
         System.out.println("Dades carregades correctament.");
-        System.out.println("Hora d'inici: " + horaInici);
-        System.out.println("Hora final: " + horaFinal);
+        System.out.println("Hora d'inici: " + Temps.text(horaInici));
+        System.out.println("Hora final: " + Temps.text(horaFinal));
         System.out.println("CAMINS: " + camins.size());
         System.out.println("CONDUCTORS: " + conductors.size());
         System.out.println("VEHICLES: " + vehicles.size());
@@ -160,7 +187,8 @@ public class Main {
 
         List<Event> llistaEvents = LectorJSON.carregarEvents(SimulacioFile.getAbsolutePath(), vehiclesPerId, conductorsID, llocsPerId);
         System.out.println(".()" + llistaEvents.size() + "--------------------------ever-------------------");
-        Simulador simulador = new Simulador(horaInici, horaFinal, mapa, vehicles, conductors, peticions);
+        Simulador simulador = new Simulador(horaInici, horaFinal, mapa, vehicles, conductors, peticions,
+                CuaEsdeveniments.crear());
         simulador.setEsdeviments(llistaEvents);
         if (estadistiqueses_Llegides.isEmpty()) {
             simulador.setEstadistiques(new Estadistiques());
@@ -174,10 +202,258 @@ public class Main {
 
     /**
      * @pre cert
-     * @post Inicia el programa
+     * @post Executa sense interfície gràfica la simulació dels fitxers donats,
+     *       tan ràpid com es pugui, i en guarda els resultats. Els resultats
+     *       són els mateixos que els de la mateixa simulació a la interfície.
+     *       Amb -Dbolcat=directori, el diari d'esdeveniments es bolca a disc
+     *       en aquest directori, i amb -Dcontrol=directori s'hi guarda un punt
+     *       de control periòdic (vegeu activarPuntsControl). Amb -Dllavor=n es
+     *       tria la llavor de les dades aleatòries.
+     */
+    public static void executarSenseInterficie(File llocsFile, File connexionsFile, File vehiclesFile,
+            File conductorsFile, File peticionsFile, File jsonFile, LocalTime horaInici, LocalTime horaFinal,
+            File EstadisticFile) {
+        List<Lloc> llocs = LectorCSV.carregarLlocs(llocsFile.getAbsolutePath());
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        for (Lloc l : llocs) {
+            llocsPerId.put(l.obtenirId(), l);
+        }
+
+        List<Cami> camins = LectorCSV.carregarCamins(connexionsFile.getAbsolutePath(), llocsPerId);
+        Mapa mapa = carregarMapa(llocs, camins);
+
+        List<Vehicle> vehicles = LectorCSV.carregarVehicles(vehiclesFile.getAbsolutePath(), llocsPerId);
+        Map<Integer, Vehicle> vehiclesPerId = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            vehiclesPerId.put(v.getId(), v);
+        }
+
+        List<Conductor> conductors = LectorCSV.carregarConductors(conductorsFile.getAbsolutePath(),
+                vehiclesPerId, llocsPerId);
+        List<Peticio> peticions = LectorCSV.carregarPeticions(peticionsFile.getAbsolutePath(), llocsPerId);
+
+        Simulador simulador = new Simulador(horaInici, horaFinal, mapa, vehicles, conductors, peticions);
+        configurarLlavor(simulador);
+        String bolcat = System.getProperty("bolcat");
+        if (bolcat != null) {
+            simulador.activarBolcatDiari(new File(bolcat), BLOCS_DIARI_EN_MEMORIA);
+        }
+        activarPuntsControl(simulador);
+        long inici = System.nanoTime();
+        simulador.executarSenseInterficie(jsonFile, EstadisticFile);
+        System.out.println("Temps d'execució: " + (System.nanoTime() - inici) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @pre puntControl l'ha escrit una simulació sobre el mapa dels fitxers
+     *      llocs i connexions.
+     * @post Continua sense interfície gràfica la simulació des del punt de
+     *       control i en guarda els resultats. El .json només conté els
+     *       esdeveniments executats a partir del punt de control.
+     */
+    public static void reprendreSenseInterficie(File puntControl, File llocsFile, File connexionsFile,
+            File jsonFile, File EstadisticFile) throws IOException {
+        List<Lloc> llocs = LectorCSV.carregarLlocs(llocsFile.getAbsolutePath());
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        for (Lloc l : llocs) {
+            llocsPerId.put(l.obtenirId(), l);
+        }
+        Mapa mapa = carregarMapa(llocs, LectorCSV.carregarCamins(connexionsFile.getAbsolutePath(), llocsPerId));
+
+        long inici = System.nanoTime();
+        Simulador simulador = Simulador.reprendre(puntControl, mapa);
+        System.out.println("Punt de control de les " + Temps.text(simulador.getHoraActual()) + " restaurat en "
+                + (System.nanoTime() - inici) / 1_000_000 + " ms");
+        activarPuntsControl(simulador);
+        inici = System.nanoTime();
+        simulador.executarSenseInterficie(jsonFile, EstadisticFile);
+        System.out.println("Temps d'execució: " + (System.nanoTime() - inici) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @pre Cert.
+     * @post Amb -Dllavor=n, les dades aleatòries de la simulació surten de la
+     *       llavor n en comptes de Simulador.LLAVOR_PER_DEFECTE.
+     */
+    private static void configurarLlavor(Simulador simulador) {
+        Long llavor = Long.getLong("llavor");
+        if (llavor != null) {
+            simulador.setLlavor(llavor);
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Amb -Dcontrol=directori, la simulació guarda un punt de control al
+     *       directori cada -Dcontrol.interval minuts (MINUTS_PUNTS_CONTROL per
+     *       defecte).
+     */
+    private static void activarPuntsControl(Simulador simulador) {
+        String control = System.getProperty("control");
+        if (control != null) {
+            long minuts = Long.getLong("control.interval", MINUTS_PUNTS_CONTROL);
+            simulador.activarPuntsControl(new File(control), Temps.minuts(minuts));
+        }
+    }
+
+    /**
+     * @pre escenari conté els fitxers CSV d'un escenari; n >= 1; fils >= 1
+     * @post Executa n rèpliques de l'escenari en paral·lel, cadascuna amb
+     *       peticionsAleatories peticions aleatòries més, i n'escriu la mitjana
+     *       i l'interval de confiança de cada mètrica.
+     */
+    public static void executarReplicacions(File escenari, int n, LocalTime horaInici, LocalTime horaFinal,
+            int peticionsAleatories, long llavor, int fils) {
+        long inici = Temps.ticks(horaInici);
+        long fi = ticksFi(inici, horaFinal);
+        ReplicacionsMonteCarlo replicacions = new ReplicacionsMonteCarlo(
+                ReplicacionsMonteCarlo.desDeEscenari(escenari, inici, fi, peticionsAleatories), fils);
+        PrintStream sortida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // cada rèplica escriu molt
+        ResumReplicacions resum;
+        long temps = System.nanoTime();
+        try {
+            resum = replicacions.executar(n, llavor);
+        } finally {
+            System.setOut(sortida);
+        }
+        System.out.print(resum);
+        System.out.println("Temps d'execució: " + (System.nanoTime() - temps) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @pre escenari conté els fitxers CSV d'un escenari; parametres són de la
+     *      forma nom=v1,v2,... amb nom vehicles, places, autonomia, carregadors
+     *      o fils.
+     * @post Simula en paral·lel totes les combinacions dels valors donats
+     *       (els paràmetres que no s'indiquen es deixen com a l'escenari) i
+     *       n'escriu la taula de resultats.
+     */
+    public static void executarExploracio(File escenari, LocalTime horaInici, LocalTime horaFinal,
+            List<String> parametres) {
+        Map<String, List<Integer>> valors = new HashMap<>();
+        for (String nom : new String[] { "vehicles", "places", "autonomia", "carregadors" }) {
+            valors.put(nom, List.of(ExploracioParametres.BASE));
+        }
+        int fils = Runtime.getRuntime().availableProcessors();
+        for (String parametre : parametres) {
+            String[] parts = parametre.split("=", 2);
+            if (parts.length != 2 || !(valors.containsKey(parts[0]) || parts[0].equals("fils"))) {
+                throw new IllegalArgumentException("Paràmetre desconegut: " + parametre);
+            }
+            List<Integer> llista = new ArrayList<>();
+            for (String valor : parts[1].split(",")) {
+                llista.add(Integer.parseInt(valor.trim()));
+            }
+            if (parts[0].equals("fils")) {
+                fils = llista.get(0);
+            } else {
+                valors.put(parts[0], llista);
+            }
+        }
+        long inici = Temps.ticks(horaInici);
+        ExploracioParametres exploracio = ExploracioParametres.desDeEscenari(escenari, inici,
+                ticksFi(inici, horaFinal));
+        List<ExploracioParametres.Variant> variants = ExploracioParametres.graella(valors.get("vehicles"),
+                valors.get("places"), valors.get("autonomia"), valors.get("carregadors"));
+        PrintStream sortida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // cada variant escriu molt
+        List<ExploracioParametres.Resultat> resultats;
+        long temps = System.nanoTime();
+        try {
+            resultats = exploracio.executar(variants, fils);
+        } finally {
+            System.setOut(sortida);
+        }
+        System.out.print(ExploracioParametres.taula(resultats));
+        System.out.println(variants.size() + " variants en " + (System.nanoTime() - temps) / 1_000_000 + " ms");
+    }
+
+    /**
+     * @pre inici >= 0, en ticks.
+     * @post Retorna horaFinal en ticks; si no és posterior a inici, s'entén
+     *       que és del dia següent.
+     */
+    private static long ticksFi(long inici, LocalTime horaFinal) {
+        long fi = Temps.ticks(horaFinal);
+        return fi > inici ? fi : fi + Temps.SEGONS_DIA;
+    }
+
+    /**
+     * @pre cert
+     * @post Inicia el programa. Amb els arguments
+     *       --batch llocs connexions vehicles conductors peticions sortida.json
+     *       horaInici horaFinal [estadistiques.json]
+     *       executa la simulació sense interfície; amb
+     *       --comparar-cues escenari... compara les cues d'esdeveniments amb
+     *       els escenaris donats; amb
+     *       --replicacions escenari n HH:mm HH:mm [peticionsAleatories]
+     *       [llavor] [fils] executa n rèpliques de l'escenari en paral·lel i
+     *       n'escriu el resum; amb
+     *       --exploracio escenari HH:mm HH:mm [nom=v1,v2,...]... simula les
+     *       variants de l'escenari de la graella donada (vegeu
+     *       executarExploracio); amb
+     *       --reprendre punt.bin llocs connexions sortida.json
+     *       [estadistiques.json] continua una simulació des d'un punt de
+     *       control; sense arguments obre el selector de fitxers.
      * @param args
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length < 9) {
+                System.err.println("Ús: --batch llocs.csv connexions.csv vehicles.csv conductors.csv peticions.csv"
+                        + " sortida.json HH:mm HH:mm [estadistiques.json]");
+                System.exit(2);
+            }
+            executarSenseInterficie(new File(args[1]), new File(args[2]), new File(args[3]), new File(args[4]),
+                    new File(args[5]), new File(args[6]), LocalTime.parse(args[7]), LocalTime.parse(args[8]),
+                    args.length > 9 ? new File(args[9]) : null);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--comparar-cues")) {
+            List<File> escenaris = new ArrayList<>();
+            for (int i = 1; i < args.length; i++) {
+                escenaris.add(new File(args[i]));
+            }
+            ComparativaCues.executar(escenaris);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--replicacions")) {
+            if (args.length < 5) {
+                System.err.println("Ús: --replicacions escenari n HH:mm HH:mm [peticionsAleatories] [llavor] [fils]");
+                System.exit(2);
+            }
+            executarReplicacions(new File(args[1]), Integer.parseInt(args[2]), LocalTime.parse(args[3]),
+                    LocalTime.parse(args[4]), args.length > 5 ? Integer.parseInt(args[5]) : 0,
+                    args.length > 6 ? Long.parseLong(args[6]) : 1L,
+                    args.length > 7 ? Integer.parseInt(args[7]) : Runtime.getRuntime().availableProcessors());
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--exploracio")) {
+            if (args.length < 4) {
+                System.err.println("Ús: --exploracio escenari HH:mm HH:mm [vehicles=a,b] [places=a,b]"
+                        + " [autonomia=a,b] [carregadors=a,b] [fils=n]");
+                System.exit(2);
+            }
+            executarExploracio(new File(args[1]), LocalTime.parse(args[2]), LocalTime.parse(args[3]),
+                    Arrays.asList(args).subList(4, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--reprendre")) {
+            if (args.length < 5) {
+                System.err.println("Ús: --reprendre punt.bin llocs.csv connexions.csv sortida.json"
+                        + " [estadistiques.json]");
+                System.exit(2);
+            }
+            try {
+                reprendreSenseInterficie(new File(args[1]), new File(args[2]), new File(args[3]),
+                        new File(args[4]), args.length > 5 ? new File(args[5]) : null);
+            } catch (IOException e) {
+                System.err.println("No s'ha pogut llegir el punt de control: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             SelectorInicial.mostrar(new SelectorInicial.DadesIniciListener() {
                 @Override
@@ -312,6 +588,34 @@ public class Main {
             simulador.afegirPeticioAleatoria(llocs);
         });
 
+        // Ritme de la simulació: -Drellotge=fix|real|x10|x1000|pas|max
+        String rellotge = System.getProperty("rellotge");
+        if (rellotge != null) {
+            simulador.setRellotge(Rellotge.perNom(rellotge));
+            if (rellotge.trim().equalsIgnoreCase("pas")) {
+                JButton botoPas = new JButton("Esdeveniment següent");
+                topPanel.add(botoPas);
+                botoPas.addActionListener(e -> simulador.avancarPas());
+            }
+        }
+
+        // Punts de control: -Dcontrol=directori
+        String control = System.getProperty("control");
+        if (control != null && simulacioReal) {
+            activarPuntsControl(simulador);
+            JButton botoControl = new JButton("Guardar punt de control");
+            topPanel.add(botoControl);
+            botoControl.addActionListener(e -> {
+                File fitxer = new File(control, "control-" + simulador.getHoraActual() + ".bin");
+                try {
+                    simulador.guardarPuntControl(fitxer);
+                    System.out.println("Punt de control guardat a " + fitxer);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(null, "No s'ha pogut guardar el punt de control: " + ex.getMessage());
+                }
+            });
+        }
+
         simulador.setMapPanel(mapPanel);
         for (Vehicle vehicle : vehicles) {
             mapPanel.assignarColorVehicle(vehicle);
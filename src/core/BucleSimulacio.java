@@ -0,0 +1,102 @@
+package core;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import javax.swing.Timer;
+
+/**
+ * @class BucleSimulacio
+ * @brief Executa els esdeveniments d'una simulació un rere l'altre amb el
+ *        ritme que marca un rellotge.
+ * @details Cada pas executa tots els esdeveniments d'un mateix instant i
+ *          s'executa des d'un javax.swing.Timer d'un sol tret, de
+ *          manera que els esdeveniments corren al fil de la interfície com
+ *          sempre. Després de cada pas es consulta el rellotge per programar
+ *          el següent; si el rellotge demana esperar, el bucle s'atura fins
+ *          que es crida avancar(). Quan el pas indica que ja no queda res, es
+ *          crida l'acció de finalització una sola vegada.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.15
+ */
+final class BucleSimulacio {
+
+    private final Rellotge rellotge; /// < Ritme de la simulació.
+    private final LongSupplier horaSeguent; /// < Hora del pròxim esdeveniment, o Temps.SENSE_HORA si no n'hi ha.
+    private final BooleanSupplier pas; /// < Executa els esdeveniments d'un instant; retorna false si ja no en queden.
+    private final Runnable finalitzar; /// < Acció quan la simulació s'acaba.
+    private long horaAnterior; /// < Hora simulada de l'últim esdeveniment executat.
+    private Timer timer; /// < Temporitzador del pas programat, o null.
+    private boolean esperantPas; /// < Si el bucle espera una crida a avancar().
+    private boolean acabat; /// < Si ja s'ha cridat finalitzar.
+
+    /**
+     * @pre Cap paràmetre és null.
+     * @post Crea un bucle aturat que començarà a l'hora simulada inici, en
+     *       ticks.
+     */
+    BucleSimulacio(Rellotge rellotge, long inici, LongSupplier horaSeguent, BooleanSupplier pas,
+            Runnable finalitzar) {
+        this.rellotge = rellotge;
+        this.horaAnterior = inici;
+        this.horaSeguent = horaSeguent;
+        this.pas = pas;
+        this.finalitzar = finalitzar;
+    }
+
+    /**
+     * @pre El bucle no s'ha iniciat.
+     * @post Programa el primer pas.
+     */
+    void iniciar() {
+        programar();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Si el bucle esperava un pas, l'executa ara.
+     */
+    void avancar() {
+        if (esperantPas && !acabat) {
+            esperantPas = false;
+            executarPas();
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Atura el bucle sense finalitzar la simulació.
+     */
+    void aturar() {
+        if (timer != null) {
+            timer.stop();
+            timer = null;
+        }
+        esperantPas = false;
+    }
+
+    private void programar() {
+        long seguent = horaSeguent.getAsLong();
+        long retard = seguent == Temps.SENSE_HORA ? 0 : rellotge.retard(horaAnterior, seguent);
+        if (retard == Rellotge.ESPERAR_PAS) {
+            esperantPas = true;
+            return;
+        }
+        timer = new Timer((int) Math.min(retard, Integer.MAX_VALUE), e -> executarPas());
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    private void executarPas() {
+        timer = null;
+        long hora = horaSeguent.getAsLong();
+        if (!pas.getAsBoolean()) {
+            acabat = true;
+            finalitzar.run();
+            return;
+        }
+        horaAnterior = hora;
+        programar();
+    }
+}
@@ -0,0 +1,175 @@
+package core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @class CacheRutes
+ * @brief Memòria cau LRU de rutes mínimes entre parells de llocs.
+ * @details La clau és el parell d'índexs del graf (origen, destí) més el
+ *          criteri de cerca, i el valor és el camí trobat amb el seu temps i
+ *          distància totals (també es guarden els destins inaccessibles). Quan
+ *          s'arriba a la capacitat s'elimina l'entrada usada fa més temps.
+ *          Tots els mètodes són sincronitzats, de manera que la poden
+ *          compartir diversos planificadors que treballin en paral·lel.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.05
+ */
+public class CacheRutes {
+
+    public static final int CAPACITAT_PER_DEFECTE = 4096; /// < Nombre d'entrades per defecte.
+
+    private final LinkedHashMap<Long, Entrada> entrades; /// < Entrades en ordre d'ús.
+    private int capacitat; /// < Nombre màxim d'entrades (0 desactiva la memòria cau).
+    private long encerts; /// < Consultes resoltes per la memòria cau.
+    private long fallades; /// < Consultes que han hagut de fer una cerca.
+
+    /**
+     * @pre capacitat >= 0
+     * @post Crea una memòria cau buida amb la capacitat indicada.
+     */
+    public CacheRutes(int capacitat) {
+        this.capacitat = capacitat;
+        this.entrades = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                return size() > CacheRutes.this.capacitat;
+            }
+        };
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la clau del parell (origen, desti) amb el criteri.
+     */
+    static long clau(int origen, int desti, CriteriCami criteri) {
+        return ((long) criteri.ordinal() << 62) | ((long) origen << 31) | desti;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna l'entrada de la clau i la marca com a usada, o null si no
+     *       hi és. Actualitza els comptadors d'encerts i fallades.
+     */
+    synchronized Entrada obtenir(long clau) {
+        Entrada entrada = entrades.get(clau);
+        if (entrada != null) {
+            encerts++;
+        } else {
+            fallades++;
+        }
+        return entrada;
+    }
+
+    /**
+     * @pre entrada != null
+     * @post Guarda l'entrada, eliminant la menys usada si cal.
+     */
+    synchronized void guardar(long clau, Entrada entrada) {
+        if (capacitat > 0) {
+            entrades.put(clau, entrada);
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Buida la memòria cau. Els comptadors es conserven.
+     */
+    public synchronized void invalidar() {
+        entrades.clear();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Elimina les entrades del criteri indicat.
+     */
+    synchronized void invalidar(CriteriCami criteri) {
+        entrades.keySet().removeIf(clau -> (clau >>> 62) == criteri.ordinal());
+    }
+
+    /**
+     * @pre Cert.
+     * @post Elimina les entrades el camí de les quals passa pel camí del graf
+     *       origen -> desti.
+     */
+    synchronized void invalidarCami(int origen, int desti) {
+        entrades.values().removeIf(entrada -> conteCami(entrada.cami, origen, desti));
+    }
+
+    private static boolean conteCami(int[] cami, int origen, int desti) {
+        if (cami == null) {
+            return false;
+        }
+        for (int i = 0; i + 1 < cami.length; i++) {
+            if (cami[i] == origen && cami[i + 1] == desti) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @pre capacitat >= 0
+     * @post Canvia la capacitat i elimina les entrades que hi sobrin.
+     */
+    public synchronized void setCapacitat(int capacitat) {
+        if (capacitat < 0) {
+            throw new IllegalArgumentException("La capacitat no pot ser negativa");
+        }
+        this.capacitat = capacitat;
+        var it = entrades.entrySet().iterator();
+        while (entrades.size() > capacitat && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la capacitat de la memòria cau.
+     */
+    public synchronized int getCapacitat() {
+        return capacitat;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre d'entrades guardades.
+     */
+    public synchronized int mida() {
+        return entrades.size();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de consultes resoltes per la memòria cau.
+     */
+    public synchronized long obtenirEncerts() {
+        return encerts;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de consultes que no eren a la memòria cau.
+     */
+    public synchronized long obtenirFallades() {
+        return fallades;
+    }
+
+    /**
+     * @class Entrada
+     * @brief Camí mínim guardat amb els seus totals.
+     */
+    static final class Entrada {
+        final int[] cami; /// < Índexs dels llocs del camí, o null si no és accessible.
+        final double temps; /// < Temps total del camí en minuts.
+        final double distancia; /// < Distància total del camí en km.
+
+        Entrada(int[] cami, double temps, double distancia) {
+            this.cami = cami;
+            this.temps = temps;
+            this.distancia = distancia;
+        }
+    }
+}
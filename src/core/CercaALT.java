@@ -0,0 +1,262 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * @class CercaALT
+ * @brief Cerca A* amb cotes inferiors de fites (ALT: A*, Landmarks,
+ *        Triangle inequality).
+ * @details En construir-la es trien unes quantes fites (llocs repartits pel
+ *          mapa) i es calcula la distància de cada fita a tots els llocs i de
+ *          tots els llocs a cada fita. Per la desigualtat triangular,
+ *          d(v, t) >= d(L, t) - d(L, v) i d(v, t) >= d(v, L) - d(t, L), i el
+ *          màxim d'aquestes cotes guia la cerca A* cap al destí, de manera que
+ *          s'assenten molts menys llocs que amb Dijkstra. Les cotes també
+ *          detecten llocs des dels quals no es pot arribar al destí, que es
+ *          descarten.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.07
+ */
+public class CercaALT extends Encaminador {
+
+    public static final int FITES_PER_DEFECTE = 8; /// < Nombre de fites per defecte.
+
+    private final GrafCSR graf; /// < Graf on es fan les cerques.
+    private final int[] fites; /// < Índex de cada fita.
+    private final Taules taulesTemps; /// < Distàncies a les fites en temps.
+    private final Taules taulesDistancia; /// < Distàncies a les fites en km.
+    private final ThreadLocal<EspaiCerca> espais; /// < Espai de treball de cada fil.
+
+    /**
+     * @pre graf != null; nombreFites > 0
+     * @post Crea un cercador ALT sobre el graf amb com a molt nombreFites
+     *       fites, triades de manera que quedin tan lluny com es pugui les unes
+     *       de les altres.
+     */
+    public CercaALT(GrafCSR graf, int nombreFites) {
+        this(graf, graf.invertir(), nombreFites);
+    }
+
+    /**
+     * @pre graf != null; invers és graf.invertir(); nombreFites > 0
+     * @post Com l'anterior, reaprofitant el graf invers ja construït.
+     */
+    public CercaALT(GrafCSR graf, GrafCSR invers, int nombreFites) {
+        this.graf = graf;
+        int n = graf.nombreLlocs();
+        int k = Math.min(nombreFites, n);
+        this.fites = new int[k];
+        this.taulesTemps = new Taules(n, k);
+        this.taulesDistancia = new Taules(n, k);
+        this.espais = ThreadLocal.withInitial(() -> new EspaiCerca(n));
+        if (k == 0) {
+            return;
+        }
+
+        CercaDijkstra directa = new CercaDijkstra(graf);
+        CercaDijkstra inversa = new CercaDijkstra(invers);
+        int[] ordre = new int[n];
+        int[] camiAnterior = new int[n];
+        double[] cost = new double[n];
+
+        // La primera fita és el lloc més llunyà del lloc 0; les següents, el
+        // lloc més llunyà de totes les fites ja triades.
+        double[] llunyania = new double[n];
+        Arrays.fill(llunyania, Double.POSITIVE_INFINITY);
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        int kInicial = directa.arbreComplet(0, CriteriCami.TEMPS, ordre, camiAnterior, cost);
+        int fita = ordre[kInicial - 1];
+        for (int f = 0; f < k; f++) {
+            fites[f] = fita;
+            calcularTaules(directa, inversa, f, fita, ordre, camiAnterior, cost);
+            int seguent = -1;
+            for (int v = 0; v < n; v++) {
+                double anada = taulesTemps.desde[v * k + f];
+                double tornada = taulesTemps.fins[v * k + f];
+                llunyania[v] = Math.min(llunyania[v], anada + tornada);
+                if (!esFita(v, f) && (seguent < 0 || llunyania[v] > llunyania[seguent])) {
+                    seguent = v;
+                }
+            }
+            fita = seguent;
+        }
+    }
+
+    private CercaALT(GrafCSR graf, CercaALT base) {
+        this.graf = graf;
+        this.fites = base.fites;
+        this.taulesTemps = base.taulesTemps;
+        this.taulesDistancia = base.taulesDistancia;
+        this.espais = ThreadLocal.withInitial(() -> new EspaiCerca(graf.nombreLlocs()));
+    }
+
+    /**
+     * @brief Retorna un cercador sobre un graf on alguns camins s'han alentit,
+     *        reaprofitant les taules de fites.
+     * @details Les cotes calculades amb els pesos antics continuen sent
+     *          admissibles i consistents si cap pes ha baixat, perquè els
+     *          costos reduïts w - h(u) + h(v) només poden créixer. Si algun pes
+     *          ha baixat cal construir un cercador nou.
+     * @pre graf té la mateixa estructura que el graf actual i cap pes menor.
+     * @post Retorna el cercador sobre el graf nou.
+     */
+    public CercaALT ambPesosMajors(GrafCSR graf) {
+        return new CercaALT(graf, this);
+    }
+
+    /**
+     * @pre graf != null
+     * @post Crea un cercador ALT amb FITES_PER_DEFECTE fites.
+     */
+    public CercaALT(GrafCSR graf) {
+        this(graf, FITES_PER_DEFECTE);
+    }
+
+    private boolean esFita(int v, int fins) {
+        for (int f = 0; f <= fins; f++) {
+            if (fites[f] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Omple la columna f de les taules dels dos criteris amb les
+     *       distàncies des de i fins a la fita.
+     */
+    private void calcularTaules(CercaDijkstra directa, CercaDijkstra inversa, int f, int fita, int[] ordre,
+            int[] camiAnterior, double[] cost) {
+        for (CriteriCami criteri : CriteriCami.values()) {
+            Taules taules = criteri == CriteriCami.TEMPS ? taulesTemps : taulesDistancia;
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            directa.arbreComplet(fita, criteri, ordre, camiAnterior, cost);
+            taules.omplir(taules.desde, f, cost);
+            Arrays.fill(cost, Double.POSITIVE_INFINITY);
+            inversa.arbreComplet(fita, criteri, ordre, camiAnterior, cost);
+            taules.omplir(taules.fins, f, cost);
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna TipusEncaminament.ALT.
+     */
+    @Override
+    public TipusEncaminament obtenirTipus() {
+        return TipusEncaminament.ALT;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna una còpia dels índexs de les fites.
+     */
+    public int[] obtenirFites() {
+        return fites.clone();
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna els índexs dels llocs del camí mínim d'origen a desti
+     *       (ambdós inclosos), o null si desti no és accessible.
+     */
+    @Override
+    public int[] cercar(int origen, int desti, CriteriCami criteri) {
+        Taules taules = criteri == CriteriCami.TEMPS ? taulesTemps : taulesDistancia;
+        double[] pesos = graf.pesos(criteri);
+        EspaiCerca espai = espais.get();
+
+        double cotaOrigen = taules.cota(origen, desti);
+        if (cotaOrigen == Double.POSITIVE_INFINITY) {
+            registrarConsulta(0);
+            return null;
+        }
+        espai.iniciar(origen, cotaOrigen);
+
+        int assentats = 0;
+        HeapIndexat heap = espai.heap;
+        while (!heap.esBuit()) {
+            int u = heap.extreureMinim();
+            espai.tancar(u);
+            assentats++;
+            if (u == desti) {
+                heap.buidar();
+                registrarConsulta(assentats);
+                return espai.cami(origen, desti);
+            }
+            double d = espai.distancia(u);
+            for (int c = graf.primerCami(u), fi = graf.fiCamins(u); c < fi; c++) {
+                int v = graf.desti(c);
+                if (espai.esTancat(v)) {
+                    continue;
+                }
+                double nova = d + pesos[c];
+                if (espai.relaxar(v, nova, u)) {
+                    double cota = taules.cota(v, desti);
+                    if (cota != Double.POSITIVE_INFINITY) {
+                        heap.inserirODisminuir(v, nova + cota);
+                    }
+                }
+            }
+        }
+        registrarConsulta(assentats);
+        return null;
+    }
+
+    /**
+     * @class Taules
+     * @brief Distàncies des de i fins a cada fita per a un criteri.
+     * @details Les distàncies de cada lloc a totes les fites són contigües
+     *          (posició v * k + f), perquè calcular una cota només llegeixi
+     *          dues zones petites de memòria.
+     */
+    private static final class Taules {
+        private final int k; /// < Nombre de fites.
+        private final double[] desde; /// < d(fita, v), infinit si no és accessible.
+        private final double[] fins; /// < d(v, fita), infinit si no és accessible.
+
+        Taules(int n, int k) {
+            this.k = k;
+            this.desde = new double[n * k];
+            this.fins = new double[n * k];
+        }
+
+        void omplir(double[] taula, int f, double[] cost) {
+            for (int v = 0; v < cost.length; v++) {
+                taula[v * k + f] = cost[v];
+            }
+        }
+
+        /**
+         * @pre Cert.
+         * @post Retorna una cota inferior de d(v, t), o infinit si les fites
+         *       demostren que t no és accessible des de v.
+         */
+        double cota(int v, int t) {
+            double cota = 0.0;
+            int bv = v * k;
+            int bt = t * k;
+            for (int f = 0; f < k; f++) {
+                double ft = desde[bt + f];
+                double fv = desde[bv + f];
+                if (fv != Double.POSITIVE_INFINITY) {
+                    if (ft == Double.POSITIVE_INFINITY) {
+                        return Double.POSITIVE_INFINITY; // f arriba a v però no a t
+                    }
+                    cota = Math.max(cota, ft - fv);
+                }
+                double vf = fins[bv + f];
+                double tf = fins[bt + f];
+                if (tf != Double.POSITIVE_INFINITY) {
+                    if (vf == Double.POSITIVE_INFINITY) {
+                        return Double.POSITIVE_INFINITY; // t arriba a f però v no
+                    }
+                    cota = Math.max(cota, vf - tf);
+                }
+            }
+            return cota;
+        }
+    }
+}
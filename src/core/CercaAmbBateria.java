@@ -0,0 +1,266 @@
+package core;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * @class CercaAmbBateria
+ * @brief Cerca del camí més ràpid amb restricció d'autonomia i parades de
+ *        càrrega.
+ * @details És una cerca de camins mínims amb recursos (label-setting): cada
+ *          etiqueta és un estat (lloc, temps, autonomia restant) i un lloc es
+ *          pot assentar diverses vegades si cada cop hi arriba amb més
+ *          autonomia. Com que les etiquetes surten de la cua per ordre de
+ *          temps, una etiqueta nova només és útil si millora l'autonomia de
+ *          totes les que ja s'han assentat al mateix lloc. Als llocs on es pot
+ *          carregar es genera també l'etiqueta de carregar fins a l'autonomia
+ *          màxima, sumant-hi el temps de càrrega. Així en una sola cerca
+ *          s'obté el camí més ràpid que no es queda mai sense bateria, amb les
+ *          parades on cal carregar.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.10
+ */
+public class CercaAmbBateria {
+
+    private final GrafCSR graf; /// < Graf on es fan les cerques.
+
+    /**
+     * @pre graf != null
+     * @post Crea un cercador sobre el graf.
+     */
+    public CercaAmbBateria(GrafCSR graf) {
+        this.graf = graf;
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs(); 0 <= reserva <=
+     *      autonomiaMaxima
+     * @post Retorna el camí més ràpid d'origen a desti en què l'autonomia no
+     *       baixa mai de reserva, amb les parades de càrrega necessàries, o
+     *       null si no n'hi ha cap.
+     *
+     * @param origen            Índex del lloc de sortida.
+     * @param desti             Índex del lloc d'arribada.
+     * @param autonomiaInicial  Km que es poden recórrer amb la bateria actual.
+     * @param autonomiaMaxima   Km que es poden recórrer després de carregar.
+     * @param reserva           Km d'autonomia que s'han de conservar sempre.
+     * @param tempsCarrega      Minuts que costa carregar fins a l'autonomia
+     *                          màxima a cada lloc, o un valor negatiu si no s'hi
+     *                          pot carregar.
+     * @return Resultat de la cerca o null.
+     */
+    public Resultat cercar(int origen, int desti, double autonomiaInicial, double autonomiaMaxima, double reserva,
+            IntToDoubleFunction tempsCarrega) {
+        return cercar(new int[] { origen, desti }, autonomiaInicial, autonomiaMaxima, reserva, tempsCarrega);
+    }
+
+    /**
+     * @brief Com l'anterior, però passant per uns llocs intermedis en ordre.
+     * @details Cada etiqueta porta també la fase, el nombre de punts de la
+     *          llista ja visitats, i dues etiquetes només es comparen si són de
+     *          la mateixa fase. En assentar el punt que toca, la cerca passa a
+     *          la fase següent des del mateix lloc, de manera que el trajecte
+     *          de punt a punt, càrregues incloses, es tria tot en una sola
+     *          cerca.
+     * @pre punts.length >= 2; 0 <= punts[i] < graf.nombreLlocs(); 0 <=
+     *      reserva <= autonomiaMaxima
+     * @post Retorna el camí més ràpid que surt de punts[0] i passa per la resta
+     *       de punts en ordre, en què l'autonomia no baixa mai de reserva, o
+     *       null si no n'hi ha cap.
+     */
+    public Resultat cercar(int[] punts, double autonomiaInicial, double autonomiaMaxima, double reserva,
+            IntToDoubleFunction tempsCarrega) {
+        double[] temps = graf.pesos(CriteriCami.TEMPS);
+        double[] distancia = graf.pesos(CriteriCami.DISTANCIA);
+        int n = graf.nombreLlocs();
+        double[] millorAutonomia = new double[n * (punts.length - 1)];
+        Arrays.fill(millorAutonomia, Double.NEGATIVE_INFINITY);
+        Etiquetes etiquetes = new Etiquetes();
+        etiquetes.afegir(punts[0], 0, 0.0, autonomiaInicial, 0.0, -1, MOVIMENT);
+
+        while (!etiquetes.esBuida()) {
+            int e = etiquetes.extreureMinima();
+            int u = etiquetes.lloc[e];
+            int f = etiquetes.fase[e];
+            double a = etiquetes.autonomia[e];
+            if (a <= millorAutonomia[f * n + u]) {
+                continue; // dominada per una etiqueta anterior
+            }
+            millorAutonomia[f * n + u] = a;
+            double t = etiquetes.temps[e];
+            double d = etiquetes.distancia[e];
+            if (u == punts[f + 1]) {
+                if (f + 2 == punts.length) {
+                    return etiquetes.resultat(e);
+                }
+                // Des del punt assentat comença el tram següent
+                etiquetes.afegir(u, f + 1, t, a, d, e, PAS);
+                continue;
+            }
+            if (a < autonomiaMaxima) {
+                double carrega = tempsCarrega.applyAsDouble(u);
+                if (carrega >= 0) {
+                    etiquetes.afegir(u, f, t + carrega, autonomiaMaxima, d, e, CARREGA);
+                }
+            }
+            for (int c = graf.primerCami(u), fi = graf.fiCamins(u); c < fi; c++) {
+                int v = graf.desti(c);
+                double restant = a - distancia[c];
+                if (restant < reserva || restant <= millorAutonomia[f * n + v]) {
+                    continue;
+                }
+                etiquetes.afegir(v, f, t + temps[c], restant, d + distancia[c], e, MOVIMENT);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @class Resultat
+     * @brief Camí trobat amb les seves parades de càrrega i totals.
+     */
+    public static final class Resultat {
+        private final int[] cami; /// < Índexs dels llocs del camí.
+        private final int[] parades; /// < Posicions del camí on es carrega, en ordre.
+        private final double temps; /// < Temps total en minuts, càrregues incloses.
+        private final double distancia; /// < Distància total en km.
+
+        Resultat(int[] cami, int[] parades, double temps, double distancia) {
+            this.cami = cami;
+            this.parades = parades;
+            this.temps = temps;
+            this.distancia = distancia;
+        }
+
+        public int[] obtenirCami() {
+            return cami;
+        }
+
+        /**
+         * @pre Cert.
+         * @post Retorna les posicions d'obtenirCami() on s'ha de carregar
+         *       abans de continuar, en ordre.
+         */
+        public int[] obtenirParades() {
+            return parades;
+        }
+
+        public double obtenirTemps() {
+            return temps;
+        }
+
+        public double obtenirDistancia() {
+            return distancia;
+        }
+    }
+
+    private static final byte MOVIMENT = 0; /// < Etiqueta d'arribar a un lloc per un camí.
+    private static final byte CARREGA = 1; /// < Etiqueta de carregar al mateix lloc.
+    private static final byte PAS = 2; /// < Etiqueta de passar a la fase següent al mateix lloc.
+
+    /**
+     * @class Etiquetes
+     * @brief Etiquetes d'una cerca i cua de prioritat per temps.
+     * @details En cas d'empat de temps surt primer l'etiqueta amb més
+     *          autonomia, que és la que pot dominar les altres.
+     */
+    private static final class Etiquetes {
+        private int[] lloc = new int[64]; /// < Lloc de cada etiqueta.
+        private int[] fase = new int[64]; /// < Punts de la cerca ja visitats, menys el primer.
+        private double[] temps = new double[64]; /// < Temps acumulat.
+        private double[] autonomia = new double[64]; /// < Autonomia restant en km.
+        private double[] distancia = new double[64]; /// < Distància acumulada.
+        private int[] anterior = new int[64]; /// < Etiqueta anterior, o -1.
+        private byte[] tipus = new byte[64]; /// < MOVIMENT, CARREGA o PAS.
+        private int mida; /// < Nombre d'etiquetes creades.
+        private int[] heap = new int[64]; /// < Cua de prioritat d'etiquetes.
+        private int midaHeap; /// < Nombre d'etiquetes a la cua.
+
+        boolean esBuida() {
+            return midaHeap == 0;
+        }
+
+        void afegir(int v, int f, double t, double a, double d, int pare, byte tipusEtiqueta) {
+            if (mida == lloc.length) {
+                int nova = mida * 2;
+                lloc = Arrays.copyOf(lloc, nova);
+                fase = Arrays.copyOf(fase, nova);
+                temps = Arrays.copyOf(temps, nova);
+                autonomia = Arrays.copyOf(autonomia, nova);
+                distancia = Arrays.copyOf(distancia, nova);
+                anterior = Arrays.copyOf(anterior, nova);
+                tipus = Arrays.copyOf(tipus, nova);
+            }
+            int e = mida++;
+            lloc[e] = v;
+            fase[e] = f;
+            temps[e] = t;
+            autonomia[e] = a;
+            distancia[e] = d;
+            anterior[e] = pare;
+            tipus[e] = tipusEtiqueta;
+
+            if (midaHeap == heap.length) {
+                heap = Arrays.copyOf(heap, midaHeap * 2);
+            }
+            int p = midaHeap++;
+            while (p > 0) {
+                int q = (p - 1) >>> 1;
+                if (!menor(e, heap[q])) {
+                    break;
+                }
+                heap[p] = heap[q];
+                p = q;
+            }
+            heap[p] = e;
+        }
+
+        int extreureMinima() {
+            int minima = heap[0];
+            int e = heap[--midaHeap];
+            int p = 0;
+            int meitat = midaHeap >>> 1;
+            while (p < meitat) {
+                int fill = 2 * p + 1;
+                if (fill + 1 < midaHeap && menor(heap[fill + 1], heap[fill])) {
+                    fill++;
+                }
+                if (!menor(heap[fill], e)) {
+                    break;
+                }
+                heap[p] = heap[fill];
+                p = fill;
+            }
+            heap[p] = e;
+            return minima;
+        }
+
+        private boolean menor(int x, int y) {
+            return temps[x] < temps[y] || (temps[x] == temps[y] && autonomia[x] > autonomia[y]);
+        }
+
+        Resultat resultat(int ultima) {
+            int llocs = 0;
+            int nParades = 0;
+            for (int e = ultima; e >= 0; e = anterior[e]) {
+                if (tipus[e] == MOVIMENT) {
+                    llocs++;
+                } else if (tipus[e] == CARREGA) {
+                    nParades++;
+                }
+            }
+            int[] cami = new int[llocs];
+            int[] parades = new int[nParades];
+            for (int e = ultima; e >= 0; e = anterior[e]) {
+                if (tipus[e] == MOVIMENT) {
+                    llocs--;
+                    cami[llocs] = lloc[e];
+                } else if (tipus[e] == CARREGA) {
+                    parades[--nParades] = llocs - 1; // posició al camí del lloc on es carrega
+                }
+            }
+            return new Resultat(cami, parades, temps[ultima], distancia[ultima]);
+        }
+    }
+}
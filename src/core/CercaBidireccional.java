@@ -0,0 +1,128 @@
+package core;
+
+/**
+ * @class CercaBidireccional
+ * @brief Cerca de Dijkstra bidireccional per a consultes punt a punt.
+ * @details Fa alhora una cerca des de l'origen sobre el graf i una des del
+ *          destí sobre el graf invers, avançant sempre la que té la clau
+ *          mínima més petita. Cada vegada que un camí toca un lloc ja vist per
+ *          l'altra cerca s'actualitza el millor camí trobat, i s'acaba quan la
+ *          suma de les dues claus mínimes ja no el pot millorar. Cadascuna
+ *          explora aproximadament un cercle de radi meitat, de manera que
+ *          s'assenten molts menys llocs que amb una sola cerca.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.09
+ */
+public class CercaBidireccional extends Encaminador {
+
+    private final GrafCSR graf; /// < Graf on es fan les cerques cap endavant.
+    private final GrafCSR invers; /// < Graf amb els camins invertits, per a les cerques cap enrere.
+    private final ThreadLocal<EspaiCerca[]> espais; /// < Espais de les dues cerques de cada fil.
+
+    /**
+     * @pre graf != null; invers és graf.invertir()
+     * @post Crea un cercador bidireccional sobre el graf.
+     */
+    public CercaBidireccional(GrafCSR graf, GrafCSR invers) {
+        this.graf = graf;
+        this.invers = invers;
+        this.espais = ThreadLocal.withInitial(
+                () -> new EspaiCerca[] { new EspaiCerca(graf.nombreLlocs()), new EspaiCerca(graf.nombreLlocs()) });
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna TipusEncaminament.BIDIRECCIONAL.
+     */
+    @Override
+    public TipusEncaminament obtenirTipus() {
+        return TipusEncaminament.BIDIRECCIONAL;
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna els índexs dels llocs del camí mínim d'origen a desti
+     *       (ambdós inclosos), o null si desti no és accessible.
+     */
+    @Override
+    public int[] cercar(int origen, int desti, CriteriCami criteri) {
+        if (origen == desti) {
+            registrarConsulta(1);
+            return new int[] { origen };
+        }
+        double[] pesos = graf.pesos(criteri);
+        double[] pesosInvers = invers.pesos(criteri);
+        EspaiCerca[] e = espais.get();
+        EspaiCerca endavant = e[0];
+        EspaiCerca enrere = e[1];
+        endavant.iniciar(origen);
+        enrere.iniciar(desti);
+        HeapIndexat heapEndavant = endavant.heap;
+        HeapIndexat heapEnrere = enrere.heap;
+
+        double millor = Double.POSITIVE_INFINITY;
+        int trobada = -1;
+        int assentats = 0;
+        while (!heapEndavant.esBuit() && !heapEnrere.esBuit()
+                && heapEndavant.clauMinima() + heapEnrere.clauMinima() < millor) {
+            boolean capEndavant = heapEndavant.clauMinima() <= heapEnrere.clauMinima();
+            GrafCSR g = capEndavant ? graf : invers;
+            double[] p = capEndavant ? pesos : pesosInvers;
+            EspaiCerca aquesta = capEndavant ? endavant : enrere;
+            EspaiCerca altra = capEndavant ? enrere : endavant;
+
+            double du = aquesta.heap.clauMinima();
+            int u = aquesta.heap.extreureMinim();
+            aquesta.tancar(u);
+            assentats++;
+            for (int c = g.primerCami(u), fi = g.fiCamins(u); c < fi; c++) {
+                int v = g.desti(c);
+                if (aquesta.esTancat(v)) {
+                    continue;
+                }
+                double nova = du + p[c];
+                if (aquesta.relaxar(v, nova, u)) {
+                    aquesta.heap.inserirODisminuir(v, nova);
+                }
+                if (altra.esVisitat(v) && nova + altra.distancia(v) < millor) {
+                    millor = nova + altra.distancia(v);
+                    trobada = v;
+                }
+            }
+        }
+        heapEndavant.buidar();
+        heapEnrere.buidar();
+        registrarConsulta(assentats);
+        if (trobada < 0) {
+            return null;
+        }
+        return unir(origen, trobada, endavant, enrere);
+    }
+
+    /**
+     * @pre Les dues cerques han arribat a trobada.
+     * @post Retorna el camí d'origen fins a trobada (cerca cap endavant)
+     *       seguit del de trobada fins al destí (cerca cap enrere).
+     */
+    private static int[] unir(int origen, int trobada, EspaiCerca endavant, EspaiCerca enrere) {
+        int primer = 1;
+        for (int v = trobada; v != origen; v = endavant.anterior(v)) {
+            primer++;
+        }
+        int segon = 0;
+        for (int v = trobada; enrere.anterior(v) >= 0; v = enrere.anterior(v)) {
+            segon++;
+        }
+        int[] cami = new int[primer + segon];
+        int i = primer - 1;
+        for (int v = trobada; i >= 0; v = endavant.anterior(v), i--) {
+            cami[i] = v;
+        }
+        i = primer;
+        for (int v = trobada; enrere.anterior(v) >= 0; v = enrere.anterior(v)) {
+            cami[i++] = enrere.anterior(v);
+        }
+        return cami;
+    }
+}
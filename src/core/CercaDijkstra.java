@@ -0,0 +1,172 @@
+package core;
+
+import java.util.function.IntPredicate;
+
+/**
+ * @class CercaDijkstra
+ * @brief Cerca de camins mínims amb l'algorisme de Dijkstra sobre un GrafCSR.
+ * @details La cerca és iterativa. Cada fil fa servir el seu propi espai de
+ *          treball (vectors de distàncies, predecessors i heap), que es
+ *          reutilitza entre consultes marcant-lo amb un número de versió, de
+ *          manera que una consulta no reserva memòria fora del camí resultant.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.02
+ */
+public class CercaDijkstra extends Encaminador {
+
+    private final GrafCSR graf; /// < Graf on es fan les cerques.
+    private final ThreadLocal<EspaiCerca> espais; /// < Espai de treball de cada fil.
+
+    /**
+     * @pre graf != null
+     * @post Crea un cercador sobre el graf.
+     */
+    public CercaDijkstra(GrafCSR graf) {
+        this.graf = graf;
+        this.espais = ThreadLocal.withInitial(() -> new EspaiCerca(graf.nombreLlocs()));
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna els índexs dels llocs del camí mínim d'origen a desti
+     *       (ambdós inclosos), o null si desti no és accessible.
+     *
+     * @param origen  Índex del lloc de sortida.
+     * @param desti   Índex del lloc d'arribada.
+     * @param criteri Criteri per ponderar els camins.
+     * @return Camí mínim o null.
+     */
+    @Override
+    public int[] cercar(int origen, int desti, CriteriCami criteri) {
+        EspaiCerca espai = espais.get();
+        if (explorar(espai, origen, desti, null, criteri) < 0) {
+            return null;
+        }
+        return espai.cami(origen, desti);
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna el cost del camí mínim d'origen a desti, o
+     *       Double.MAX_VALUE si desti no és accessible.
+     */
+    public double cost(int origen, int desti, CriteriCami criteri) {
+        EspaiCerca espai = espais.get();
+        if (explorar(espai, origen, desti, null, criteri) < 0) {
+            return Double.MAX_VALUE;
+        }
+        return espai.distancia(desti);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna TipusEncaminament.DIJKSTRA.
+     */
+    @Override
+    public TipusEncaminament obtenirTipus() {
+        return TipusEncaminament.DIJKSTRA;
+    }
+
+    /**
+     * @brief Cerca el lloc més proper que compleix una condició.
+     * @details Es fa una sola cerca de Dijkstra amb múltiples destins: s'atura
+     *          en assentar el primer lloc que compleix la condició, que és el
+     *          de cost mínim d'entre tots els que la compleixen.
+     * @pre 0 <= origen < graf.nombreLlocs(); objectiu != null
+     * @post Retorna els índexs dels llocs del camí fins al lloc més proper que
+     *       compleix objectiu (ambdós extrems inclosos; pot ser el mateix
+     *       origen), o null si no n'hi ha cap d'accessible.
+     *
+     * @param origen   Índex del lloc de sortida.
+     * @param objectiu Condició sobre l'índex dels llocs de destí.
+     * @param criteri  Criteri per ponderar els camins.
+     * @return Camí mínim fins al lloc trobat o null.
+     */
+    public int[] cercarMesProper(int origen, IntPredicate objectiu, CriteriCami criteri) {
+        EspaiCerca espai = espais.get();
+        int desti = explorar(espai, origen, -1, objectiu, criteri);
+        if (desti < 0) {
+            return null;
+        }
+        return espai.cami(origen, desti);
+    }
+
+    /**
+     * @brief Calcula l'arbre de camins mínims complet des d'un lloc.
+     * @pre 0 <= origen < graf.nombreLlocs(); els vectors tenen mida
+     *      graf.nombreLlocs()
+     * @post ordre[0, k) conté els k llocs accessibles en l'ordre en què s'han
+     *       assentat (origen el primer); per a cadascun, cost conté el cost
+     *       mínim i camiAnterior el camí del graf pel qual s'hi arriba (-1 per
+     *       a origen). Les posicions de llocs no accessibles no es modifiquen.
+     * @return k, el nombre de llocs accessibles.
+     */
+    public int arbreComplet(int origen, CriteriCami criteri, int[] ordre, int[] camiAnterior, double[] cost) {
+        double[] pesos = graf.pesos(criteri);
+        EspaiCerca espai = espais.get();
+        espai.iniciar(origen);
+        camiAnterior[origen] = -1;
+
+        int k = 0;
+        HeapIndexat heap = espai.heap;
+        while (!heap.esBuit()) {
+            double d = heap.clauMinima();
+            int u = heap.extreureMinim();
+            espai.tancar(u);
+            ordre[k++] = u;
+            cost[u] = d;
+            for (int c = graf.primerCami(u), fi = graf.fiCamins(u); c < fi; c++) {
+                int v = graf.desti(c);
+                if (espai.esTancat(v)) {
+                    continue;
+                }
+                double nova = d + pesos[c];
+                if (espai.relaxar(v, nova, u)) {
+                    camiAnterior[v] = c;
+                    heap.inserirODisminuir(v, nova);
+                }
+            }
+        }
+        return k;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Executa Dijkstra des d'origen fins que queda assentat desti (si
+     *       objectiu és null) o un lloc que compleix objectiu, i en retorna
+     *       l'índex; retorna -1 si s'esgota el graf sense trobar-ne cap. La
+     *       consulta es compta a les estadístiques. Les consultes d'un sol
+     *       destí passen objectiu null per no reservar cap lambda.
+     */
+    private int explorar(EspaiCerca espai, int origen, int desti, IntPredicate objectiu, CriteriCami criteri) {
+        double[] pesos = graf.pesos(criteri);
+        espai.iniciar(origen);
+
+        int assentats = 0;
+        HeapIndexat heap = espai.heap;
+        while (!heap.esBuit()) {
+            double d = heap.clauMinima();
+            int u = heap.extreureMinim();
+            espai.tancar(u);
+            assentats++;
+            if (objectiu == null ? u == desti : objectiu.test(u)) {
+                heap.buidar();
+                registrarConsulta(assentats);
+                return u;
+            }
+            for (int c = graf.primerCami(u), fi = graf.fiCamins(u); c < fi; c++) {
+                int v = graf.desti(c);
+                if (espai.esTancat(v)) {
+                    continue;
+                }
+                double nova = d + pesos[c];
+                if (espai.relaxar(v, nova, u)) {
+                    heap.inserirODisminuir(v, nova);
+                }
+            }
+        }
+        registrarConsulta(assentats);
+        return -1;
+    }
+}
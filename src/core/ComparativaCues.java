@@ -0,0 +1,170 @@
+package core;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import events.Event;
+
+/**
+ * @class ComparativaCues
+ * @brief Compara el rendiment de CuaCalendari i CuaMonticle amb temps
+ *        d'esdeveniments reals.
+ * @details Primer s'executen els escenaris donats (directoris amb llocs.csv,
+ *          camins.csv, vehicles.csv, conductors.csv i peticions.csv) i es
+ *          guarda, per cada esdeveniment programat, quant temps després de
+ *          l'hora actual es programa. Després, per cada mida de cua, s'omple
+ *          la cua amb aquesta distribució i es fa el model "hold": es treu el
+ *          primer esdeveniment i se'n programa un de nou a la seva hora més un
+ *          retard de la distribució, que és el que fa el simulador en règim
+ *          estable. Les dues cues fan exactament les mateixes operacions i es
+ *          comprova que treuen els esdeveniments en el mateix ordre.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.17
+ */
+public final class ComparativaCues {
+
+    private static final int[] MIDES = { 10_000, 100_000, 1_000_000 }; /// < Mides de cua que es comparen.
+    private static final int OPERACIONS = 2_000_000; /// < Operacions hold per mesura.
+    private static final long LLAVOR = 17; /// < Llavor dels retards, la mateixa per a les dues cues.
+
+    private ComparativaCues() {
+    }
+
+    /**
+     * @class EventProva
+     * @brief Esdeveniment buit, només per omplir les cues.
+     */
+    private static final class EventProva extends Event {
+        private static final long serialVersionUID = 1L;
+
+        EventProva(long temps) {
+            super(temps);
+        }
+
+        @Override
+        public void executar(Simulador simulador) {
+        }
+    }
+
+    /**
+     * @class CuaRegistrada
+     * @brief Cua que anota quant temps després de l'últim esdeveniment tret es
+     *        programa cada esdeveniment nou.
+     */
+    private static final class CuaRegistrada implements CuaEsdeveniments {
+        private final CuaEsdeveniments cua = new CuaMonticle(); /// < Cua real.
+        private final List<Long> retards; /// < On s'anoten els retards.
+        private long ara; /// < Temps de l'últim esdeveniment tret.
+
+        CuaRegistrada(long inici, List<Long> retards) {
+            this.ara = inici;
+            this.retards = retards;
+        }
+
+        @Override
+        public void afegir(Event event) {
+            retards.add(Math.max(0, event.getTemps() - ara));
+            cua.afegir(event);
+        }
+
+        @Override
+        public Event primer() {
+            return cua.primer();
+        }
+
+        @Override
+        public Event treure() {
+            Event event = cua.treure();
+            if (event != null) {
+                ara = event.getTemps();
+            }
+            return event;
+        }
+
+        @Override
+        public int mida() {
+            return cua.mida();
+        }
+    }
+
+    /**
+     * @pre Cada element de escenaris és un directori d'escenari.
+     * @post Retorna els retards (en ticks) amb què s'han programat els
+     *       esdeveniments en simular els escenaris sencers.
+     */
+    public static long[] retardsEscenaris(List<File> escenaris) {
+        List<Long> retards = new ArrayList<>();
+        PrintStream sortida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (File dir : escenaris) {
+                Simulador simulador = ReplicacionsMonteCarlo.carregarEscenari(dir, 0, Temps.SEGONS_DIA,
+                        new CuaRegistrada(0, retards));
+                simulador.executarSenseInterficie(null, null);
+            }
+        } finally {
+            System.setOut(sortida);
+        }
+        long[] resultat = new long[retards.size()];
+        for (int i = 0; i < resultat.length; i++) {
+            resultat[i] = retards.get(i);
+        }
+        return resultat;
+    }
+
+    /**
+     * @pre retards no és buit; mida > 0; operacions >= 0
+     * @post Fa el model hold sobre la cua donada i retorna {nanosegons per
+     *       operació, suma de control dels temps dels esdeveniments trets}.
+     */
+    public static long[] mesurar(CuaEsdeveniments cua, long[] retards, int mida, int operacions) {
+        Random random = new Random(LLAVOR);
+        for (int i = 0; i < mida; i++) {
+            cua.afegir(new EventProva(retards[random.nextInt(retards.length)]));
+        }
+        long control = 0;
+        long inici = System.nanoTime();
+        for (int i = 0; i < operacions; i++) {
+            Event primer = cua.treure();
+            control = control * 31 + primer.getTemps();
+            cua.afegir(new EventProva(primer.getTemps() + retards[random.nextInt(retards.length)]));
+        }
+        long nanos = System.nanoTime() - inici;
+        return new long[] { operacions == 0 ? 0 : nanos / operacions, control };
+    }
+
+    /**
+     * @pre Cert.
+     * @post Escriu per la sortida estàndard la comparativa de les dues cues
+     *       amb els retards dels escenaris donats.
+     * @throws IllegalStateException si les cues no treuen els esdeveniments
+     *         en el mateix ordre.
+     */
+    public static void executar(List<File> escenaris) {
+        long[] retards = retardsEscenaris(escenaris);
+        if (retards.length == 0) {
+            System.out.println("Els escenaris no han programat cap esdeveniment.");
+            return;
+        }
+        System.out.println("Retards de " + retards.length + " esdeveniments de " + escenaris.size()
+                + " escenaris.");
+        // Escalfament de la JVM
+        mesurar(new CuaCalendari(), retards, MIDES[0], OPERACIONS / 4);
+        mesurar(new CuaMonticle(), retards, MIDES[0], OPERACIONS / 4);
+
+        System.out.printf("%12s %16s %16s%n", "mida", "calendari ns/op", "monticle ns/op");
+        for (int mida : MIDES) {
+            long[] calendari = mesurar(new CuaCalendari(), retards, mida, OPERACIONS);
+            long[] monticle = mesurar(new CuaMonticle(), retards, mida, OPERACIONS);
+            if (calendari[1] != monticle[1]) {
+                throw new IllegalStateException("Les cues no treuen els esdeveniments en el mateix ordre");
+            }
+            System.out.printf("%12d %16d %16d%n", mida, calendari[0], monticle[0]);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package core;
 
-import java.time.LocalTime;
+import events.CarregarBateriaEvent;
+import java.io.Serializable;
 
 /**
  * @class Conductor
@@ -9,7 +10,9 @@ import java.time.LocalTime;
  * @author Anouar El Barkouki Hitach
  * @version 2025.03.04
  */
-public abstract class Conductor {
+public abstract class Conductor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     protected int id; /// < Identificador del conductor.
     protected String nom; /// < Nom del conductor.
     protected Vehicle vehicle;/// < Vehicle que condueix el conductor
@@ -75,27 +78,58 @@ public abstract class Conductor {
     }
 
     /**
-     * @brief Comprova si el vehicle té bateria suficient per fer la distància
-     *        indicada. Si no en té, intenta planificar una ruta cap al pàrquing més
-     *        proper per carregar.
-     *
-     * @param distancia  La distància que s’ha de recórrer per completar la petició.
-     * @param simulador  El simulador on s'afegiran esdeveniments si cal carregar.
-     * @param mapa       El mapa que permet calcular rutes i distàncies.
-     * @param horaInici  L’hora d’inici de la simulació (referència per calcular
-     *                   horaris).
-     * @param horaActual L’hora actual del simulador, per planificar nous
-     *                   esdeveniments.
-     * @return true si el vehicle té bateria suficient per fer el trajecte, false si
-     *         no i ha de carregar.
-     *
-     * @pre El vehicle ha d’estar inicialitzat i ubicat a un lloc vàlid dins el
-     *      mapa.
-     * @post Si no té bateria, pot iniciar una ruta cap a un pàrquing privat per
-     *       carregar. Si no hi ha pàrquing, es mostra un missatge.
+     * @pre parquing != null; simulador != null
+     * @post Retorna els minuts que el vehicle del conductor trigaria a carregar
+     *       al pàrquing si hi arribés ara, comptant l'espera fins que s'hi
+     *       allibera un punt de càrrega públic, o -1 si no en té cap.
+     */
+    public double tempsCarrega(Parquing parquing, Simulador simulador) {
+        return simulador.minutsCarregaPublica(parquing, vehicle, simulador.getHoraActual());
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna els km d'autonomia que el conductor vol conservar sempre
+     *       quan planifica una ruta.
+     */
+    public double reservaBateria() {
+        return 0;
+    }
+
+    /**
+     * @brief Programa la càrrega d'una parada de la ruta, si n'hi ha.
+     * @pre 0 <= posicio < ruta.getLlocs().size(); hora és quan el vehicle és
+     *      a la posició donada de la ruta.
+     * @post Si ruta carrega a posicio, afegeix al simulador la càrrega com a
+     *       parada (el conductor continua ocupat) i retorna l'hora en què
+     *       s'acaba; altrament retorna hora.
+     */
+    protected long programarParadaCarrega(Ruta ruta, int posicio, long hora, Simulador simulador) {
+        if (!ruta.obtenirParadesCarrega().contains(posicio)
+                || !(ruta.getLlocs().get(posicio) instanceof Parquing parquing)) {
+            return hora;
+        }
+        long fi = programarCarrega(parquing, hora, true, simulador);
+        if (fi == Temps.SENSE_HORA) {
+            // el pàrquing s'ha quedat sense punts després de planificar
+            simulador.afegirEsdeveniment(new CarregarBateriaEvent(hora, vehicle, vehicle.TEMPSCARGALENTA, this, true));
+            return hora + Temps.minuts((long) vehicle.TEMPSCARGALENTA);
+        }
+        return fi;
+    }
+
+    /**
+     * @brief Programa una càrrega del vehicle al pàrquing.
+     * @pre parquing != null; simulador != null; hora és quan el vehicle arriba
+     *      al pàrquing.
+     * @post Ocupa un punt de càrrega públic del pàrquing, hi programa la
+     *       càrrega quan queda lliure (com a parada si parada és cert) i
+     *       retorna l'hora en què s'acaba, o Temps.SENSE_HORA si el pàrquing no
+     *       té punts de càrrega públics.
      */
-    public abstract boolean teBateria(double distancia, Simulador simulador, Mapa mapa, LocalTime horaInici,
-            LocalTime horaActual);
+    protected long programarCarrega(Parquing parquing, long hora, boolean parada, Simulador simulador) {
+        return simulador.programarCarregaPublica(parquing, this, hora, parada);
+    }
 
     /**
      * @pre Cert.
@@ -104,4 +138,11 @@ public abstract class Conductor {
      * @return true si el vehicle pot fer la petició, false en cas contrari.
      */
     public abstract boolean potServirPeticio(int nombrePassatgers);
+
+    /**
+     * @pre vehicle != null
+     * @post Retorna un conductor nou del mateix tipus, amb la id donada, el
+     *       mateix nom i el vehicle donat, i lliure.
+     */
+    public abstract Conductor copiar(int id, Vehicle vehicle);
 }
@@ -3,12 +3,12 @@ package core;
 import events.CarregarBateriaEvent;
 import events.DeixarPassatgersEvent;
 import events.FiRutaEvent;
-import events.IniciRutaEvent;
 import events.MoureVehicleEvent;
 import events.RecollirPassatgersEvent;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @class ConductorPlanificador
@@ -17,6 +17,7 @@ import java.util.List;
  * @version 2025.03.04
  */
 public class ConductorPlanificador extends Conductor {
+    private static final long serialVersionUID = 1L;
 
     private final Vehicle vehicle; /// < Vehicle que condueix el conductor.
     private Parquing parquingPrivat; /// < Pàrquing privat assignat al conductor.
@@ -38,6 +39,11 @@ public class ConductorPlanificador extends Conductor {
         this.parquingPrivat = parquingPrivat;
     }
 
+    @Override
+    public Conductor copiar(int id, Vehicle vehicle) {
+        return new ConductorPlanificador(id, nom, vehicle, parquingPrivat);
+    }
+
     /**
      * @brief Planifica una ruta per recollir i deixar passatgers, tenint en compte
      *        l'autonomia del vehicle i les peticions pendents.
@@ -52,34 +58,40 @@ public class ConductorPlanificador extends Conductor {
      * @post Retorna una ruta planificada amb les peticions assignades.
      */
 
-    public Ruta planificarRuta(List<Peticio> peticions, Simulador s, LocalTime horaIniciSimulacio) {
+    public Ruta planificarRuta(List<Peticio> peticions, Simulador s, long horaIniciSimulacio) {
         List<Peticio> recollides = new ArrayList<>(); /// < Peticions recollides durant la ruta.
         List<Lloc> rutaLlocs = new ArrayList<>(); /// < Llocs que formen la ruta.
-        List<Lloc> ultimCami = new ArrayList<>(); /// < Últim camí recorregut.
+        List<Integer> paradesCarrega = new ArrayList<>(); /// < Posicions de la ruta on es carrega.
         List<Pair<Integer, Integer>> rutaLlocsOrigenPeticions = new ArrayList<>(); /// < Llocs d'origen de les
                                                                                    /// peticions.
         List<Pair<Integer, Integer>> rutaLlocsDestiPeticions = new ArrayList<>(); /// < Llocs de destí de les peticions.
         Vehicle vehicle = getVehicle(); /// < Vehicle que condueix el conductor.
+        Mapa mapa = s.getMapa(); /// < Mapa on es planifica la ruta.
         Lloc ubicacio = vehicle.getUbicacioActual(); /// < Ubicació actual del vehicle.
-        LocalTime horaActual = horaIniciSimulacio; /// < Hora actual de la simulació.
+        long horaActual = horaIniciSimulacio; /// < Hora actual de la simulació.
         Peticio primeraPeticio = null; /// < Primera petició a recollir.
         double tempsFinsPrimerOrigen = 0; /// < Temps fins a la primera petició.
-        double autonomiaRestant = vehicle.obtenirBateria(); /// < Autonomia restant del vehicle.
+        double autonomiaRestant = vehicle.autonomiaRestant(); /// < Autonomia restant del vehicle, en km.
         double distTotal = 0; /// < Distància total de la ruta.
-        boolean rutaCarrega = false; /// < Indica si la ruta inclou càrrega.
+        double tempsTotal = 0; /// < Temps total de la ruta, càrregues incloses.
         int passatgersActuals = vehicle.getPassatgersActuals(); /// < Passatgers actuals del vehicle.
         boolean finalitzar = false; /// < Indica si s'ha de finalitzar la ruta.
+        Map<Lloc, Double> reserves = new HashMap<>(); /// < Km fins al carregador més proper de cada destí.
         rutaLlocs.add(ubicacio); /// < Afegim la ubicació inicial a la ruta.
-        System.out.println("Inici planificació ruta del conductor " + this.getId() + " a les " + horaIniciSimulacio);
-        System.out.println(
-                "Ubicació inicial: " + ubicacio.obtenirId() + ", bateria: " + autonomiaRestant + " passatgers: "
-                        + vehicle.getPassatgersActuals());
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            Registre.escriure(Registre.Nivell.DEPURACIO, "Inici planificació ruta del conductor " + this.getId()
+                    + " a les " + Temps.text(horaIniciSimulacio));
+            Registre.escriure(Registre.Nivell.DEPURACIO, "Ubicació inicial: " + ubicacio.obtenirId() + ", bateria: "
+                    + vehicle.obtenirBateria() + " passatgers: " + vehicle.getPassatgersActuals());
+        }
 
         while (!finalitzar) {
             // Variables per guardar la millor petició en aquesta iteració
             Peticio millorPeticio = null;
             List<Lloc> millorCami = null;
+            Ruta millorTram = null;
             double millorTemps = Double.MAX_VALUE;
+            double millorDistancia = 0;
 
             // Si ja hem agafat una primera petició i no és compartida, la ruta s’ha de
             // tancar aquí
@@ -89,54 +101,78 @@ public class ConductorPlanificador extends Conductor {
                 // Bucle per buscar la millor petició pendent que es pugui afegir
                 for (Peticio p : peticions) {
                     if (p.estatActual() != EstatPeticio.PENDENT) {
-                        System.out.println("Petició " + p.obtenirId() + " descartada: no està pendent.");
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO,
+                                    "Petició " + p.obtenirId() + " descartada: no està pendent.");
+                        }
                         continue;
                     }
 
-                    // Intentar trobar camí fins a l’origen i del destí fins a un carregador
-                    List<Lloc> cami = s.getMapa().camivorac(ubicacio, p.obtenirOrigen());
-                    Ruta rutaFinsCarregador = s.getMapa().rutaParquingPrivatMesProper(p.obtenirDesti(),
-                            p.obtenirHoraMaximaArribada(), this);
-                    if (cami == null || cami.isEmpty() || rutaFinsCarregador == null
-                            || rutaFinsCarregador.getLlocs().isEmpty()) {
-                        System.out.println("Petició " + p.obtenirId()
-                                + " descartada: no hi ha camí a origen o no hi ha camí a carregador.");
+                    // Intentar trobar camí fins a l’origen i de l’origen fins al destí
+                    List<Lloc> cami = mapa.camiMesRapid(ubicacio, p.obtenirOrigen());
+                    List<Lloc> ultimCami = mapa.camiMesRapid(p.obtenirOrigen(), p.obtenirDesti());
+                    if (cami == null || cami.isEmpty() || ultimCami == null || ultimCami.isEmpty()) {
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO, "Petició " + p.obtenirId()
+                                    + " descartada: no hi ha camí a origen o a destí.");
+                        }
                         continue;
                     }
 
                     // Calcular temps i distància fins a l’origen
-                    double tempsOrigen = s.getMapa().calcularTempsRuta(cami);
-                    double distOrigen = s.getMapa().calcularDistanciaRuta(cami);
+                    double tempsOrigen = mapa.tempsMinim(ubicacio, p.obtenirOrigen());
+                    double distOrigen = mapa.distanciaMesRapida(ubicacio, p.obtenirOrigen());
 
-                    LocalTime horaArribada = horaActual.plusMinutes((long) tempsOrigen);
+                    long horaArribada = horaActual + Temps.minuts((long) tempsOrigen);
                     // Verificació de temps límit per arribar a l’origen
-                    if (horaArribada.isAfter(p.obtenirHoraMaximaArribada())) {
-                        System.out.println("Petició " + p.obtenirId() + " descartada: arribada massa tard a origen.");
+                    if (horaArribada > p.obtenirHoraMaximaArribada()) {
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO,
+                                    "Petició " + p.obtenirId() + " descartada: arribada massa tard a origen.");
+                        }
                         continue;
                     }
 
-                    // Verificació d’autonomia per arribar a l’origen
-                    if (autonomiaRestant < distOrigen) {
-                        System.out.println(
-                                "Petició " + p.obtenirId() + " descartada: no hi ha bateria per arribar a origen.");
+                    // Calcular temps i distància total de l’origen al destí
+                    double tempsDesti = tempsOrigen + mapa.tempsMinim(p.obtenirOrigen(), p.obtenirDesti());
+                    double distDesti = distOrigen + mapa.distanciaMesRapida(p.obtenirOrigen(), p.obtenirDesti());
+
+                    // En deixar els passatgers el vehicle ha de poder arribar encara a un carregador
+                    double reserva = Math.max(reservaBateria(),
+                            reserves.computeIfAbsent(p.obtenirDesti(), d -> kmFinsCarregador(d, s)));
+                    if (reserva > vehicle.autonomiaCarregada()) {
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO, "Petició " + p.obtenirId()
+                                    + " descartada: no hi ha cap carregador a l'abast del destí.");
+                        }
                         continue;
                     }
 
-                    // Intentar trobar camí des de l’origen fins al destí
-                    ultimCami = s.getMapa().camivorac(p.obtenirOrigen(), p.obtenirDesti());
-                    if (ultimCami == null || ultimCami.isEmpty()) {
-                        System.out.println("Petició " + p.obtenirId() + " descartada: no hi ha camí a destí.");
-                        continue;
+                    // Si la bateria no arriba, una sola cerca amb restricció d’autonomia tria el
+                    // camí fins a l’origen i el destí amb les parades de càrrega necessàries
+                    Ruta tram = null;
+                    if (autonomiaRestant - distDesti < reserva) {
+                        tram = mapa.rutaAmbBateria(List.of(ubicacio, p.obtenirOrigen(), p.obtenirDesti()),
+                                horaActual, this, autonomiaRestant, reserva,
+                                parquing -> tempsCarrega(parquing, s));
+                        if (tram == null) {
+                            if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                                Registre.escriure(Registre.Nivell.DEPURACIO, "Petició " + p.obtenirId()
+                                        + " descartada: no hi ha bateria per fer-la ni on carregar.");
+                            }
+                            continue;
+                        }
+                        tempsDesti = tram.obtenirTempsTotal();
+                        distDesti = tram.obtenirDistanciaTotal();
                     }
-
-                    // Calcular temps i distància total de l’origen al destí
-                    double tempsDesti = tempsOrigen + s.getMapa().calcularTempsRuta(ultimCami);
-                    double distDesti = distOrigen + s.getMapa().calcularDistanciaRuta(ultimCami);
-                    LocalTime horaFinal = horaActual.plusMinutes((long) tempsDesti);
+                    long horaFinal = horaActual + Temps.minuts((long) tempsDesti);
 
                     // Verificació de temps límit per arribar al destí
-                    if (horaFinal.isAfter(p.obtenirHoraMaximaArribada())) {
-                        System.out.println("Petició " + p.obtenirId() + " descartada: arribada massa tard a destí.");
+                    if (horaFinal > p.obtenirHoraMaximaArribada()) {
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO,
+                                    "Petició " + p.obtenirId() + " descartada: arribada massa tard a destí.");
+                        }
                         continue;
                     }
 
@@ -146,66 +182,73 @@ public class ConductorPlanificador extends Conductor {
                         if (tempsDesti < millorTemps) {
                             millorTemps = tempsDesti;
                             millorPeticio = p;
-                            millorCami = new ArrayList<>();
-                            millorCami.addAll(cami);
-                            millorCami.addAll(ultimCami.subList(1, ultimCami.size()));
-                            distTotal = distOrigen + distDesti;
+                            millorTram = tram;
+                            millorDistancia = distDesti;
+                            if (tram != null) {
+                                millorCami = tram.getLlocs();
+                            } else {
+                                millorCami = new ArrayList<>();
+                                millorCami.addAll(cami);
+                                millorCami.addAll(ultimCami.subList(1, ultimCami.size()));
+                            }
 
                             // Guardem la primera petició per poder calcular l’hora de sortida
                             if (primeraPeticio == null) {
                                 primeraPeticio = p;
-                                tempsFinsPrimerOrigen = s.getMapa().calcularTempsRuta(cami);
+                                tempsFinsPrimerOrigen = tempsOrigen;
                             }
                         }
                     } else {
-                        System.out.println("Petició " + p.obtenirId()
-                                + " descartada: no compleix restriccions de passatgers.");
+                        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                            Registre.escriure(Registre.Nivell.DEPURACIO, "Petició " + p.obtenirId()
+                                    + " descartada: no compleix restriccions de passatgers.");
+                        }
                     }
                 }
             }
 
             // Si no s'ha trobat cap petició afegible, finalitzem la planificació
             if (millorPeticio == null) {
-                System.out.println("No s'ha pogut afegir més peticions.");
+                Registre.depuracio(() -> "No s'ha pogut afegir més peticions.");
                 finalitzar = true;
             } else {
-                // Comprovar si podrem arribar a carregar després de fer la ruta
-                double distanciaRuta = s.getMapa().calcularDistanciaRuta(millorCami);
-                int consumPercentatge = (int) Math.ceil((distanciaRuta / vehicle.AUTONOMIA) * 100);
-
-                Ruta rutaFinsCarregador = s.getMapa().rutaParquingPrivatMesProper(millorPeticio.obtenirDesti(),
-                        millorPeticio.obtenirHoraMaximaArribada(), this);
-                double distanciaFinsCarregador = s.getMapa().calcularDistanciaRuta(rutaFinsCarregador.getLlocs());
-                int consumFinsCarregador = (int) Math.ceil((distanciaFinsCarregador / vehicle.AUTONOMIA) * 100);
-
-                // Si no hi ha autonomia per arribar al carregador després, desviem la ruta cap
-                // a un carregador
-                if ((autonomiaRestant - consumPercentatge) - consumFinsCarregador < 0) {
-                    rutaCarrega = true;
-                    rutaFinsCarregador.getLlocs().remove(0); // evitem repetir el punt actual
-                    millorCami.removeAll(ultimCami); // eliminem la part del camí a destí
-                    millorCami.addAll(rutaFinsCarregador.getLlocs()); // afegim el camí cap al carregador
-                } else {
-                    // Afegim la petició a la ruta
-                    System.out.println("Afegida petició " + millorPeticio.obtenirId() + " a la ruta.");
-                    rutaLlocsOrigenPeticions.add(new Pair<>(millorPeticio.obtenirOrigen().obtenirId(),
-                            millorPeticio.obtenirNumPassatgers()));
-                    rutaLlocsDestiPeticions.add(new Pair<>(millorPeticio.obtenirDesti().obtenirId(),
-                            millorPeticio.obtenirNumPassatgers()));
-
-                    recollides.add(millorPeticio);
-                    millorPeticio.peticioEnProces();
-                    passatgersActuals += millorPeticio.obtenirNumPassatgers();
+                // Afegim la petició a la ruta
+                Peticio afegida = millorPeticio;
+                if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                    Registre.escriure(Registre.Nivell.DEPURACIO,
+                            "Afegida petició " + afegida.obtenirId() + " a la ruta.");
                 }
-
-                // Afegim a la ruta tots els llocs del millor camí (menys el primer, ja afegit)
+                rutaLlocsOrigenPeticions.add(new Pair<>(millorPeticio.obtenirOrigen().obtenirId(),
+                        millorPeticio.obtenirNumPassatgers()));
+                rutaLlocsDestiPeticions.add(new Pair<>(millorPeticio.obtenirDesti().obtenirId(),
+                        millorPeticio.obtenirNumPassatgers()));
+
+                recollides.add(millorPeticio);
+                millorPeticio.peticioEnProces();
+                passatgersActuals += millorPeticio.obtenirNumPassatgers();
+
+                // Afegim a la ruta tots els llocs del millor camí (menys el primer, ja afegit),
+                // i les seves parades de càrrega a la posició que tenen dins la ruta
+                int desplacament = rutaLlocs.size() - 1;
                 for (Lloc l : millorCami.subList(1, millorCami.size())) {
                     rutaLlocs.add(l);
                 }
 
                 // Actualitzem valors per a la següent iteració
-                autonomiaRestant -= consumPercentatge;
-                horaActual = horaActual.plusMinutes((long) millorTemps);
+                if (millorTram != null && !millorTram.obtenirParadesCarrega().isEmpty()) {
+                    List<Integer> parades = millorTram.obtenirParadesCarrega();
+                    for (int posicio : parades) {
+                        paradesCarrega.add(desplacament + posicio);
+                    }
+                    int ultimaParada = parades.get(parades.size() - 1);
+                    autonomiaRestant = vehicle.autonomiaCarregada()
+                            - mapa.calcularDistanciaRuta(millorCami.subList(ultimaParada, millorCami.size()));
+                } else {
+                    autonomiaRestant -= millorDistancia;
+                }
+                distTotal += millorDistancia;
+                tempsTotal += millorTemps;
+                horaActual += Temps.minuts((long) millorTemps);
                 ubicacio = rutaLlocs.get(rutaLlocs.size() - 1);
             }
 
@@ -213,7 +256,7 @@ public class ConductorPlanificador extends Conductor {
 
         // Si només hi ha un lloc (el d'inici), vol dir que no s'ha afegit cap petició
         if (rutaLlocs.size() == 1) {
-            System.out.println("Cap ruta planificada.");
+            Registre.depuracio(() -> "Cap ruta planificada.");
             return null;
         }
 
@@ -222,75 +265,92 @@ public class ConductorPlanificador extends Conductor {
         peticions.removeAll(recollides);
 
         // Calculem l'hora de sortida real, retrocedint segons el temps necessari fins
-        // al primer origen
-        LocalTime horaSortidaReal = primeraPeticio.obtenirHoraMinimaRecollida()
-                .minusMinutes((long) tempsFinsPrimerOrigen);
+        // al primer origen (sense anar abans de l'hora actual)
+        long horaSortidaReal = Math.max(horaIniciSimulacio, primeraPeticio.obtenirHoraMinimaRecollida()
+                - Temps.minuts((long) tempsFinsPrimerOrigen));
 
         // Informació per consola de la ruta final
-        System.out.println("Ruta final planificada amb " + recollides.size()
-                + " peticions. Hora de sortida real: " + horaSortidaReal);
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            Registre.escriure(Registre.Nivell.DEPURACIO, "Ruta final planificada amb " + recollides.size()
+                    + " peticions. Hora de sortida real: " + Temps.text(horaSortidaReal));
+        }
 
         // Creació de l'objecte Ruta amb tota la informació acumulada
         Ruta rutaCompleta = new Ruta(
                 rutaLlocs,
                 horaSortidaReal,
                 distTotal,
-                s.getMapa().calcularTempsRuta(rutaLlocs),
+                tempsTotal,
                 this,
-                rutaCarrega);
+                false);
 
         // Assignem la informació de quants passatgers s'han recollit i deixat a cada
-        // lloc
+        // lloc, i on s'ha de carregar
         rutaCompleta.assignarLlocsOrigenPeticions(rutaLlocsOrigenPeticions);
         rutaCompleta.assignarLlocsDestiPeticions(rutaLlocsDestiPeticions);
+        rutaCompleta.assignarParadesCarrega(paradesCarrega);
 
         return rutaCompleta;
     }
 
     /**
-     * @brief Comprova si el vehicle té bateria suficient per fer la distància
-     *        indicada. Si no en té, intenta planificar una ruta cap al pàrquing més
-     *        proper per carregar.
-     *
-     * @param distancia  La distància que s’ha de recórrer per completar la petició.
-     * @param simulador  El simulador on s'afegiran esdeveniments si cal carregar.
-     * @param mapa       El mapa que permet calcular rutes i distàncies.
-     * @param horaInici  L’hora d’inici de la simulació (referència per calcular
-     *                   horaris).
-     * @param horaActual L’hora actual del simulador, per planificar nous
-     *                   esdeveniments.
-     * @return true si el vehicle té bateria suficient per fer el trajecte, false si
-     *         no i ha de carregar.
+     * @brief Retorna els minuts que el vehicle trigaria a carregar al pàrquing.
      *
-     * @pre El vehicle ha d’estar inicialitzat i ubicat a un lloc vàlid dins el
-     *      mapa.
-     * @post Si no té bateria, pot iniciar una ruta cap a un pàrquing privat per
-     *       carregar. Si no hi ha pàrquing, es mostra un missatge.
+     * @pre parquing != null; simulador != null
+     * @post Al seu pàrquing privat, si no és ple, el conductor hi carrega
+     *       sempre amb càrrega lenta; als altres, com Conductor.tempsCarrega().
      */
-    public boolean teBateria(double distancia, Simulador simulador, Mapa mapa, LocalTime horaInici,
-            LocalTime horaActual) {
-        // Cas 1: el vehicle té bateria suficient → pot continuar
-        if (vehicle.teBateria(distancia, false)) {
-            return true;
-        } else {
-            // Cas 2: no té prou bateria → buscar ruta cap al pàrquing privat més proper
-            Ruta r = mapa.rutaParquingPrivatMesProper(vehicle.getUbicacioActual(), horaInici, this);
-
-            if (r != null) {
-                // Si s'ha trobat una ruta cap al punt de càrrega, marquem el conductor com
-                // ocupat
-                ocupat = true;
+    @Override
+    public double tempsCarrega(Parquing parquing, Simulador simulador) {
+        if (carregaAlPrivat(parquing)) {
+            return vehicle.TEMPSCARGALENTA;
+        }
+        return super.tempsCarrega(parquing, simulador);
+    }
 
-                // Afegim l'esdeveniment per iniciar la ruta cap al parquing per carregar
-                simulador.afegirEsdeveniment(new IniciRutaEvent(horaActual, this, vehicle, r));
-            } else {
-                // No hi ha cap pàrquing disponible per carregar
-                System.out.println("No hi ha cap pàrquing disponible");
-            }
+    /**
+     * @brief Km que el vehicle ha de conservar en arribar a un destí.
+     *
+     * @pre desti != null; simulador != null
+     * @post Retorna els km del camí més ràpid de desti al pàrquing més proper
+     *       on el conductor pot carregar (el seu privat inclòs), o
+     *       Double.MAX_VALUE si no n'hi ha cap d'accessible.
+     */
+    private double kmFinsCarregador(Lloc desti, Simulador simulador) {
+        Mapa mapa = simulador.getMapa();
+        Ruta ruta = mapa.rutaParquingMesProper(desti, simulador.getHoraActual(), this,
+                parquing -> tempsCarrega(parquing, simulador) >= 0);
+        return ruta == null ? Double.MAX_VALUE : mapa.calcularDistanciaRuta(ruta.getLlocs());
+    }
 
-            return false;
+    /**
+     * @brief Programa una càrrega del vehicle al pàrquing.
+     *
+     * @pre parquing != null; simulador != null; hora és quan el vehicle arriba
+     *      al pàrquing.
+     * @post Al seu pàrquing privat, si no és ple, el conductor hi carrega de
+     *       seguida amb càrrega lenta sense ocupar cap punt públic; als altres,
+     *       com Conductor.programarCarrega().
+     */
+    @Override
+    protected long programarCarrega(Parquing parquing, long hora, boolean parada, Simulador simulador) {
+        if (carregaAlPrivat(parquing)) {
+            simulador.afegirEsdeveniment(new CarregarBateriaEvent(hora, vehicle, vehicle.TEMPSCARGALENTA, this, parada));
+            return hora + Temps.minuts((long) vehicle.TEMPSCARGALENTA);
         }
+        return super.programarCarrega(parquing, hora, parada, simulador);
     }
+
+    /**
+     * @pre parquing != null
+     * @post Retorna si el conductor pot carregar al pàrquing amb els seus punts
+     *       de càrrega privats.
+     */
+    private boolean carregaAlPrivat(Parquing parquing) {
+        return parquingPrivat != null && parquing.esCarregadorPrivat(parquingPrivat.obtenirId())
+                && parquing.obtenirPuntsCarregaPrivats() > 0 && !parquing.estaPle();
+    }
+
     /**
      * @brief Comprova si el vehicle pot servir una petició de passatgers.
      *
@@ -329,17 +389,20 @@ public class ConductorPlanificador extends Conductor {
     @Override
     public void executarRuta(Ruta ruta, Vehicle vehicle, Simulador simulador) {
         List<Lloc> llocs = ruta.getLlocs();
-        LocalTime horaActual = ruta.obtenirHoraInici();
+        long horaActual = ruta.obtenirHoraInici();
 
         for (int i = 0; i < llocs.size() - 1; i++) {
             Lloc origen = llocs.get(i);
             Lloc desti = llocs.get(i + 1);
 
+            // Si la ruta carrega en aquest lloc, el vehicle no surt fins que acaba
+            horaActual = programarParadaCarrega(ruta, i, horaActual, simulador);
+
             // Calcula distància i temps entre origen i destí
             double distancia = simulador.getMapa().calcularDistancia(origen, desti);
             double temps = simulador.getMapa().calcularTemps(origen, desti);
 
-            horaActual = horaActual.plusMinutes((long) temps);
+            horaActual += Temps.minuts((long) temps);
 
             // Si hi ha passatgers per recollir en aquest lloc
             int passatgersOrigen = ruta.trobarOrigenId(origen.obtenirId());
@@ -349,7 +412,7 @@ public class ConductorPlanificador extends Conductor {
                 simulador.afegirEsdeveniment(recollir);
             }
 
-            horaActual = horaActual.plusMinutes(1); // marge abans de moure
+            horaActual += Temps.minuts(1); // marge abans de moure
             MoureVehicleEvent moure = new MoureVehicleEvent(
                     horaActual, vehicle, origen, desti, distancia);
             simulador.afegirEsdeveniment(moure);
@@ -367,18 +430,12 @@ public class ConductorPlanificador extends Conductor {
         if (ruta.isRutaCarrega()) {
             Lloc ultimLloc = ruta.getLlocs().get(ruta.getLlocs().size() - 1);
             if (ultimLloc instanceof Parquing parquing) {
-                PuntCarrega pc = parquing.puntCarregaPublicDisponible();
-                if (pc != null) {
-                    System.out.println("El vehicle " + vehicle.getId() + " ha arribat al punt de càrrega del parquing "
-                            + parquing.obtenirId() + ".");
-                    double duracio = (pc.getTipusCarga() == TipusPuntCarrega.CARGA_LENTA)
-                            ? vehicle.TEMPSCARGALENTA
-                            : vehicle.TEMPSCARGARAPIDA;
-
-                    LocalTime horaIniciCarrega = horaActual;
-                    simulador.afegirEsdeveniment(new CarregarBateriaEvent(horaIniciCarrega, vehicle, duracio, this));
-                } else {
-                    System.out.println("No hi ha punts de càrrega disponibles.");
+                if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                    Registre.escriure(Registre.Nivell.DEPURACIO, "El vehicle " + vehicle.getId()
+                            + " ha arribat al punt de càrrega del parquing " + parquing.obtenirId() + ".");
+                }
+                if (programarCarrega(parquing, horaActual, false, simulador) == Temps.SENSE_HORA) {
+                    Registre.depuracio(() -> "No hi ha punts de càrrega disponibles.");
                 }
             }
         } else {
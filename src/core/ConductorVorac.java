@@ -1,12 +1,10 @@
 package core;
 
-import events.CarregarBateriaEvent;
 import events.DeixarPassatgersEvent;
 import events.FiRutaEvent;
-import events.IniciRutaEvent;
 import events.MoureVehicleEvent;
 import events.RecollirPassatgersEvent;
-import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,11 +15,17 @@ import java.util.List;
  * @version 2025.03.04
  */
 public class ConductorVorac extends Conductor {
+    private static final long serialVersionUID = 1L;
 
     public ConductorVorac(int id, String nom, Vehicle vehicle) {
         super(id, nom, vehicle);
     }
 
+    @Override
+    public Conductor copiar(int id, Vehicle vehicle) {
+        return new ConductorVorac(id, nom, vehicle);
+    }
+
     /**
      * @brief Executa una ruta generant els esdeveniments corresponents segons el
      *        tipus de ruta (passatgers o càrrega).
@@ -44,28 +48,32 @@ public class ConductorVorac extends Conductor {
     @Override
     public void executarRuta(Ruta ruta, Vehicle vehicle, Simulador simulador) {
         List<Lloc> llocs = ruta.getLlocs();
-        LocalTime horaActual = ruta.obtenirHoraInici();
+        long horaActual = ruta.obtenirHoraInici();
 
         // Recorre la ruta i afegeix esdeveniments per cada tram entre llocs
         for (int i = 0; i < llocs.size() - 1; i++) {
             Lloc origen = llocs.get(i);
             Lloc desti = llocs.get(i + 1);
 
+            // Si la ruta carrega en aquest lloc, el vehicle no surt fins que acaba
+            horaActual = programarParadaCarrega(ruta, i, horaActual, simulador);
+
             // Calcular distància i temps entre el tram actual
             double distancia = simulador.getMapa().calcularDistancia(origen, desti);
             double temps = simulador.getMapa().calcularTemps(origen, desti);
 
-            horaActual = horaActual.plusMinutes((long) temps);
+            horaActual += Temps.minuts((long) temps);
 
-            // Si és una ruta de passatgers i és el primer tram → recollida
-            if (!ruta.isRutaCarrega() && i == 0) {
+            // Si és una ruta de passatgers i és l'origen de la petició → recollida
+            int passatgersOrigen = ruta.isRutaCarrega() ? -1 : ruta.trobarOrigenId(origen.obtenirId());
+            if (passatgersOrigen != -1) {
                 RecollirPassatgersEvent recollir = new RecollirPassatgersEvent(
-                        horaActual, this, origen, ruta.obtenirPassatgersPeticio());
+                        horaActual, this, origen, passatgersOrigen);
                 simulador.afegirEsdeveniment(recollir);
             }
 
             // Afegim un petit marge de temps abans de moure el vehicle
-            horaActual = horaActual.plusMinutes(1);
+            horaActual += Temps.minuts(1);
             MoureVehicleEvent moure = new MoureVehicleEvent(
                     horaActual, vehicle, origen, desti, distancia);
             simulador.afegirEsdeveniment(moure);
@@ -82,14 +90,8 @@ public class ConductorVorac extends Conductor {
         if (ruta.isRutaCarrega()) {
             Lloc ultimLloc = ruta.getLlocs().get(ruta.getLlocs().size() - 1);
             if (ultimLloc instanceof Parquing parquing) {
-                PuntCarrega pc = parquing.puntCarregaPublicDisponible();
-                if (pc != null) {
-                    double duracio = (pc.getTipusCarga() == TipusPuntCarrega.CARGA_LENTA)
-                            ? vehicle.TEMPSCARGALENTA
-                            : vehicle.TEMPSCARGARAPIDA;
-                    simulador.afegirEsdeveniment(new CarregarBateriaEvent(horaActual, vehicle, duracio, this));
-                } else {
-                    System.out.println("No hi ha punts de càrrega disponibles.");
+                if (programarCarrega(parquing, horaActual, false, simulador) == Temps.SENSE_HORA) {
+                    Registre.depuracio(() -> "No hi ha punts de càrrega disponibles.");
                 }
             }
         } else {
@@ -99,99 +101,72 @@ public class ConductorVorac extends Conductor {
     }
 
     /**
-     * @brief Planifica una ruta directa des de l'origen fins al destí de la petició
-     *        utilitzant un camí vorac.
+     * @brief Planifica la ruta des de la ubicació del vehicle fins a l'origen
+     *        de la petició i d'allà fins al destí.
      *
-     *        Es calcula la ruta més ràpida (segons l'algorisme vorac del mapa)
-     *        entre l’origen i el destí de la petició.
-     *        A partir del camí, es calcula la distància i temps totals, i es
-     *        construeix l’objecte Ruta associat al conductor.
+     *        Si la bateria arriba per fer-la sense baixar de la reserva, la ruta
+     *        segueix els camins més ràpids del mapa. Altrament es fa una sola
+     *        cerca amb restricció d'autonomia (vegeu Mapa.rutaAmbBateria) que
+     *        hi afegeix les parades de càrrega necessàries en pàrquings amb un
+     *        punt de càrrega públic lliure.
      *
-     * @param peticio La petició que s'ha de servir, amb origen, destí i número de
-     *                passatgers.
-     * @param mapa    El mapa que conté la informació dels camins i permet calcular
-     *                rutes i distàncies.
-     * @return Ruta objecte que representa la ruta planificada, o null si no es pot
-     *         planificar cap camí vàlid.
+     * @param peticio   La petició que s'ha de servir, amb origen, destí i número
+     *                  de passatgers.
+     * @param simulador El simulador, que dona el mapa, l'hora de sortida i els
+     *                  punts de càrrega.
+     * @return Ruta planificada, que surt a l'hora actual del simulador, o null
+     *         si no es pot fer amb la bateria del vehicle.
      *
-     * @pre La petició i el mapa han d’estar inicialitzats. El mapa ha de poder
-     *      retornar un camí vàlid entre els llocs.
-     * @post Es retorna una ruta (Ruta) amb el camí, hora d'inici, distància i temps
-     *       totals, i nombre de passatgers assignat.
+     * @pre La petició i el simulador han d’estar inicialitzats.
+     * @post Es retorna una ruta (Ruta) amb el camí, les parades de càrrega, hora
+     *       d'inici, distància i temps totals (càrregues incloses), i el nombre
+     *       de passatgers a recollir a l'origen.
      */
-    public Ruta planificarRuta(Peticio peticio, Mapa mapa) {
-        // Obtenim el camí vorac entre l'origen i el destí de la petició
-        List<Lloc> cami = mapa.camivorac(peticio.obtenirOrigen(), peticio.obtenirDesti());
-
-        double distanciaTotal = 0;
-        double tempsTotal = 0;
-
-        // Recorrem el camí per calcular la distància i temps totals
-        for (int i = 0; i < cami.size() - 1; i++) {
-            Lloc origen = cami.get(i);
-            Lloc desti = cami.get(i + 1);
-
-            distanciaTotal += mapa.calcularDistancia(origen, desti); // distància entre cada parell de llocs
-            tempsTotal += mapa.calcularTemps(origen, desti); // temps estimat de cada tram
+    public Ruta planificarRuta(Peticio peticio, Simulador simulador) {
+        Mapa mapa = simulador.getMapa();
+        Lloc ubicacio = vehicle.getUbicacioActual();
+        Lloc origen = peticio.obtenirOrigen();
+        Lloc desti = peticio.obtenirDesti();
+        long horaSortida = simulador.getHoraActual();
+
+        Ruta ruta;
+        double distanciaTotal = mapa.distanciaMesRapida(ubicacio, origen) + mapa.distanciaMesRapida(origen, desti);
+        if (vehicle.autonomiaRestant() - distanciaTotal >= reservaBateria()) {
+            // Camins més ràpids fins a l'origen i de l'origen al destí
+            List<Lloc> finsOrigen = mapa.camiMesRapid(ubicacio, origen);
+            List<Lloc> finsDesti = mapa.camiMesRapid(origen, desti);
+            if (finsOrigen == null || finsDesti == null) {
+                return null;
+            }
+            List<Lloc> cami = new ArrayList<>(finsOrigen);
+            cami.addAll(finsDesti.subList(1, finsDesti.size()));
+            double tempsTotal = mapa.tempsMinim(ubicacio, origen) + mapa.tempsMinim(origen, desti);
+            ruta = new Ruta(cami, horaSortida, distanciaTotal, tempsTotal, this, false);
+        } else {
+            ruta = mapa.rutaAmbBateria(List.of(ubicacio, origen, desti), horaSortida, this,
+                    vehicle.autonomiaRestant(), reservaBateria(), parquing -> tempsCarrega(parquing, simulador));
+            if (ruta == null) {
+                return null;
+            }
         }
 
-        // Creem la ruta amb la informació calculada
-        Ruta ruta = new Ruta(
-                cami,
-                peticio.obtenirHoraMinimaRecollida(),
-                distanciaTotal,
-                tempsTotal,
-                this,
-                false // no és una ruta de càrrega
-        );
-
         // Assignem els passatgers a la ruta (segons la petició)
         ruta.assignarPassatgersPeticio(peticio.obtenirNumPassatgers());
+        List<Pair<Integer, Integer>> recollides = new ArrayList<>();
+        recollides.add(new Pair<>(origen.obtenirId(), peticio.obtenirNumPassatgers()));
+        ruta.assignarLlocsOrigenPeticions(recollides);
 
         return ruta;
     }
 
     /**
-     * @brief Comprova si el vehicle té bateria suficient per fer la distància
-     *        indicada. Si no en té, intenta planificar una ruta cap al pàrquing més
-     *        proper per carregar.
-     *
-     * @param distancia  La distància que s’ha de recórrer per completar la petició.
-     * @param simulador  El simulador on s'afegiran esdeveniments si cal carregar.
-     * @param mapa       El mapa que permet calcular rutes i distàncies.
-     * @param horaInici  L’hora d’inici de la simulació (referència per calcular
-     *                   horaris).
-     * @param horaActual L’hora actual del simulador, per planificar nous
-     *                   esdeveniments.
-     * @return true si el vehicle té bateria suficient per fer el trajecte, false si
-     *         no i ha de carregar.
-     *
-     * @pre El vehicle ha d’estar inicialitzat i ubicat a un lloc vàlid dins el
-     *      mapa.
-     * @post Si no té bateria, pot iniciar una ruta cap a un pàrquing privat per
-     *       carregar. Si no hi ha pàrquing, es mostra un missatge.
+     * @pre Cert.
+     * @post Retorna el 20% de l'autonomia del vehicle: el conductor vorac no
+     *       deixa baixar mai la bateria d'aquí.
      */
-
     @Override
-    public boolean teBateria(double distancia, Simulador simulador, Mapa mapa, LocalTime horaInici,
-            LocalTime horaActual) {
-        // Comprovar si el vehicle pot fer la petició
-        if (vehicle.teBateria(distancia, true))
-            return true;
-
-        // Si no pot fer la petició, buscar un parquing proper
-        Ruta r = mapa.rutaParquingMesProper(vehicle.getUbicacioActual(), horaActual, this);
-
-        if (r != null) {
-            ocupat = true;
-            // Afegir esdeveniment de moure el vehicle al parquing
-            simulador.afegirEsdeveniment(new IniciRutaEvent(horaActual, this,
-                    vehicle, r));
-        } else
-            System.out.println("No hi ha cap pàrquing disponible");
-
-        return false;
-
+    public double reservaBateria() {
+        return vehicle.getAutonomia() * 20 / 100.0;
     }
 
     /**
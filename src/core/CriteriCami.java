@@ -0,0 +1,24 @@
+package core;
+/**
+ * @class CriteriCami
+ * @brief Enumeració que representa el criteri per ponderar els camins del
+ *        mapa a l'hora de buscar el camí mínim.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.02
+ */
+public enum CriteriCami {
+    TEMPS,
+    DISTANCIA;
+
+    /**
+     * @pre cami != null
+     * @post Retorna el pes del camí segons el criteri.
+     *
+     * @param cami Camí a ponderar.
+     * @return Temps en minuts o distància en km del camí.
+     */
+    public double pes(Cami cami) {
+        return this == TEMPS ? cami.obtenirTemps() : cami.obtenirDistancia();
+    }
+}
@@ -0,0 +1,213 @@
+package core;
+
+import events.Event;
+
+/**
+ * @class CuaCalendari
+ * @brief Cua d'esdeveniments amb cost constant amortitzat (cua calendari de
+ *        Brown).
+ * @details Els esdeveniments es reparteixen en cubetes com els dies d'un
+ *          calendari: la cubeta d'un esdeveniment és (temps / amplada) mòdul
+ *          el nombre de cubetes, i dins de cada cubeta es guarden ordenats en
+ *          una llista enllaçada. Per treure el primer es recorren les cubetes a
+ *          partir de l'actual fins a trobar-ne una amb un esdeveniment de
+ *          l'"any" en curs. Quan el nombre d'esdeveniments es dobla o es
+ *          redueix a la meitat, es canvia el nombre de cubetes i l'amplada es
+ *          recalcula a partir de la separació entre els primers esdeveniments,
+ *          de manera que cada cubeta en té pocs. Els esdeveniments del mateix
+ *          tick van a la mateixa cubeta i, com que es creen en ordre, s'afegeixen
+ *          al final de la llista sense recórrer-la.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.17
+ */
+public final class CuaCalendari implements CuaEsdeveniments {
+
+    private static final int CUBETES_MINIMES = 16; /// < Nombre mínim de cubetes.
+    private static final int MOSTRA = 25; /// < Esdeveniments que es miren per calcular l'amplada.
+
+    private static final class Node {
+        final Event event; /// < Esdeveniment del node.
+        Node seguent; /// < Següent node de la cubeta, o null.
+
+        Node(Event event) {
+            this.event = event;
+        }
+    }
+
+    private Node[] caps = new Node[CUBETES_MINIMES]; /// < Primer node de cada cubeta.
+    private Node[] cues = new Node[CUBETES_MINIMES]; /// < Últim node de cada cubeta.
+    private int mascara = CUBETES_MINIMES - 1; /// < Nombre de cubetes menys 1 (és potència de 2).
+    private long amplada = Temps.SEGONS_MINUT; /// < Ticks que cobreix cada cubeta.
+    private int mida; /// < Nombre d'esdeveniments.
+    private int cubetaActual; /// < Cubeta on és el primer esdeveniment, o on cal començar a buscar-lo.
+    private long fiCubeta = Temps.SEGONS_MINUT; /// < Temps (exclusiu) on acaba la cubeta actual en l'any en curs.
+    private boolean redimensionant; /// < Si s'està calculant la nova amplada.
+
+    @Override
+    public void afegir(Event event) {
+        long temps = event.getTemps();
+        inserir(new Node(event));
+        mida++;
+        if (mida == 1 || temps < fiCubeta - amplada) {
+            // Abans de la cubeta actual: la cerca ha de començar aquí.
+            situar(temps);
+        }
+        if (!redimensionant && mida > 2 * caps.length) {
+            redimensionar(2 * caps.length);
+        }
+    }
+
+    @Override
+    public Event primer() {
+        if (mida == 0) {
+            return null;
+        }
+        buscarPrimer();
+        return caps[cubetaActual].event;
+    }
+
+    @Override
+    public Event treure() {
+        if (mida == 0) {
+            return null;
+        }
+        buscarPrimer();
+        Node node = caps[cubetaActual];
+        caps[cubetaActual] = node.seguent;
+        if (node.seguent == null) {
+            cues[cubetaActual] = null;
+        }
+        mida--;
+        if (!redimensionant && mida < caps.length / 2 && caps.length > CUBETES_MINIMES) {
+            redimensionar(caps.length / 2);
+        }
+        return node.event;
+    }
+
+    @Override
+    public int mida() {
+        return mida;
+    }
+
+    /**
+     * @pre mida > 0
+     * @post cubetaActual és la cubeta del primer esdeveniment, que n'és el cap,
+     *       i fiCubeta el final d'aquesta cubeta en l'any del primer
+     *       esdeveniment.
+     */
+    private void buscarPrimer() {
+        int i = cubetaActual;
+        long fi = fiCubeta;
+        for (int k = 0; k < caps.length; k++) {
+            Node cap = caps[i];
+            if (cap != null && cap.event.getTemps() < fi) {
+                cubetaActual = i;
+                fiCubeta = fi;
+                return;
+            }
+            i = (i + 1) & mascara;
+            fi += amplada;
+        }
+        // Cap esdeveniment en tot un any: es busca el mínim directament.
+        Node minim = null;
+        for (Node cap : caps) {
+            if (cap != null && (minim == null || cap.event.compareTo(minim.event) < 0)) {
+                minim = cap;
+            }
+        }
+        situar(minim.event.getTemps());
+    }
+
+    private void situar(long temps) {
+        long dia = Math.floorDiv(temps, amplada);
+        cubetaActual = (int) (dia & mascara);
+        fiCubeta = (dia + 1) * amplada;
+    }
+
+    private void inserir(Node node) {
+        Event event = node.event;
+        int i = (int) (Math.floorDiv(event.getTemps(), amplada) & mascara);
+        Node cap = caps[i];
+        if (cap == null) {
+            caps[i] = node;
+            cues[i] = node;
+        } else if (event.compareTo(cues[i].event) >= 0) {
+            cues[i].seguent = node;
+            cues[i] = node;
+        } else if (event.compareTo(cap.event) < 0) {
+            node.seguent = cap;
+            caps[i] = node;
+        } else {
+            Node anterior = cap;
+            while (anterior.seguent.event.compareTo(event) <= 0) {
+                anterior = anterior.seguent;
+            }
+            node.seguent = anterior.seguent;
+            anterior.seguent = node;
+        }
+    }
+
+    /**
+     * @pre cubetes és potència de 2.
+     * @post Reparteix els esdeveniments en el nombre de cubetes donat, amb
+     *       l'amplada recalculada.
+     */
+    private void redimensionar(int cubetes) {
+        long novaAmplada = calcularAmplada();
+        Node[] vells = caps;
+        caps = new Node[cubetes];
+        cues = new Node[cubetes];
+        mascara = cubetes - 1;
+        amplada = novaAmplada;
+        for (Node cap : vells) {
+            Node node = cap;
+            while (node != null) {
+                Node seguent = node.seguent;
+                node.seguent = null;
+                inserir(node);
+                node = seguent;
+            }
+        }
+        if (mida > 0) {
+            cubetaActual = 0;
+            fiCubeta = Long.MIN_VALUE; // força la cerca directa
+            buscarPrimer();
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna tres vegades la separació mitjana entre els primers
+     *       esdeveniments, sense comptar les separacions més grans que el doble
+     *       de la mitjana (com a mínim 1 tick). Els esdeveniments es treuen per
+     *       mirar-los i es tornen a afegir.
+     */
+    private long calcularAmplada() {
+        int n = Math.min(mida, MOSTRA);
+        if (n < 2) {
+            return amplada;
+        }
+        redimensionant = true;
+        Event[] mostra = new Event[n];
+        for (int i = 0; i < n; i++) {
+            mostra[i] = treure();
+        }
+        for (Event event : mostra) {
+            afegir(event);
+        }
+        redimensionant = false;
+
+        double mitjana = (mostra[n - 1].getTemps() - mostra[0].getTemps()) / (double) (n - 1);
+        double suma = 0.0;
+        int comptats = 0;
+        for (int i = 1; i < n; i++) {
+            long separacio = mostra[i].getTemps() - mostra[i - 1].getTemps();
+            if (separacio <= 2 * mitjana) {
+                suma += separacio;
+                comptats++;
+            }
+        }
+        return Math.max(1, Math.round(3 * suma / comptats));
+    }
+}
@@ -0,0 +1,80 @@
+package core;
+
+import events.Event;
+
+/**
+ * @interface CuaEsdeveniments
+ * @brief Cua de prioritat dels esdeveniments programats d'una simulació.
+ * @details Els esdeveniments surten en l'ordre de Event.compareTo: per temps
+ *          i, a igual temps, en l'ordre en què s'han creat. Hi ha dues
+ *          implementacions: CuaCalendari, amb cost constant amortitzat per
+ *          operació, que és la que es fa servir per defecte, i CuaMonticle, un
+ *          monticle binari amb cost logarítmic que es manté com a alternativa.
+ *          Es pot triar amb la propietat del sistema "cua" ("calendari" o
+ *          "monticle").
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.17
+ */
+public interface CuaEsdeveniments {
+
+    /**
+     * @pre event != null
+     * @post Afegeix l'esdeveniment a la cua.
+     */
+    void afegir(Event event);
+
+    /**
+     * @pre Cert.
+     * @post Retorna el primer esdeveniment sense treure'l, o null si la cua és
+     *       buida.
+     */
+    Event primer();
+
+    /**
+     * @pre Cert.
+     * @post Treu i retorna el primer esdeveniment, o null si la cua és buida.
+     */
+    Event treure();
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre d'esdeveniments de la cua.
+     */
+    int mida();
+
+    /**
+     * @pre Cert.
+     * @post Retorna true si la cua no té cap esdeveniment.
+     */
+    default boolean esBuida() {
+        return mida() == 0;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna una cua buida del tipus indicat per la propietat del
+     *       sistema "cua", o una CuaCalendari si no s'indica.
+     * @throws IllegalArgumentException si la propietat no correspon a cap cua.
+     */
+    static CuaEsdeveniments crear() {
+        return perNom(System.getProperty("cua", "calendari"));
+    }
+
+    /**
+     * @pre nom != null
+     * @post Retorna una cua buida del tipus amb el nom donat: "calendari" o
+     *       "monticle".
+     * @throws IllegalArgumentException si el nom no correspon a cap cua.
+     */
+    static CuaEsdeveniments perNom(String nom) {
+        switch (nom.trim().toLowerCase()) {
+            case "calendari":
+                return new CuaCalendari();
+            case "monticle":
+                return new CuaMonticle();
+            default:
+                throw new IllegalArgumentException("Cua d'esdeveniments desconeguda: " + nom);
+        }
+    }
+}
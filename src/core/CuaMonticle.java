@@ -0,0 +1,39 @@
+package core;
+
+import java.util.PriorityQueue;
+
+import events.Event;
+
+/**
+ * @class CuaMonticle
+ * @brief Cua d'esdeveniments sobre un monticle binari (PriorityQueue).
+ * @details Cost logarítmic per afegir i treure. És la cua que feia servir el
+ *          simulador abans de CuaCalendari i es manté com a alternativa.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.17
+ */
+public final class CuaMonticle implements CuaEsdeveniments {
+
+    private final PriorityQueue<Event> monticle = new PriorityQueue<>(); /// < Esdeveniments pendents.
+
+    @Override
+    public void afegir(Event event) {
+        monticle.add(event);
+    }
+
+    @Override
+    public Event primer() {
+        return monticle.peek();
+    }
+
+    @Override
+    public Event treure() {
+        return monticle.poll();
+    }
+
+    @Override
+    public int mida() {
+        return monticle.size();
+    }
+}
@@ -0,0 +1,325 @@
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import events.Event;
+
+/**
+ * @class DiariEsdeveniments
+ * @brief Registre, només d'afegir, dels esdeveniments executats en una
+ *        simulació, en ordre d'execució.
+ * @details Els esdeveniments es guarden en blocs de mida fixa. Cada bloc té
+ *          una columna primitiva amb el temps de cada esdeveniment i una altra
+ *          amb els objectes Event, de manera que consultar el temps d'una
+ *          posició no toca cap objecte. Si s'activa el bolcat, quan hi ha més
+ *          blocs plens a memòria que el límit donat, els més antics s'escriuen
+ *          a un fitxer temporal i només se'n conserva la columna de temps. El
+ *          fitxer és la serialització dels esdeveniments del bloc, amb els
+ *          vehicles, conductors i llocs escrits pel seu identificador, de
+ *          manera que en tornar-los a llegir són els de la simulació. Per
+ *          recórrer-lo, els blocs bolcats es tornen a llegir d'un en un.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.18
+ */
+public final class DiariEsdeveniments implements Iterable<Event> {
+
+    static final int MIDA_BLOC = 4096; /// < Esdeveniments per bloc.
+
+    private static final class Bloc {
+        final long[] temps = new long[MIDA_BLOC]; /// < Temps de cada esdeveniment del bloc.
+        Event[] events = new Event[MIDA_BLOC]; /// < Esdeveniments del bloc, o null si és bolcat.
+        File fitxer; /// < Fitxer on s'ha bolcat el bloc, o null.
+        int mida; /// < Esdeveniments del bloc.
+    }
+
+    /**
+     * @class Referencia
+     * @brief Vehicle, conductor o lloc de la simulació, escrit pel seu
+     *        identificador.
+     */
+    private static final class Referencia implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        static final byte VEHICLE = 0; /// < La referència és a un vehicle.
+        static final byte CONDUCTOR = 1; /// < La referència és a un conductor.
+        static final byte LLOC = 2; /// < La referència és a un lloc.
+
+        final byte tipus; /// < VEHICLE, CONDUCTOR o LLOC.
+        final int id; /// < Identificador de l'objecte.
+
+        Referencia(byte tipus, int id) {
+            this.tipus = tipus;
+            this.id = id;
+        }
+    }
+
+    /**
+     * @class Sortida
+     * @brief Escriu un bloc canviant els vehicles, conductors i llocs per
+     *        referències.
+     */
+    private static final class Sortida extends ObjectOutputStream {
+        Sortida(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Vehicle vehicle) {
+                return new Referencia(Referencia.VEHICLE, vehicle.getId());
+            }
+            if (obj instanceof Conductor conductor) {
+                return new Referencia(Referencia.CONDUCTOR, conductor.getId());
+            }
+            if (obj instanceof Lloc lloc) {
+                return new Referencia(Referencia.LLOC, lloc.obtenirId());
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * @class Entrada
+     * @brief Llegeix un bloc canviant les referències pels objectes de la
+     *        simulació.
+     */
+    private final class Entrada extends ObjectInputStream {
+        Entrada(InputStream in) throws IOException {
+            super(in);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (!(obj instanceof Referencia ref)) {
+                return obj;
+            }
+            Map<Integer, ?> perId = ref.tipus == Referencia.VEHICLE ? vehiclesPerId
+                    : ref.tipus == Referencia.CONDUCTOR ? conductorsPerId : llocsPerId;
+            Object resolt = perId.get(ref.id);
+            if (resolt == null) {
+                throw new InvalidObjectException("L'objecte " + ref.id + " del diari no és a la simulació");
+            }
+            return resolt;
+        }
+    }
+
+    private final List<Bloc> blocs = new ArrayList<>(); /// < Blocs en ordre; només l'últim pot no ser ple.
+    private int mida; /// < Nombre d'esdeveniments registrats.
+    private int blocsBolcats; /// < Blocs del principi que són a disc.
+    private int blocsEnMemoria = Integer.MAX_VALUE; /// < Blocs plens que es poden tenir a memòria.
+    private File directori; /// < Directori dels fitxers de bolcat.
+    private Map<Integer, Vehicle> vehiclesPerId; /// < Per tornar a llegir els blocs bolcats.
+    private Map<Integer, Conductor> conductorsPerId; /// < Per tornar a llegir els blocs bolcats.
+    private Map<Integer, Lloc> llocsPerId; /// < Per tornar a llegir els blocs bolcats.
+    private Bloc blocLlegit; /// < Últim bloc bolcat que s'ha tornat a llegir, o null.
+    private Event[] eventsLlegits; /// < Esdeveniments de blocLlegit.
+
+    /**
+     * @pre Cert.
+     * @post Crea un diari buit, sense bolcat a disc.
+     */
+    public DiariEsdeveniments() {
+    }
+
+    /**
+     * @pre events != null
+     * @post Crea un diari amb els esdeveniments donats, en el mateix ordre.
+     */
+    public DiariEsdeveniments(List<Event> events) {
+        for (Event event : events) {
+            registrar(event);
+        }
+    }
+
+    /**
+     * @pre directori existeix; blocsEnMemoria >= 0; els mapes contenen tots
+     *      els vehicles, conductors i llocs dels esdeveniments.
+     * @post A partir d'ara, els blocs plens que passin de blocsEnMemoria
+     *       s'escriuen a fitxers temporals del directori, que s'esborren en
+     *       acabar el programa.
+     */
+    public void activarBolcat(File directori, int blocsEnMemoria, Map<Integer, Vehicle> vehiclesPerId,
+            Map<Integer, Conductor> conductorsPerId, Map<Integer, Lloc> llocsPerId) {
+        this.directori = directori;
+        this.blocsEnMemoria = blocsEnMemoria;
+        this.vehiclesPerId = vehiclesPerId;
+        this.conductorsPerId = conductorsPerId;
+        this.llocsPerId = llocsPerId;
+        bolcar();
+    }
+
+    /**
+     * @pre event != null i és posterior o simultani a l'últim registrat.
+     * @post Afegeix l'esdeveniment al final del diari.
+     */
+    public void registrar(Event event) {
+        if (blocs.isEmpty() || blocs.get(blocs.size() - 1).mida == MIDA_BLOC) {
+            blocs.add(new Bloc());
+            bolcar();
+        }
+        Bloc bloc = blocs.get(blocs.size() - 1);
+        bloc.temps[bloc.mida] = event.getTemps();
+        bloc.events[bloc.mida] = event;
+        bloc.mida++;
+        mida++;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre d'esdeveniments registrats.
+     */
+    public int mida() {
+        return mida;
+    }
+
+    /**
+     * @pre 0 <= i < mida()
+     * @post Retorna el temps de l'esdeveniment i-èssim, sense llegir-lo de
+     *       disc.
+     */
+    public long temps(int i) {
+        return blocs.get(i / MIDA_BLOC).temps[i % MIDA_BLOC];
+    }
+
+    /**
+     * @pre 0 <= i < mida()
+     * @post Retorna l'esdeveniment i-èssim. Si és d'un bloc bolcat, es llegeix
+     *       el bloc de disc.
+     */
+    public Event obtenir(int i) {
+        return eventsBloc(blocs.get(i / MIDA_BLOC))[i % MIDA_BLOC];
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna un iterador dels esdeveniments en ordre d'execució. No es
+     *       pot registrar cap esdeveniment mentre s'hi itera.
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return new Iterator<Event>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < mida;
+            }
+
+            @Override
+            public Event next() {
+                if (i >= mida) {
+                    throw new NoSuchElementException();
+                }
+                return obtenir(i++);
+            }
+        };
+    }
+
+    private Event[] eventsBloc(Bloc bloc) {
+        if (bloc.events != null) {
+            return bloc.events;
+        }
+        if (bloc != blocLlegit) {
+            try {
+                eventsLlegits = llegir(bloc.fitxer);
+            } catch (IOException e) {
+                throw new IllegalStateException("No s'ha pogut tornar a llegir el bloc " + bloc.fitxer, e);
+            }
+            blocLlegit = bloc;
+        }
+        return eventsLlegits;
+    }
+
+    /**
+     * @pre bloc és ple.
+     * @post Escriu els esdeveniments del bloc al fitxer.
+     */
+    private void escriure(Bloc bloc, File fitxer) throws IOException {
+        try (ObjectOutputStream sortida = new Sortida(new BufferedOutputStream(new FileOutputStream(fitxer)))) {
+            sortida.writeObject(bloc.events);
+        }
+    }
+
+    /**
+     * @pre fitxer l'ha escrit escriure() en aquesta simulació.
+     * @post Retorna els esdeveniments del fitxer, amb els vehicles, conductors
+     *       i llocs de la simulació.
+     * @throws IOException si el fitxer no es pot llegir o no és un bloc del
+     *         diari.
+     */
+    private Event[] llegir(File fitxer) throws IOException {
+        try (ObjectInputStream entrada = new Entrada(new BufferedInputStream(new FileInputStream(fitxer)))) {
+            return (Event[]) entrada.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidObjectException("El fitxer no és un bloc del diari: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna true si llegits té els mateixos esdeveniments que bloc:
+     *       la mateixa quantitat i, a cada posició, el mateix tipus i temps.
+     */
+    private static boolean mateixosEsdeveniments(Bloc bloc, Event[] llegits) {
+        if (llegits.length != bloc.mida) {
+            return false;
+        }
+        for (int i = 0; i < bloc.mida; i++) {
+            if (llegits[i] == null || llegits[i].getClass() != bloc.events[i].getClass()
+                    || llegits[i].getTemps() != bloc.temps[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Bolca els blocs plens més antics fins que a memòria no n'hi ha més
+     *       que blocsEnMemoria. Cada fitxer es torna a llegir just després
+     *       d'escriure'l; si no es pot escriure o no es llegeix igual, el bloc
+     *       es queda a memòria.
+     */
+    private void bolcar() {
+        if (directori == null) {
+            return;
+        }
+        int plens = blocs.size() - 1; // l'últim bloc encara s'està omplint
+        while (plens - blocsBolcats > blocsEnMemoria) {
+            Bloc bloc = blocs.get(blocsBolcats);
+            try {
+                File fitxer = File.createTempFile("diari", ".bin", directori);
+                fitxer.deleteOnExit();
+                escriure(bloc, fitxer);
+                if (!mateixosEsdeveniments(bloc, llegir(fitxer))) {
+                    throw new IOException("el bloc escrit no es llegeix igual");
+                }
+                bloc.fitxer = fitxer;
+                bloc.events = null;
+                blocsBolcats++;
+            } catch (IOException e) {
+                Registre.avis(() -> "No s'ha pogut bolcar el diari a disc: " + e.getMessage());
+                return;
+            }
+        }
+    }
+}
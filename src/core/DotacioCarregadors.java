@@ -0,0 +1,59 @@
+package core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class DotacioCarregadors
+ * @brief Punts de càrrega públics de cada pàrquing en una simulació concreta.
+ * @details Permet simular el mateix mapa amb un altre nombre de punts de
+ *          càrrega públics sense modificar-ne els pàrquings, de manera que
+ *          diverses simulacions en poden compartir un de sol. Els pàrquings que
+ *          no hi són fan servir els seus propis punts de càrrega.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.20
+ */
+public final class DotacioCarregadors implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, List<PuntCarrega>> publics = new HashMap<>(); /// < Punts públics per id de pàrquing.
+
+    private DotacioCarregadors() {
+    }
+
+    /**
+     * @pre carregadors >= 0
+     * @post Retorna una dotació amb carregadors punts de càrrega públics a
+     *       cada pàrquing del mapa. Els tipus dels punts es repeteixen en
+     *       l'ordre dels que ja té el pàrquing (càrrega lenta si no en té cap).
+     */
+    public static DotacioCarregadors perParquing(Mapa mapa, int carregadors) {
+        DotacioCarregadors dotacio = new DotacioCarregadors();
+        for (Lloc lloc : mapa.getLlocs().keySet()) {
+            if (lloc instanceof Parquing parquing) {
+                List<PuntCarrega> originals = parquing.obtenirLlistaPuntsCarregaPublics();
+                List<PuntCarrega> punts = new ArrayList<>(carregadors);
+                for (int i = 0; i < carregadors; i++) {
+                    punts.add(new PuntCarrega(originals.isEmpty() ? TipusPuntCarrega.CARGA_LENTA
+                            : originals.get(i % originals.size()).getTipusCarga()));
+                }
+                dotacio.publics.put(parquing.obtenirId(), punts);
+            }
+        }
+        return dotacio;
+    }
+
+    /**
+     * @pre parquing != null
+     * @post Retorna els punts de càrrega públics del pàrquing segons aquesta
+     *       dotació, o els del pàrquing si no hi és.
+     */
+    public List<PuntCarrega> puntsCarregaPublics(Parquing parquing) {
+        List<PuntCarrega> punts = publics.get(parquing.obtenirId());
+        return punts == null ? parquing.obtenirLlistaPuntsCarregaPublics() : punts;
+    }
+}
@@ -0,0 +1,82 @@
+package core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @class Encaminador
+ * @brief Algorisme de cerca de camins mínims punt a punt sobre un GrafCSR.
+ * @details Totes les implementacions retornen camins de cost mínim, de manera
+ *          que el Mapa pot canviar d'algorisme sense que ho notin els
+ *          conductors ni el simulador. Cada encaminador compta les consultes
+ *          fetes i els llocs assentats per poder comparar-ne el rendiment.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.07
+ */
+public abstract class Encaminador {
+
+    private final LongAdder consultes = new LongAdder(); /// < Nombre de consultes fetes.
+    private final LongAdder llocsAssentats = new LongAdder(); /// < Llocs assentats en total.
+
+    /**
+     * @pre 0 <= origen, desti < nombre de llocs del graf
+     * @post Retorna els índexs dels llocs del camí mínim d'origen a desti
+     *       (ambdós inclosos), o null si desti no és accessible.
+     *
+     * @param origen  Índex del lloc de sortida.
+     * @param desti   Índex del lloc d'arribada.
+     * @param criteri Criteri per ponderar els camins.
+     * @return Camí mínim o null.
+     */
+    public abstract int[] cercar(int origen, int desti, CriteriCami criteri);
+
+    /**
+     * @pre Cert.
+     * @post Retorna el tipus d'algorisme de l'encaminador.
+     */
+    public abstract TipusEncaminament obtenirTipus();
+
+    /**
+     * @pre assentats >= 0
+     * @post Compta una consulta que ha assentat el nombre de llocs indicat.
+     */
+    protected void registrarConsulta(int assentats) {
+        consultes.increment();
+        llocsAssentats.add(assentats);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de consultes fetes.
+     */
+    public long obtenirConsultes() {
+        return consultes.sum();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre total de llocs assentats per les consultes.
+     */
+    public long obtenirLlocsAssentats() {
+        return llocsAssentats.sum();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la mitjana de llocs assentats per consulta, o 0 si no
+     *       s'ha fet cap consulta.
+     */
+    public double mitjanaLlocsAssentats() {
+        long n = consultes.sum();
+        return n == 0 ? 0.0 : (double) llocsAssentats.sum() / n;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Posa a zero les estadístiques.
+     */
+    public void reiniciarEstadistiques() {
+        consultes.reset();
+        llocsAssentats.reset();
+    }
+}
@@ -0,0 +1,126 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * @class EspaiCerca
+ * @brief Vectors de treball reutilitzables d'una cerca de camins mínims.
+ * @details Guarda la distància provisional i el predecessor de cada lloc, els
+ *          llocs ja assentats i el heap de la cerca. En lloc de buidar els
+ *          vectors a cada consulta, cada cerca té un número de versió i una
+ *          posició només és vàlida si porta la versió actual.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.07
+ */
+final class EspaiCerca {
+
+    final HeapIndexat heap; /// < Cua de prioritat de la cerca.
+    private final double[] distancia; /// < Distància provisional de cada lloc.
+    private final int[] anterior; /// < Predecessor de cada lloc al camí mínim.
+    private final int[] versio; /// < Versió en què distancia/anterior són vàlids.
+    private final int[] tancat; /// < Versió en què el lloc s'ha assentat.
+    private int versioActual; /// < Versió de la cerca en curs.
+
+    /**
+     * @pre n >= 0
+     * @post Crea un espai per a grafs de n llocs.
+     */
+    EspaiCerca(int n) {
+        distancia = new double[n];
+        anterior = new int[n];
+        versio = new int[n];
+        tancat = new int[n];
+        heap = new HeapIndexat(n);
+    }
+
+    /**
+     * @pre 0 <= origen < n
+     * @post Comença una cerca nova amb origen a distància 0 dins del heap.
+     */
+    void iniciar(int origen) {
+        iniciar(origen, 0.0);
+    }
+
+    /**
+     * @pre 0 <= origen < n
+     * @post Comença una cerca nova amb origen a distància 0 i clau inicial
+     *       clau dins del heap.
+     */
+    void iniciar(int origen, double clau) {
+        versioActual++;
+        if (versioActual == Integer.MAX_VALUE) {
+            Arrays.fill(versio, 0);
+            Arrays.fill(tancat, 0);
+            versioActual = 1;
+        }
+        heap.buidar();
+        versio[origen] = versioActual;
+        distancia[origen] = 0.0;
+        anterior[origen] = -1;
+        heap.inserirODisminuir(origen, clau);
+    }
+
+    boolean esTancat(int v) {
+        return tancat[v] == versioActual;
+    }
+
+    void tancar(int v) {
+        tancat[v] = versioActual;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna true si la cerca actual ja ha arribat a v.
+     */
+    boolean esVisitat(int v) {
+        return versio[v] == versioActual;
+    }
+
+    /**
+     * @pre esVisitat(v)
+     * @post Retorna la distància provisional de v.
+     */
+    double distancia(int v) {
+        return distancia[v];
+    }
+
+    /**
+     * @pre esVisitat(v)
+     * @post Retorna el predecessor de v a la cerca, o -1 si és l'origen.
+     */
+    int anterior(int v) {
+        return anterior[v];
+    }
+
+    /**
+     * @pre Cert.
+     * @post Si nova millora la distància de v (o v no s'havia visitat), la
+     *       guarda amb pare com a predecessor i retorna true.
+     */
+    boolean relaxar(int v, double nova, int pare) {
+        if (versio[v] != versioActual || nova < distancia[v]) {
+            versio[v] = versioActual;
+            distancia[v] = nova;
+            anterior[v] = pare;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @pre desti s'ha assentat en la cerca actual des d'origen.
+     * @post Retorna els índexs del camí d'origen a desti (ambdós inclosos).
+     */
+    int[] cami(int origen, int desti) {
+        int longitud = 1;
+        for (int v = desti; v != origen; v = anterior[v]) {
+            longitud++;
+        }
+        int[] cami = new int[longitud];
+        for (int v = desti, i = longitud - 1; i >= 0; v = anterior[v], i--) {
+            cami[i] = v;
+        }
+        return cami;
+    }
+}
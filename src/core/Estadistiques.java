@@ -1,6 +1,6 @@
 package core;
 
-import java.util.ArrayList;
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -9,7 +9,8 @@ import java.util.List;
  * @author Ignasi Ferrés Iglesias
  * @version 2025.05.13
  */
-public class Estadistiques {
+public class Estadistiques implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     /**
      * @brief Nombre total de peticions servides.
@@ -62,12 +63,6 @@ public class Estadistiques {
      */
     private int muestrasViaje;
 
-    /**
-     * @brief Llista de totes les simulacions finalitzades per a càlculs
-     * agregats.
-     */
-    private static List<Estadistiques> historialSimulaciones = new ArrayList<>();
-
     /**
      * @brief Constructor per defecte. Inicialitza totes les estadístiques a
      * zero.
@@ -135,11 +130,11 @@ public class Estadistiques {
     }
 
     /**
-     * @brief Registra el nombre total de peticions no servides.
-     * @param numPeticions Nombre de peticions no servides
+     * @brief Suma peticions no servides a les ja registrades.
+     * @param numPeticions Nombre de peticions que han quedat sense servir
      */
     public void registrarPeticionNoServida(int numPeticions) {
-        this.peticionesNoServidas = numPeticions;
+        this.peticionesNoServidas += numPeticions;
     }
 
     /**
@@ -169,13 +164,6 @@ public class Estadistiques {
         muestrasViaje++;
     }
 
-    /**
-     * @brief Finalitza la simulació i desa les estadístiques a l'historial.
-     */
-    public void finalizarSimulacion() {
-        historialSimulaciones.add(this);
-    }
-
     /**
      * @brief Calcula el temps d'espera mitjà per petició.
      * @return Temps mitjà d'espera
@@ -233,10 +221,11 @@ public class Estadistiques {
     }
 
     /**
-     * @brief Calcula el percentatge d'èxit global de totes les simulacions.
+     * @brief Calcula el percentatge d'èxit global de les simulacions donades.
+     * @param historialSimulaciones Estadístiques de cada simulació
      * @return Percentatge d'èxit agregat
      */
-    public static double getPorcentajeExitoAgregado() {
+    public static double getPorcentajeExitoAgregado(List<Estadistiques> historialSimulaciones) {
         if (historialSimulaciones.isEmpty()) {
             return 0;
         }
@@ -250,10 +239,12 @@ public class Estadistiques {
     }
 
     /**
-     * @brief Calcula el temps d'espera mitjà agregat de totes les simulacions.
+     * @brief Calcula el temps d'espera mitjà agregat de les simulacions
+     * donades.
+     * @param historialSimulaciones Estadístiques de cada simulació
      * @return Temps d'espera mitjà global
      */
-    public static double getTiempoEsperaPromedioAgregado() {
+    public static double getTiempoEsperaPromedioAgregado(List<Estadistiques> historialSimulaciones) {
         if (historialSimulaciones.isEmpty()) {
             return 0;
         }
@@ -309,17 +300,18 @@ public class Estadistiques {
     }
 
     /**
-     * @brief Retorna les estadístiques agregades de totes les simulacions.
+     * @brief Retorna les estadístiques agregades de les simulacions donades.
+     * @param historialSimulaciones Estadístiques de cada simulació
      * @return String amb estadístiques agregades formatades
      */
-    public static String getEstadisticasAgregadas() {
+    public static String getEstadisticasAgregadas(List<Estadistiques> historialSimulaciones) {
         return String.format("""
                              Estad\u00edstiques Agregades (%d simulacions):
                               - Percentatge d'\u00e8xit: %.2f%%
                               - Temps espera promig: %.2f min""",
                 historialSimulaciones.size(),
-                getPorcentajeExitoAgregado(),
-                getTiempoEsperaPromedioAgregado()
+                getPorcentajeExitoAgregado(historialSimulaciones),
+                getTiempoEsperaPromedioAgregado(historialSimulaciones)
         );
     }
 
@@ -0,0 +1,274 @@
+package core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @class ExploracioParametres
+ * @brief Simula variants d'un escenari amb flotes i punts de càrrega
+ *        diferents i en compara els resultats.
+ * @details L'escenari base es llegeix una sola vegada. Cada variant crea els
+ *          seus propis vehicles, conductors i peticions a partir dels de la
+ *          base (amb el nombre de vehicles, places i autonomia de la variant) i,
+ *          si cal, una DotacioCarregadors amb els seus punts de càrrega, però
+ *          totes comparteixen el mateix Mapa. Abans d'executar-les es fan totes
+ *          les precomputacions d'encaminament del mapa, de manera que les
+ *          variants només el consulten i es poden executar en paral·lel.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.20
+ */
+public final class ExploracioParametres {
+
+    public static final int BASE = -1; /// < Valor d'un paràmetre que es deixa com a l'escenari base.
+
+    /**
+     * @class Variant
+     * @brief Valors dels paràmetres d'una variant; BASE vol dir el de
+     *        l'escenari.
+     */
+    public static final class Variant {
+        private final int vehicles; /// < Nombre de vehicles (amb conductor).
+        private final int maxPassatgers; /// < Places de cada vehicle.
+        private final int autonomia; /// < Autonomia de cada vehicle, en km.
+        private final int carregadors; /// < Punts de càrrega públics de cada pàrquing.
+
+        /**
+         * @pre Cada paràmetre és BASE o positiu (carregadors pot ser 0).
+         * @post Crea una variant amb els paràmetres donats.
+         */
+        public Variant(int vehicles, int maxPassatgers, int autonomia, int carregadors) {
+            if (vehicles == 0 || vehicles < BASE || maxPassatgers == 0 || maxPassatgers < BASE || autonomia == 0
+                    || autonomia < BASE || carregadors < BASE) {
+                throw new IllegalArgumentException("Paràmetres de variant no vàlids");
+            }
+            this.vehicles = vehicles;
+            this.maxPassatgers = maxPassatgers;
+            this.autonomia = autonomia;
+            this.carregadors = carregadors;
+        }
+
+        /// @return Nombre de vehicles, o BASE
+        public int getVehicles() {
+            return vehicles;
+        }
+
+        /// @return Places de cada vehicle, o BASE
+        public int getMaxPassatgers() {
+            return maxPassatgers;
+        }
+
+        /// @return Autonomia de cada vehicle en km, o BASE
+        public int getAutonomia() {
+            return autonomia;
+        }
+
+        /// @return Punts de càrrega públics de cada pàrquing, o BASE
+        public int getCarregadors() {
+            return carregadors;
+        }
+    }
+
+    /**
+     * @class Resultat
+     * @brief Estadístiques de la simulació d'una variant.
+     */
+    public static final class Resultat {
+        private final Variant variant; /// < Variant simulada.
+        private final Estadistiques estadistiques; /// < Estadístiques de la simulació.
+
+        Resultat(Variant variant, Estadistiques estadistiques) {
+            this.variant = variant;
+            this.estadistiques = estadistiques;
+        }
+
+        /// @return Variant simulada
+        public Variant getVariant() {
+            return variant;
+        }
+
+        /// @return Estadístiques de la simulació
+        public Estadistiques getEstadistiques() {
+            return estadistiques;
+        }
+    }
+
+    private final long horaInici; /// < Inici de les simulacions, en ticks.
+    private final long horaFi; /// < Final de les simulacions, en ticks.
+    private final Mapa mapa; /// < Mapa compartit per totes les variants.
+    private final List<Conductor> conductors; /// < Conductors de l'escenari base, amb els seus vehicles.
+    private final List<Peticio> peticions; /// < Peticions de l'escenari base.
+
+    /**
+     * @pre 0 <= horaInici < horaFi, en ticks; cada conductor té vehicle; cap
+     *      paràmetre és null.
+     * @post Crea l'exploració sobre l'escenari donat i prepara l'encaminament
+     *       del mapa. Ni el mapa ni els objectes donats es modifiquen en
+     *       executar variants.
+     */
+    public ExploracioParametres(long horaInici, long horaFi, Mapa mapa, List<Conductor> conductors,
+            List<Peticio> peticions) {
+        if (conductors.isEmpty()) {
+            throw new IllegalArgumentException("L'escenari no té cap conductor");
+        }
+        this.horaInici = horaInici;
+        this.horaFi = horaFi;
+        this.mapa = mapa;
+        this.conductors = new ArrayList<>(conductors);
+        this.peticions = new ArrayList<>(peticions);
+        mapa.congelar();
+        mapa.obtenirAccessibilitat();
+        mapa.precalcularMatrius();
+    }
+
+    /**
+     * @pre dir conté llocs.csv, camins.csv, vehicles.csv, conductors.csv i
+     *      peticions.csv; 0 <= horaInici < horaFi, en ticks.
+     * @post Retorna l'exploració sobre l'escenari del directori.
+     */
+    public static ExploracioParametres desDeEscenari(File dir, long horaInici, long horaFi) {
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        Mapa mapa = new Mapa();
+        for (Lloc lloc : LectorCSV.carregarLlocs(new File(dir, "llocs.csv").getPath())) {
+            llocsPerId.put(lloc.obtenirId(), lloc);
+            mapa.afegirLloc(lloc);
+        }
+        for (Cami cami : LectorCSV.carregarCamins(new File(dir, "camins.csv").getPath(), llocsPerId)) {
+            mapa.afegirCami(cami);
+        }
+        Map<Integer, Vehicle> vehiclesPerId = new HashMap<>();
+        for (Vehicle vehicle : LectorCSV.carregarVehicles(new File(dir, "vehicles.csv").getPath(), llocsPerId)) {
+            vehiclesPerId.put(vehicle.getId(), vehicle);
+        }
+        List<Conductor> conductors = LectorCSV.carregarConductors(new File(dir, "conductors.csv").getPath(),
+                vehiclesPerId, llocsPerId);
+        List<Peticio> peticions = LectorCSV.carregarPeticions(new File(dir, "peticions.csv").getPath(),
+                llocsPerId);
+        return new ExploracioParametres(horaInici, horaFi, mapa, conductors, peticions);
+    }
+
+    /**
+     * @pre Cap llista és buida; els valors són vàlids per a Variant.
+     * @post Retorna totes les combinacions dels valors donats, amb els
+     *       carregadors variant més de pressa i els vehicles més a poc a poc.
+     */
+    public static List<Variant> graella(List<Integer> vehicles, List<Integer> maxPassatgers,
+            List<Integer> autonomies, List<Integer> carregadors) {
+        List<Variant> variants = new ArrayList<>();
+        for (int v : vehicles) {
+            for (int p : maxPassatgers) {
+                for (int a : autonomies) {
+                    for (int c : carregadors) {
+                        variants.add(new Variant(v, p, a, c));
+                    }
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * @pre fils >= 1
+     * @post Simula cada variant sense interfície, amb fins a fils variants
+     *       alhora, i en retorna els resultats en el mateix ordre.
+     * @throws IllegalStateException si alguna variant falla.
+     */
+    public List<Resultat> executar(List<Variant> variants, int fils) {
+        if (fils < 1) {
+            throw new IllegalArgumentException("Cal almenys un fil");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(fils, variants.size())));
+        try {
+            List<Future<Estadistiques>> pendents = new ArrayList<>();
+            for (Variant variant : variants) {
+                pendents.add(executor.submit(() -> {
+                    Simulador simulador = crearSimulador(variant, CuaEsdeveniments.crear());
+                    simulador.executarSenseInterficie(null, null);
+                    return simulador.getEstadistiques();
+                }));
+            }
+            List<Resultat> resultats = new ArrayList<>();
+            for (int i = 0; i < variants.size(); i++) {
+                resultats.add(new Resultat(variants.get(i), pendents.get(i).get()));
+            }
+            return resultats;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ha fallat una variant: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("S'han interromput les variants", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @pre variant != null; cua és buida.
+     * @post Retorna un Simulador de la variant, amb vehicles, conductors i
+     *       peticions nous i el mapa compartit. Si la variant té més vehicles
+     *       que la base, els conductors de la base es repeteixen en ordre amb
+     *       ids noves; si en té menys, es prenen els primers.
+     */
+    public Simulador crearSimulador(Variant variant, CuaEsdeveniments cua) {
+        int n = variant.vehicles == BASE ? conductors.size() : variant.vehicles;
+        int idConductor = 0;
+        int idVehicle = 0;
+        for (Conductor conductor : conductors) {
+            idConductor = Math.max(idConductor, conductor.getId());
+            idVehicle = Math.max(idVehicle, conductor.getVehicle().getId());
+        }
+        List<Vehicle> vehicles = new ArrayList<>(n);
+        List<Conductor> flota = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Conductor base = conductors.get(i % conductors.size());
+            Vehicle v = base.getVehicle();
+            boolean copia = i >= conductors.size();
+            Vehicle vehicle = new Vehicle(copia ? ++idVehicle : v.getId(), v.getUbicacioActual(),
+                    variant.maxPassatgers == BASE ? v.MAXPASSATGERS : variant.maxPassatgers,
+                    variant.autonomia == BASE ? v.AUTONOMIA : variant.autonomia, v.TEMPSCARGALENTA,
+                    v.TEMPSCARGARAPIDA);
+            vehicles.add(vehicle);
+            flota.add(base.copiar(copia ? ++idConductor : base.getId(), vehicle));
+        }
+        List<Peticio> copies = new ArrayList<>(peticions.size());
+        for (Peticio p : peticions) {
+            copies.add(new Peticio(p.obtenirId(), p.obtenirOrigen(), p.obtenirDesti(),
+                    p.obtenirHoraMinimaRecollida(), p.obtenirHoraMaximaArribada(), p.obtenirNumPassatgers(),
+                    p.esVehicleCompartit()));
+        }
+        DotacioCarregadors carregadors = variant.carregadors == BASE ? null
+                : DotacioCarregadors.perParquing(mapa, variant.carregadors);
+        return new Simulador(horaInici, horaFi, mapa, vehicles, flota, copies, cua, carregadors);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna una taula amb una fila per resultat: els paràmetres de la
+     *       variant ("base" si no es canvien) i les seves mètriques principals.
+     */
+    public static String taula(List<Resultat> resultats) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%8s %7s %9s %11s %9s %11s %9s %9s %9s %9s%n", "vehicles", "places", "autonomia",
+                "carregadors", "servides", "no servides", "èxit (%)", "espera", "viatge", "bateria"));
+        for (Resultat r : resultats) {
+            Variant v = r.variant;
+            Estadistiques e = r.estadistiques;
+            text.append(String.format("%8s %7s %9s %11s %9d %11d %9.1f %9.2f %9.2f %9.1f%n", valor(v.vehicles),
+                    valor(v.maxPassatgers), valor(v.autonomia), valor(v.carregadors),
+                    e.getPeticionesServidas(), e.getPeticionesNoServidas(), e.getPorcentajeExito(),
+                    e.getTiempoEsperaPromedio(), e.getTiempoViajePromedio(), e.getPorcentajeBateriaPromedio()));
+        }
+        return text.toString();
+    }
+
+    private static String valor(int parametre) {
+        return parametre == BASE ? "base" : Integer.toString(parametre);
+    }
+}
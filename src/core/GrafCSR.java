@@ -0,0 +1,245 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class GrafCSR
+ * @brief Representació congelada del mapa en format CSR (compressed sparse
+ *        row).
+ * @details Els llocs es numeren amb índexs densos [0, n) ordenats per
+ *          identificador. Els camins sortints del lloc i ocupen les posicions
+ *          [inici[i], inici[i + 1]) dels vectors desti, distancia i temps. Un
+ *          cop construït el graf no es modifica, de manera que es pot
+ *          compartir entre fils sense sincronització.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.02
+ */
+public final class GrafCSR {
+
+    private final int[] ids; /// < Identificador del lloc de cada índex.
+    private final int[] inici; /// < Posició del primer camí sortint de cada lloc (n + 1 posicions).
+    private final int[] origen; /// < Índex del lloc origen de cada camí.
+    private final int[] desti; /// < Índex del lloc destí de cada camí.
+    private final double[] distancia; /// < Distància en km de cada camí.
+    private final double[] temps; /// < Temps en minuts de cada camí.
+    private final int[] indexPerId; /// < Índex de cada identificador quan són densos, o null.
+    private final Map<Integer, Integer> indexPerIdDispers; /// < Índex de cada identificador quan no són densos.
+
+    private GrafCSR(int[] ids, int[] inici, int[] desti, double[] distancia, double[] temps) {
+        this.ids = ids;
+        this.inici = inici;
+        this.desti = desti;
+        this.origen = new int[desti.length];
+        for (int i = 0; i < ids.length; i++) {
+            for (int c = inici[i]; c < inici[i + 1]; c++) {
+                origen[c] = i;
+            }
+        }
+        this.distancia = distancia;
+        this.temps = temps;
+
+        int maxId = -1;
+        boolean negatius = false;
+        for (int id : ids) {
+            maxId = Math.max(maxId, id);
+            negatius |= id < 0;
+        }
+        if (!negatius && maxId < 4 * ids.length + 1024) {
+            indexPerId = new int[maxId + 1];
+            Arrays.fill(indexPerId, -1);
+            for (int i = 0; i < ids.length; i++) {
+                indexPerId[ids[i]] = i;
+            }
+            indexPerIdDispers = null;
+        } else {
+            indexPerId = null;
+            indexPerIdDispers = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                indexPerIdDispers.put(ids[i], i);
+            }
+        }
+    }
+
+    private GrafCSR(GrafCSR base, double[] temps) {
+        this.ids = base.ids;
+        this.inici = base.inici;
+        this.origen = base.origen;
+        this.desti = base.desti;
+        this.distancia = base.distancia;
+        this.temps = temps;
+        this.indexPerId = base.indexPerId;
+        this.indexPerIdDispers = base.indexPerIdDispers;
+    }
+
+    /**
+     * @pre llocs != null
+     * @post Retorna el graf CSR equivalent a la llista d'adjacència. Es
+     *       conserva l'ordre dels camins sortints de cada lloc.
+     *
+     * @param llocs Llocs del mapa amb els seus camins sortints.
+     * @return Graf congelat.
+     */
+    public static GrafCSR construir(Map<Lloc, List<Cami>> llocs) {
+        List<Lloc> ordenats = new ArrayList<>(llocs.keySet());
+        ordenats.sort(Comparator.comparingInt(Lloc::obtenirId));
+
+        int n = ordenats.size();
+        int[] ids = new int[n];
+        Map<Lloc, Integer> indexos = new HashMap<>();
+        int nombreCamins = 0;
+        for (int i = 0; i < n; i++) {
+            Lloc lloc = ordenats.get(i);
+            ids[i] = lloc.obtenirId();
+            indexos.put(lloc, i);
+            nombreCamins += llocs.get(lloc).size();
+        }
+
+        int[] inici = new int[n + 1];
+        int[] desti = new int[nombreCamins];
+        double[] distancia = new double[nombreCamins];
+        double[] temps = new double[nombreCamins];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            inici[i] = k;
+            for (Cami cami : llocs.get(ordenats.get(i))) {
+                Integer j = indexos.get(cami.obtenirDesti());
+                if (j == null) {
+                    continue; // destí fora del mapa
+                }
+                desti[k] = j;
+                distancia[k] = cami.obtenirDistancia();
+                temps[k] = cami.obtenirTemps();
+                k++;
+            }
+        }
+        inici[n] = k;
+
+        if (k < nombreCamins) {
+            desti = Arrays.copyOf(desti, k);
+            distancia = Arrays.copyOf(distancia, k);
+            temps = Arrays.copyOf(temps, k);
+        }
+        return new GrafCSR(ids, inici, desti, distancia, temps);
+    }
+
+    /**
+     * @pre temps.length == nombreCamins()
+     * @post Retorna un graf amb la mateixa estructura i distàncies però amb
+     *       els temps indicats. El graf actual no canvia; els dos comparteixen
+     *       els vectors que no depenen del temps.
+     */
+    public GrafCSR ambTemps(double[] temps) {
+        return new GrafCSR(this, temps);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el graf amb tots els camins invertits. Els llocs conserven
+     *       els mateixos índexs.
+     */
+    public GrafCSR invertir() {
+        int n = ids.length;
+        int[] iniciInvers = new int[n + 1];
+        for (int d : desti) {
+            iniciInvers[d + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            iniciInvers[i + 1] += iniciInvers[i];
+        }
+        int[] posicio = Arrays.copyOf(iniciInvers, n);
+        int[] destiInvers = new int[desti.length];
+        double[] distanciaInversa = new double[desti.length];
+        double[] tempsInvers = new double[desti.length];
+        for (int c = 0; c < desti.length; c++) {
+            int k = posicio[desti[c]]++;
+            destiInvers[k] = origen[c];
+            distanciaInversa[k] = distancia[c];
+            tempsInvers[k] = temps[c];
+        }
+        return new GrafCSR(ids, iniciInvers, destiInvers, distanciaInversa, tempsInvers);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de llocs del graf.
+     */
+    public int nombreLlocs() {
+        return ids.length;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de camins del graf.
+     */
+    public int nombreCamins() {
+        return desti.length;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna l'índex dens del lloc amb l'identificador donat, o -1 si no
+     *       hi és.
+     */
+    public int index(int id) {
+        if (indexPerId != null) {
+            return id >= 0 && id < indexPerId.length ? indexPerId[id] : -1;
+        }
+        Integer i = indexPerIdDispers.get(id);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @pre 0 <= index < nombreLlocs()
+     * @post Retorna l'identificador del lloc de l'índex donat.
+     */
+    public int id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @pre 0 <= lloc < nombreLlocs()
+     * @post Retorna la posició del primer camí sortint del lloc.
+     */
+    public int primerCami(int lloc) {
+        return inici[lloc];
+    }
+
+    /**
+     * @pre 0 <= lloc < nombreLlocs()
+     * @post Retorna la posició següent a l'últim camí sortint del lloc.
+     */
+    public int fiCamins(int lloc) {
+        return inici[lloc + 1];
+    }
+
+    /**
+     * @pre 0 <= cami < nombreCamins()
+     * @post Retorna l'índex del lloc origen del camí.
+     */
+    public int origen(int cami) {
+        return origen[cami];
+    }
+
+    /**
+     * @pre 0 <= cami < nombreCamins()
+     * @post Retorna l'índex del lloc destí del camí.
+     */
+    public int desti(int cami) {
+        return desti[cami];
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna els pesos de tots els camins segons el criteri. El vector
+     *       és compartit i no s'ha de modificar.
+     */
+    public double[] pesos(CriteriCami criteri) {
+        return criteri == CriteriCami.TEMPS ? temps : distancia;
+    }
+}
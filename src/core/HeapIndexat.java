@@ -0,0 +1,132 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * @class HeapIndexat
+ * @brief Heap binari de mínims sobre índexs de llocs amb claus double.
+ * @details Permet disminuir la clau d'un element que ja és al heap, de manera
+ *          que cada lloc hi apareix com a molt un cop. Tota la memòria es
+ *          reserva al constructor i es reutilitza entre cerques.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.02
+ */
+final class HeapIndexat {
+
+    private final int[] heap; /// < Elements del heap.
+    private final double[] clau; /// < Clau de cada element (per índex de lloc).
+    private final int[] posicio; /// < Posició de cada lloc dins el heap, o -1.
+    private int mida; /// < Nombre d'elements al heap.
+
+    /**
+     * @pre capacitat >= 0
+     * @post Crea un heap buit per a llocs amb índex [0, capacitat).
+     */
+    HeapIndexat(int capacitat) {
+        heap = new int[capacitat];
+        clau = new double[capacitat];
+        posicio = new int[capacitat];
+        Arrays.fill(posicio, -1);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna true si el heap no té elements.
+     */
+    boolean esBuit() {
+        return mida == 0;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Buida el heap en temps proporcional als elements que hi quedaven.
+     */
+    void buidar() {
+        for (int i = 0; i < mida; i++) {
+            posicio[heap[i]] = -1;
+        }
+        mida = 0;
+    }
+
+    /**
+     * @pre 0 <= lloc < capacitat
+     * @post Si el lloc no és al heap s'hi afegeix; si hi és i la nova clau és
+     *       menor, es disminueix.
+     */
+    void inserirODisminuir(int lloc, double novaClau) {
+        int p = posicio[lloc];
+        if (p == -1) {
+            p = mida++;
+            heap[p] = lloc;
+            posicio[lloc] = p;
+            clau[lloc] = novaClau;
+            pujar(p);
+        } else if (novaClau < clau[lloc]) {
+            clau[lloc] = novaClau;
+            pujar(p);
+        }
+    }
+
+    /**
+     * @pre !esBuit()
+     * @post Retorna la clau mínima sense treure-la.
+     */
+    double clauMinima() {
+        return clau[heap[0]];
+    }
+
+    /**
+     * @pre !esBuit()
+     * @post Treu i retorna el lloc amb la clau mínima.
+     */
+    int extreureMinim() {
+        int minim = heap[0];
+        posicio[minim] = -1;
+        mida--;
+        if (mida > 0) {
+            heap[0] = heap[mida];
+            posicio[heap[0]] = 0;
+            baixar(0);
+        }
+        return minim;
+    }
+
+    private void pujar(int p) {
+        int element = heap[p];
+        double c = clau[element];
+        while (p > 0) {
+            int pare = (p - 1) >>> 1;
+            int elementPare = heap[pare];
+            if (clau[elementPare] <= c) {
+                break;
+            }
+            heap[p] = elementPare;
+            posicio[elementPare] = p;
+            p = pare;
+        }
+        heap[p] = element;
+        posicio[element] = p;
+    }
+
+    private void baixar(int p) {
+        int element = heap[p];
+        double c = clau[element];
+        int meitat = mida >>> 1;
+        while (p < meitat) {
+            int fill = 2 * p + 1;
+            int dret = fill + 1;
+            if (dret < mida && clau[heap[dret]] < clau[heap[fill]]) {
+                fill = dret;
+            }
+            if (c <= clau[heap[fill]]) {
+                break;
+            }
+            heap[p] = heap[fill];
+            posicio[heap[p]] = p;
+            p = fill;
+        }
+        heap[p] = element;
+        posicio[element] = p;
+    }
+}
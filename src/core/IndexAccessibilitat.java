@@ -0,0 +1,313 @@
+package core;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * @class IndexAccessibilitat
+ * @brief Components fortament connexos del mapa i accessibilitat entre
+ *        llocs.
+ * @details Es calcula una sola vegada sobre el graf congelat. Els components
+ *          fortament connexos s'obtenen amb l'algorisme de Tarjan (iteratiu),
+ *          que els numera en ordre topològic invers: els camins entre
+ *          components sempre van d'un component a un de número més petit. Així
+ *          el conjunt de components accessibles des de cada component es pot
+ *          calcular en una sola passada, com la unió dels dels seus successors.
+ *          A partir d'aquí es pot saber en temps constant si un lloc és
+ *          accessible des d'un altre, i triar un parell (origen, destí)
+ *          accessible uniformement a l'atzar també en temps constant, amb
+ *          taules d'àlies (mètode de Vose): una per triar el component de
+ *          l'origen, amb pes igual al nombre de parells que en surten, i una per
+ *          component per triar el component del destí. La memòria creix amb el
+ *          quadrat del nombre de components, que en un mapa de carrers és
+ *          petit (gairebé tots els llocs són d'un mateix component).
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.12
+ */
+public final class IndexAccessibilitat {
+
+    private final int[] component; /// < Component de cada lloc.
+    private final int nombreComponents; /// < Nombre de components fortament connexos.
+    private final int[] membres; /// < Llocs agrupats per component.
+    private final int[] iniciMembres; /// < Posició del primer lloc de cada component a membres (C + 1 posicions).
+    private final int paraules; /// < Paraules de 64 bits per fila de accessibles.
+    private final long[] accessibles; /// < Fila de bits per component: components accessibles des d'ell.
+    private final long nombreParells; /// < Parells (origen, destí) diferents amb destí accessible.
+    private final double[] probOrigen; /// < Taula d'àlies dels components d'origen: probabilitats.
+    private final int[] aliesOrigen; /// < Taula d'àlies dels components d'origen: àlies.
+    private final int[] iniciDestins; /// < Posició de la taula de destins de cada component (C + 1 posicions).
+    private final int[] componentsDesti; /// < Component accessible de cada posició de les taules de destins.
+    private final double[] probDesti; /// < Taules d'àlies dels destins: probabilitats.
+    private final int[] aliesDesti; /// < Taules d'àlies dels destins: àlies relatius a la taula.
+
+    /**
+     * @pre graf != null
+     * @post Calcula els components fortament connexos del graf, l'accessibilitat
+     *       entre ells i les taules per triar parells accessibles.
+     */
+    public IndexAccessibilitat(GrafCSR graf) {
+        int n = graf.nombreLlocs();
+        component = new int[n];
+        nombreComponents = calcularComponents(graf, component);
+        int nc = nombreComponents;
+
+        iniciMembres = new int[nc + 1];
+        for (int v = 0; v < n; v++) {
+            iniciMembres[component[v] + 1]++;
+        }
+        for (int c = 0; c < nc; c++) {
+            iniciMembres[c + 1] += iniciMembres[c];
+        }
+        membres = new int[n];
+        int[] posicio = new int[nc];
+        for (int v = 0; v < n; v++) {
+            int c = component[v];
+            membres[iniciMembres[c] + posicio[c]++] = v;
+        }
+
+        // Els successors d'un component tenen número més petit: recorrent-los
+        // en ordre creixent ja tenen la fila calculada.
+        paraules = (nc + 63) >>> 6;
+        accessibles = new long[nc * paraules];
+        long[] llocsAccessibles = new long[nc];
+        int totalDestins = 0;
+        for (int c = 0; c < nc; c++) {
+            int fila = c * paraules;
+            accessibles[fila + (c >>> 6)] |= 1L << c;
+            for (int i = iniciMembres[c]; i < iniciMembres[c + 1]; i++) {
+                int u = membres[i];
+                for (int e = graf.primerCami(u), fi = graf.fiCamins(u); e < fi; e++) {
+                    int d = component[graf.desti(e)];
+                    if (d != c && (accessibles[fila + (d >>> 6)] & (1L << d)) == 0) {
+                        int filaD = d * paraules;
+                        for (int w = 0; w < paraules; w++) {
+                            accessibles[fila + w] |= accessibles[filaD + w];
+                        }
+                    }
+                }
+            }
+            for (int d = 0; d <= c; d++) {
+                if ((accessibles[fila + (d >>> 6)] & (1L << d)) != 0) {
+                    llocsAccessibles[c] += mida(d);
+                    totalDestins++;
+                }
+            }
+        }
+
+        double[] pesOrigen = new double[nc];
+        long parells = 0;
+        iniciDestins = new int[nc + 1];
+        componentsDesti = new int[totalDestins];
+        double[] pesDesti = new double[totalDestins];
+        int k = 0;
+        for (int c = 0; c < nc; c++) {
+            long sortints = mida(c) * (llocsAccessibles[c] - 1);
+            pesOrigen[c] = sortints;
+            parells += sortints;
+            iniciDestins[c] = k;
+            int fila = c * paraules;
+            for (int d = 0; d <= c; d++) {
+                if ((accessibles[fila + (d >>> 6)] & (1L << d)) != 0) {
+                    componentsDesti[k] = d;
+                    pesDesti[k] = d == c ? mida(c) - 1 : mida(d); // sense l'origen mateix
+                    k++;
+                }
+            }
+        }
+        iniciDestins[nc] = k;
+        nombreParells = parells;
+
+        probOrigen = new double[nc];
+        aliesOrigen = new int[nc];
+        if (parells > 0) {
+            construirAlies(pesOrigen, 0, nc, probOrigen, aliesOrigen);
+        }
+        probDesti = new double[totalDestins];
+        aliesDesti = new int[totalDestins];
+        for (int c = 0; c < nc; c++) {
+            if (pesOrigen[c] > 0) {
+                construirAlies(pesDesti, iniciDestins[c], iniciDestins[c + 1] - iniciDestins[c], probDesti,
+                        aliesDesti);
+            }
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Omple component amb el component fortament connex de cada lloc,
+     *       numerats en ordre topològic invers, i en retorna el nombre.
+     */
+    private static int calcularComponents(GrafCSR graf, int[] component) {
+        int n = graf.nombreLlocs();
+        int[] ordre = new int[n]; // ordre de descoberta de cada lloc, o -1
+        int[] baix = new int[n];
+        int[] seguentCami = new int[n];
+        int[] pilaCerca = new int[n];
+        int[] pilaComponent = new int[n];
+        Arrays.fill(ordre, -1);
+        Arrays.fill(component, -1);
+
+        int comptador = 0;
+        int components = 0;
+        int midaComponent = 0;
+        for (int s = 0; s < n; s++) {
+            if (ordre[s] >= 0) {
+                continue;
+            }
+            int cim = 0;
+            pilaCerca[0] = s;
+            ordre[s] = baix[s] = comptador++;
+            seguentCami[s] = graf.primerCami(s);
+            pilaComponent[midaComponent++] = s;
+            while (cim >= 0) {
+                int u = pilaCerca[cim];
+                if (seguentCami[u] < graf.fiCamins(u)) {
+                    int v = graf.desti(seguentCami[u]++);
+                    if (ordre[v] < 0) {
+                        ordre[v] = baix[v] = comptador++;
+                        seguentCami[v] = graf.primerCami(v);
+                        pilaComponent[midaComponent++] = v;
+                        pilaCerca[++cim] = v;
+                    } else if (component[v] < 0) {
+                        baix[u] = Math.min(baix[u], ordre[v]); // v encara és a la pila
+                    }
+                    continue;
+                }
+                cim--;
+                if (cim >= 0) {
+                    int pare = pilaCerca[cim];
+                    baix[pare] = Math.min(baix[pare], baix[u]);
+                }
+                if (baix[u] == ordre[u]) {
+                    int w;
+                    do {
+                        w = pilaComponent[--midaComponent];
+                        component[w] = components;
+                    } while (w != u);
+                    components++;
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * @pre 0 < mida; la suma dels pesos de [inici, inici + mida) és positiva.
+     * @post Omple les posicions [inici, inici + mida) de prob i alies amb la
+     *       taula d'àlies dels pesos donats (àlies relatius a inici).
+     */
+    private static void construirAlies(double[] pesos, int inici, int mida, double[] prob, int[] alies) {
+        double total = 0.0;
+        for (int i = 0; i < mida; i++) {
+            total += pesos[inici + i];
+        }
+        double[] escalat = new double[mida];
+        int[] petits = new int[mida];
+        int[] grans = new int[mida];
+        int nPetits = 0;
+        int nGrans = 0;
+        for (int i = 0; i < mida; i++) {
+            escalat[i] = pesos[inici + i] * mida / total;
+            if (escalat[i] < 1.0) {
+                petits[nPetits++] = i;
+            } else {
+                grans[nGrans++] = i;
+            }
+        }
+        while (nPetits > 0 && nGrans > 0) {
+            int p = petits[--nPetits];
+            int g = grans[--nGrans];
+            prob[inici + p] = escalat[p];
+            alies[inici + p] = g;
+            escalat[g] -= 1.0 - escalat[p];
+            if (escalat[g] < 1.0) {
+                petits[nPetits++] = g;
+            } else {
+                grans[nGrans++] = g;
+            }
+        }
+        // Els que queden valen 1 llevat d'errors d'arrodoniment.
+        while (nGrans > 0) {
+            prob[inici + grans[--nGrans]] = 1.0;
+        }
+        while (nPetits > 0) {
+            prob[inici + petits[--nPetits]] = 1.0;
+        }
+    }
+
+    private static int mostrejar(double[] prob, int[] alies, int inici, int mida, RandomGenerator random) {
+        int i = random.nextInt(mida);
+        return random.nextDouble() < prob[inici + i] ? i : alies[inici + i];
+    }
+
+    private int mida(int c) {
+        return iniciMembres[c + 1] - iniciMembres[c];
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de components fortament connexos.
+     */
+    public int nombreComponents() {
+        return nombreComponents;
+    }
+
+    /**
+     * @pre 0 <= lloc < graf.nombreLlocs()
+     * @post Retorna el component fortament connex del lloc.
+     */
+    public int component(int lloc) {
+        return component[lloc];
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna true si hi ha algun camí d'origen a desti (un lloc sempre
+     *       és accessible des d'ell mateix).
+     */
+    public boolean esAccessible(int origen, int desti) {
+        int d = component[desti];
+        return (accessibles[component[origen] * paraules + (d >>> 6)] & (1L << d)) != 0;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de parells (origen, destí) de llocs diferents en
+     *       què el destí és accessible des de l'origen.
+     */
+    public long nombreParellsAccessibles() {
+        return nombreParells;
+    }
+
+    /**
+     * @pre random != null
+     * @post Retorna {origen, desti}, un parell de llocs diferents amb desti
+     *       accessible des d'origen triat uniformement entre tots els parells
+     *       possibles, o null si no n'hi ha cap. Cost constant, sense
+     *       reintents.
+     */
+    public int[] parellAleatori(RandomGenerator random) {
+        if (nombreParells == 0) {
+            return null;
+        }
+        int c = mostrejar(probOrigen, aliesOrigen, 0, nombreComponents, random);
+        int inici = iniciMembres[c];
+        int origen = membres[inici + random.nextInt(mida(c))];
+
+        int base = iniciDestins[c];
+        int d = componentsDesti[base + mostrejar(probDesti, aliesDesti, base, iniciDestins[c + 1] - base, random)];
+        int desti;
+        if (d == c) {
+            // Uniforme entre els altres llocs del component: si surt l'origen,
+            // es pren el lloc que s'ha deixat fora del sorteig.
+            desti = membres[inici + random.nextInt(mida(c) - 1)];
+            if (desti == origen) {
+                desti = membres[inici + mida(c) - 1];
+            }
+        } else {
+            desti = membres[iniciMembres[d] + random.nextInt(mida(d))];
+        }
+        return new int[] { origen, desti };
+    }
+}
@@ -0,0 +1,219 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class IndexEspacial
+ * @brief Graella uniforme amb la posició dels vehicles.
+ * @details Cada vehicle és a la cel·la que conté les coordenades del lloc on
+ *          es troba. Només es guarden les cel·les ocupades, de manera que la
+ *          graella no té límits fixos. Per trobar els k vehicles més propers a
+ *          un punt es recorren anells de cel·les cada vegada més amplis al
+ *          voltant del punt, fins que els k millors són més a prop que
+ *          qualsevol cel·la encara no visitada. Els vehicles que són en llocs
+ *          sense coordenades no es poden ordenar per distància i sempre es
+ *          retornen com a candidats, després dels altres.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.13
+ */
+public class IndexEspacial {
+
+    private final double midaCella; /// < Costat de cada cel·la, en les unitats de les coordenades.
+    private final Map<Long, List<Vehicle>> cellesOcupades = new HashMap<>(); /// < Vehicles de cada cel·la ocupada.
+    private final Map<Vehicle, Long> cellaVehicle = new HashMap<>(); /// < Cel·la on és cada vehicle amb coordenades.
+    private final List<Vehicle> senseCoordenades = new ArrayList<>(); /// < Vehicles en llocs sense coordenades.
+    private int minX = Integer.MAX_VALUE; /// < Columna mínima que ha estat ocupada.
+    private int maxX = Integer.MIN_VALUE; /// < Columna màxima que ha estat ocupada.
+    private int minY = Integer.MAX_VALUE; /// < Fila mínima que ha estat ocupada.
+    private int maxY = Integer.MIN_VALUE; /// < Fila màxima que ha estat ocupada.
+
+    /**
+     * @pre midaCella > 0
+     * @post Crea un índex buit amb cel·les del costat donat.
+     */
+    public IndexEspacial(double midaCella) {
+        this.midaCella = midaCella;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna un índex amb els vehicles donats i cel·les de mida tal que
+     *       n'hi hagi aproximadament un per cel·la dins la zona que ocupen els
+     *       llocs, o null si cap lloc té coordenades.
+     */
+    public static IndexEspacial crear(Iterable<Lloc> llocs, List<Vehicle> vehicles) {
+        double x0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY;
+        double y0 = Double.POSITIVE_INFINITY;
+        double y1 = Double.NEGATIVE_INFINITY;
+        for (Lloc lloc : llocs) {
+            if (lloc.teCoordenades()) {
+                x0 = Math.min(x0, lloc.obtenirX());
+                x1 = Math.max(x1, lloc.obtenirX());
+                y0 = Math.min(y0, lloc.obtenirY());
+                y1 = Math.max(y1, lloc.obtenirY());
+            }
+        }
+        if (x0 == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        // Si els llocs són gairebé en línia, la mida es limita perquè no hi
+        // hagi més cel·les per costat que vehicles.
+        int n = Math.max(1, vehicles.size());
+        double mida = Math.max(Math.sqrt((x1 - x0) * (y1 - y0) / n), Math.max(x1 - x0, y1 - y0) / n);
+        IndexEspacial index = new IndexEspacial(mida > 0 ? mida : 1.0);
+        for (Vehicle vehicle : vehicles) {
+            index.afegir(vehicle);
+        }
+        return index;
+    }
+
+    /**
+     * @pre vehicle != null i no és a l'índex.
+     * @post Afegeix el vehicle a la cel·la de la seva ubicació actual. A partir
+     *       d'ara, cada vegada que es mogui l'índex s'actualitzarà.
+     */
+    public void afegir(Vehicle vehicle) {
+        vehicle.assignarIndexEspacial(this);
+        inserir(vehicle, vehicle.getUbicacioActual());
+    }
+
+    /**
+     * @pre vehicle és a l'índex.
+     * @post Treu el vehicle de l'índex.
+     */
+    public void treure(Vehicle vehicle) {
+        extreure(vehicle);
+        vehicle.assignarIndexEspacial(null);
+    }
+
+    /**
+     * @pre vehicle és a l'índex.
+     * @post Passa el vehicle a la cel·la de la seva ubicació actual. El crida
+     *       Vehicle.moure.
+     */
+    void actualitzar(Vehicle vehicle) {
+        Lloc ubicacio = vehicle.getUbicacioActual();
+        Long anterior = cellaVehicle.get(vehicle);
+        if (anterior != null && ubicacio.teCoordenades() && anterior == clau(ubicacio)) {
+            return; // continua a la mateixa cel·la
+        }
+        extreure(vehicle);
+        inserir(vehicle, ubicacio);
+    }
+
+    /**
+     * @pre k >= 0
+     * @post Retorna com a molt k vehicles, els més propers en línia recta al
+     *       punt (x, y) ordenats per distància, seguits de tots els vehicles
+     *       que són en llocs sense coordenades.
+     */
+    public List<Vehicle> mesPropers(double x, double y, int k) {
+        List<Vehicle> trobats = new ArrayList<>();
+        List<Double> distancies = new ArrayList<>();
+        if (k > 0 && !cellaVehicle.isEmpty()) {
+            int cx = cella(x);
+            int cy = cella(y);
+            int radiMaxim = Math.max(Math.max(cx - minX, maxX - cx), Math.max(cy - minY, maxY - cy));
+            for (int r = 0; r <= radiMaxim; r++) {
+                for (int i = cx - r; i <= cx + r; i++) {
+                    boolean vora = i == cx - r || i == cx + r;
+                    for (int j = cy - r; j <= cy + r; j += vora ? 1 : 2 * r) {
+                        afegirCella(i, j, x, y, trobats, distancies);
+                        if (r == 0) {
+                            break;
+                        }
+                    }
+                }
+                // Qualsevol vehicle dels anells següents és com a mínim a r
+                // cel·les de distància.
+                if (trobats.size() >= k && kEssima(distancies, k) <= r * midaCella) {
+                    break;
+                }
+            }
+        }
+        List<Vehicle> resultat = ordenar(trobats, distancies, k);
+        resultat.addAll(senseCoordenades);
+        return resultat;
+    }
+
+    private void afegirCella(int i, int j, double x, double y, List<Vehicle> trobats, List<Double> distancies) {
+        List<Vehicle> cella = cellesOcupades.get(clau(i, j));
+        if (cella == null) {
+            return;
+        }
+        for (Vehicle vehicle : cella) {
+            Lloc lloc = vehicle.getUbicacioActual();
+            trobats.add(vehicle);
+            distancies.add(Math.hypot(lloc.obtenirX() - x, lloc.obtenirY() - y));
+        }
+    }
+
+    private static double kEssima(List<Double> distancies, int k) {
+        double[] ordenades = new double[distancies.size()];
+        for (int i = 0; i < ordenades.length; i++) {
+            ordenades[i] = distancies.get(i);
+        }
+        Arrays.sort(ordenades);
+        return ordenades[k - 1];
+    }
+
+    private static List<Vehicle> ordenar(List<Vehicle> trobats, List<Double> distancies, int k) {
+        Integer[] ordre = new Integer[trobats.size()];
+        for (int i = 0; i < ordre.length; i++) {
+            ordre[i] = i;
+        }
+        Arrays.sort(ordre, (a, b) -> Double.compare(distancies.get(a), distancies.get(b)));
+        List<Vehicle> resultat = new ArrayList<>();
+        for (int i = 0; i < ordre.length && i < k; i++) {
+            resultat.add(trobats.get(ordre[i]));
+        }
+        return resultat;
+    }
+
+    private void inserir(Vehicle vehicle, Lloc lloc) {
+        if (!lloc.teCoordenades()) {
+            senseCoordenades.add(vehicle);
+            return;
+        }
+        int i = cella(lloc.obtenirX());
+        int j = cella(lloc.obtenirY());
+        long clau = clau(i, j);
+        cellesOcupades.computeIfAbsent(clau, c -> new ArrayList<>()).add(vehicle);
+        cellaVehicle.put(vehicle, clau);
+        minX = Math.min(minX, i);
+        maxX = Math.max(maxX, i);
+        minY = Math.min(minY, j);
+        maxY = Math.max(maxY, j);
+    }
+
+    private void extreure(Vehicle vehicle) {
+        Long clau = cellaVehicle.remove(vehicle);
+        if (clau == null) {
+            senseCoordenades.remove(vehicle);
+            return;
+        }
+        List<Vehicle> cella = cellesOcupades.get(clau);
+        cella.remove(vehicle);
+        if (cella.isEmpty()) {
+            cellesOcupades.remove(clau);
+        }
+    }
+
+    private int cella(double coordenada) {
+        return (int) Math.floor(coordenada / midaCella);
+    }
+
+    private long clau(Lloc lloc) {
+        return clau(cella(lloc.obtenirX()), cella(lloc.obtenirY()));
+    }
+
+    private static long clau(int i, int j) {
+        return ((long) i << 32) | (j & 0xffffffffL);
+    }
+}
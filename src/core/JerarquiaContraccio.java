@@ -0,0 +1,508 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * @class JerarquiaContraccio
+ * @brief Encaminador basat en una jerarquia de contracció (contraction
+ *        hierarchy).
+ * @details El preprocés contrau els llocs un a un, de menys a més importants,
+ *          i afegeix una drecera u -> x per a cada camí u -> v -> x que deixaria
+ *          de ser mínim en treure v. Una consulta fa dues cerques de Dijkstra
+ *          que només pugen en la jerarquia (des de l'origen pels camins cap
+ *          amunt i des del destí pels camins cap avall invertits) i es troben
+ *          al lloc més important del camí mínim. Les dreceres guarden els dos
+ *          camins que substitueixen, per poder desplegar el resultat fins als
+ *          llocs del mapa. La jerarquia de cada criteri es construeix la
+ *          primera vegada que es necessita.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.08
+ */
+public class JerarquiaContraccio extends Encaminador {
+
+    private static final int LIMIT_TESTIMONI = 500; /// < Llocs màxims que assenta una cerca de testimonis.
+    private static final int LIMIT_TESTIMONI_SIMULACIO = 50; /// < Límit quan només s'estima la prioritat.
+
+    private final GrafCSR graf; /// < Graf original.
+    private volatile Jerarquia jerarquiaTemps; /// < Jerarquia per temps, o null si no s'ha construït.
+    private volatile Jerarquia jerarquiaDistancia; /// < Jerarquia per distància, o null si no s'ha construït.
+    private final ThreadLocal<EspaiCerca[]> espais; /// < Espais de les cerques cap endavant i cap enrere de cada fil.
+
+    /**
+     * @pre graf != null
+     * @post Crea l'encaminador. Les jerarquies es construeixen quan es
+     *       demanen.
+     */
+    public JerarquiaContraccio(GrafCSR graf) {
+        this.graf = graf;
+        this.espais = ThreadLocal.withInitial(
+                () -> new EspaiCerca[] { new EspaiCerca(graf.nombreLlocs()), new EspaiCerca(graf.nombreLlocs()) });
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna TipusEncaminament.CONTRACCIO.
+     */
+    @Override
+    public TipusEncaminament obtenirTipus() {
+        return TipusEncaminament.CONTRACCIO;
+    }
+
+    /**
+     * @pre criteri != null
+     * @post Construeix ara la jerarquia del criteri si encara no existia.
+     */
+    public void preparar(CriteriCami criteri) {
+        jerarquia(criteri);
+    }
+
+    /**
+     * @pre criteri != null
+     * @post Retorna el nombre de dreceres afegides a la jerarquia del criteri.
+     */
+    public int nombreDreceres(CriteriCami criteri) {
+        return jerarquia(criteri).dreceres;
+    }
+
+    private Jerarquia jerarquia(CriteriCami criteri) {
+        Jerarquia j = criteri == CriteriCami.TEMPS ? jerarquiaTemps : jerarquiaDistancia;
+        if (j != null) {
+            return j;
+        }
+        synchronized (this) {
+            j = criteri == CriteriCami.TEMPS ? jerarquiaTemps : jerarquiaDistancia;
+            if (j == null) {
+                j = new Constructor(graf, criteri).construir();
+                if (criteri == CriteriCami.TEMPS) {
+                    jerarquiaTemps = j;
+                } else {
+                    jerarquiaDistancia = j;
+                }
+            }
+            return j;
+        }
+    }
+
+    /**
+     * @pre 0 <= origen, desti < graf.nombreLlocs()
+     * @post Retorna els índexs dels llocs del camí mínim d'origen a desti
+     *       (ambdós inclosos), o null si desti no és accessible.
+     */
+    @Override
+    public int[] cercar(int origen, int desti, CriteriCami criteri) {
+        Jerarquia j = jerarquia(criteri);
+        if (origen == desti) {
+            registrarConsulta(1);
+            return new int[] { origen };
+        }
+        EspaiCerca[] e = espais.get();
+        EspaiCerca endavant = e[0];
+        EspaiCerca enrere = e[1];
+        endavant.iniciar(origen);
+        enrere.iniciar(desti);
+        HeapIndexat heapEndavant = endavant.heap;
+        HeapIndexat heapEnrere = enrere.heap;
+
+        double millor = Double.POSITIVE_INFINITY;
+        int trobada = -1;
+        int assentats = 0;
+        while (true) {
+            boolean potEndavant = !heapEndavant.esBuit() && heapEndavant.clauMinima() < millor;
+            boolean potEnrere = !heapEnrere.esBuit() && heapEnrere.clauMinima() < millor;
+            if (!potEndavant && !potEnrere) {
+                break;
+            }
+            if (potEndavant && (!potEnrere || heapEndavant.clauMinima() <= heapEnrere.clauMinima())) {
+                double du = heapEndavant.clauMinima();
+                int u = heapEndavant.extreureMinim();
+                endavant.tancar(u);
+                assentats++;
+                if (enrere.esVisitat(u) && du + enrere.distancia(u) < millor) {
+                    millor = du + enrere.distancia(u);
+                    trobada = u;
+                }
+                for (int k = j.iniciPujada[u], fi = j.iniciPujada[u + 1]; k < fi; k++) {
+                    int a = j.arestesPujada[k];
+                    int v = j.a[a];
+                    if (!endavant.esTancat(v) && endavant.relaxar(v, du + j.pes[a], a)) {
+                        heapEndavant.inserirODisminuir(v, du + j.pes[a]);
+                    }
+                }
+            } else {
+                double du = heapEnrere.clauMinima();
+                int u = heapEnrere.extreureMinim();
+                enrere.tancar(u);
+                assentats++;
+                if (endavant.esVisitat(u) && du + endavant.distancia(u) < millor) {
+                    millor = du + endavant.distancia(u);
+                    trobada = u;
+                }
+                for (int k = j.iniciBaixada[u], fi = j.iniciBaixada[u + 1]; k < fi; k++) {
+                    int a = j.arestesBaixada[k];
+                    int v = j.de[a];
+                    if (!enrere.esTancat(v) && enrere.relaxar(v, du + j.pes[a], a)) {
+                        heapEnrere.inserirODisminuir(v, du + j.pes[a]);
+                    }
+                }
+            }
+        }
+        heapEndavant.buidar();
+        heapEnrere.buidar();
+        registrarConsulta(assentats);
+        if (trobada < 0) {
+            return null;
+        }
+        return j.desplegar(origen, trobada, endavant, enrere);
+    }
+
+    /**
+     * @class Jerarquia
+     * @brief Arestes (originals i dreceres) d'una jerarquia ja construïda,
+     *        separades en les que pugen i les que baixen de rang.
+     */
+    private static final class Jerarquia {
+        private final int[] de; /// < Origen de cada aresta.
+        private final int[] a; /// < Destí de cada aresta.
+        private final double[] pes; /// < Pes de cada aresta.
+        private final int[] fill1; /// < Primera aresta que substitueix una drecera, o -1.
+        private final int[] fill2; /// < Segona aresta que substitueix una drecera, o -1.
+        private final int[] iniciPujada; /// < Posició de les arestes que pugen des de cada lloc.
+        private final int[] arestesPujada; /// < Arestes u -> v amb rang(v) > rang(u), agrupades per u.
+        private final int[] iniciBaixada; /// < Posició de les arestes que baixen fins a cada lloc.
+        private final int[] arestesBaixada; /// < Arestes u -> v amb rang(u) > rang(v), agrupades per v.
+        private final int dreceres; /// < Nombre de dreceres.
+
+        Jerarquia(int n, int m, int[] de, int[] a, double[] pes, int[] fill1, int[] fill2, int[] rang,
+                int dreceres) {
+            this.de = Arrays.copyOf(de, m);
+            this.a = Arrays.copyOf(a, m);
+            this.pes = Arrays.copyOf(pes, m);
+            this.fill1 = Arrays.copyOf(fill1, m);
+            this.fill2 = Arrays.copyOf(fill2, m);
+            this.dreceres = dreceres;
+
+            iniciPujada = new int[n + 1];
+            iniciBaixada = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                if (rang[a[e]] > rang[de[e]]) {
+                    iniciPujada[de[e] + 1]++;
+                } else {
+                    iniciBaixada[a[e] + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                iniciPujada[i + 1] += iniciPujada[i];
+                iniciBaixada[i + 1] += iniciBaixada[i];
+            }
+            arestesPujada = new int[iniciPujada[n]];
+            arestesBaixada = new int[iniciBaixada[n]];
+            int[] posPujada = Arrays.copyOf(iniciPujada, n);
+            int[] posBaixada = Arrays.copyOf(iniciBaixada, n);
+            for (int e = 0; e < m; e++) {
+                if (rang[a[e]] > rang[de[e]]) {
+                    arestesPujada[posPujada[de[e]]++] = e;
+                } else {
+                    arestesBaixada[posBaixada[a[e]]++] = e;
+                }
+            }
+        }
+
+        /**
+         * @pre Les dues cerques s'han trobat a trobada.
+         * @post Retorna el camí d'origen a desti en llocs del graf original,
+         *       desplegant les dreceres.
+         */
+        int[] desplegar(int origen, int trobada, EspaiCerca endavant, EspaiCerca enrere) {
+            int[] pila = new int[16];
+            int cim = 0;
+            for (int v = trobada; endavant.anterior(v) >= 0; v = de[endavant.anterior(v)]) {
+                pila = apilar(pila, cim++, endavant.anterior(v));
+            }
+            int[] arestes = new int[cim + 16];
+            int nArestes = 0;
+            while (cim > 0) {
+                arestes = apilar(arestes, nArestes++, pila[--cim]);
+            }
+            for (int v = trobada; enrere.anterior(v) >= 0; v = a[enrere.anterior(v)]) {
+                arestes = apilar(arestes, nArestes++, enrere.anterior(v));
+            }
+
+            int[] cami = new int[nArestes + 1];
+            int longitud = 0;
+            cami[longitud++] = origen;
+            for (int i = 0; i < nArestes; i++) {
+                pila = apilar(pila, cim++, arestes[i]);
+                while (cim > 0) {
+                    int e = pila[--cim];
+                    if (fill1[e] < 0) {
+                        cami = apilar(cami, longitud++, a[e]);
+                    } else {
+                        pila = apilar(pila, cim++, fill2[e]);
+                        pila = apilar(pila, cim++, fill1[e]);
+                    }
+                }
+            }
+            return Arrays.copyOf(cami, longitud);
+        }
+
+        private static int[] apilar(int[] v, int posicio, int valor) {
+            if (posicio == v.length) {
+                v = Arrays.copyOf(v, v.length * 2);
+            }
+            v[posicio] = valor;
+            return v;
+        }
+    }
+
+    /**
+     * @class Constructor
+     * @brief Preprocés que ordena i contrau els llocs d'un graf per a un
+     *        criteri.
+     * @details L'ordre de contracció es tria amb una cua de prioritat
+     *          actualitzada de manera mandrosa. La prioritat d'un lloc és la
+     *          diferència entre les dreceres que caldria afegir i els camins
+     *          que s'eliminarien, més el nombre de veïns ja contrets, de manera
+     *          que la contracció es reparteix per tot el mapa.
+     */
+    private static final class Constructor {
+        private final int n; /// < Nombre de llocs.
+        private int m; /// < Nombre d'arestes.
+        private int[] de = new int[16]; /// < Origen de cada aresta.
+        private int[] a = new int[16]; /// < Destí de cada aresta.
+        private double[] pes = new double[16]; /// < Pes de cada aresta.
+        private int[] fill1 = new int[16]; /// < Primera aresta substituïda, o -1.
+        private int[] fill2 = new int[16]; /// < Segona aresta substituïda, o -1.
+        private final int[][] sortints; /// < Arestes sortints de cada lloc.
+        private final int[] nSortints; /// < Nombre d'arestes sortints de cada lloc.
+        private final int[][] entrants; /// < Arestes entrants de cada lloc.
+        private final int[] nEntrants; /// < Nombre d'arestes entrants de cada lloc.
+        private final boolean[] contret; /// < Si el lloc ja s'ha contret.
+        private final int[] veinsContrets; /// < Veïns de cada lloc que ja s'han contret.
+        private final int[] rang; /// < Ordre de contracció de cada lloc.
+        private final EspaiCerca testimoni; /// < Espai de les cerques de testimonis.
+        private int dreceres; /// < Dreceres afegides.
+
+        Constructor(GrafCSR graf, CriteriCami criteri) {
+            n = graf.nombreLlocs();
+            sortints = new int[n][];
+            entrants = new int[n][];
+            nSortints = new int[n];
+            nEntrants = new int[n];
+            for (int i = 0; i < n; i++) {
+                sortints[i] = new int[4];
+                entrants[i] = new int[4];
+            }
+            contret = new boolean[n];
+            veinsContrets = new int[n];
+            rang = new int[n];
+            testimoni = new EspaiCerca(n);
+
+            double[] pesos = graf.pesos(criteri);
+            for (int u = 0; u < n; u++) {
+                for (int c = graf.primerCami(u), fi = graf.fiCamins(u); c < fi; c++) {
+                    int v = graf.desti(c);
+                    if (v == u) {
+                        continue;
+                    }
+                    int existent = buscarAresta(u, v);
+                    if (existent < 0) {
+                        afegirAresta(u, v, pesos[c], -1, -1);
+                    } else if (pesos[c] < pes[existent]) {
+                        pes[existent] = pesos[c]; // camins paral·lels: es queda el millor
+                    }
+                }
+            }
+        }
+
+        Jerarquia construir() {
+            HeapIndexat cua = new HeapIndexat(n);
+            for (int v = 0; v < n; v++) {
+                cua.inserirODisminuir(v, prioritat(v));
+            }
+            int seguentRang = 0;
+            while (!cua.esBuit()) {
+                int v = cua.extreureMinim();
+                double p = prioritat(v);
+                if (!cua.esBuit() && p > cua.clauMinima()) {
+                    cua.inserirODisminuir(v, p);
+                    continue;
+                }
+                contreure(v, false);
+                contret[v] = true;
+                rang[v] = seguentRang++;
+                for (int k = 0; k < nSortints[v]; k++) {
+                    veinsContrets[a[sortints[v][k]]]++;
+                }
+                for (int k = 0; k < nEntrants[v]; k++) {
+                    veinsContrets[de[entrants[v][k]]]++;
+                }
+                desconnectar(v);
+            }
+            return new Jerarquia(n, m, de, a, pes, fill1, fill2, rang, dreceres);
+        }
+
+        private double prioritat(int v) {
+            int actius = 0;
+            for (int k = 0; k < nSortints[v]; k++) {
+                if (!contret[a[sortints[v][k]]]) {
+                    actius++;
+                }
+            }
+            for (int k = 0; k < nEntrants[v]; k++) {
+                if (!contret[de[entrants[v][k]]]) {
+                    actius++;
+                }
+            }
+            return contreure(v, true) - actius + veinsContrets[v];
+        }
+
+        /**
+         * @pre !contret[v]
+         * @post Retorna les dreceres necessàries per contreure v i, si no és
+         *       una simulació, les afegeix.
+         */
+        private int contreure(int v, boolean simular) {
+            int necessaries = 0;
+            for (int ki = 0; ki < nEntrants[v]; ki++) {
+                int entrada = entrants[v][ki];
+                int u = de[entrada];
+                if (contret[u]) {
+                    continue;
+                }
+                double maxim = -1.0;
+                for (int ks = 0; ks < nSortints[v]; ks++) {
+                    int x = a[sortints[v][ks]];
+                    if (x != u && !contret[x]) {
+                        maxim = Math.max(maxim, pes[entrada] + pes[sortints[v][ks]]);
+                    }
+                }
+                if (maxim < 0) {
+                    continue;
+                }
+                cercarTestimonis(u, v, maxim, simular ? LIMIT_TESTIMONI_SIMULACIO : LIMIT_TESTIMONI);
+                for (int ks = 0; ks < nSortints[v]; ks++) {
+                    int sortida = sortints[v][ks];
+                    int x = a[sortida];
+                    if (x == u || contret[x]) {
+                        continue;
+                    }
+                    double via = pes[entrada] + pes[sortida];
+                    if (testimoni.esVisitat(x) && testimoni.distancia(x) <= via) {
+                        continue;
+                    }
+                    necessaries++;
+                    if (!simular) {
+                        afegirDrecera(u, x, via, entrada, sortida);
+                    }
+                }
+            }
+            return necessaries;
+        }
+
+        /**
+         * @pre Cert.
+         * @post Fa Dijkstra des d'u pels llocs no contrets sense passar per
+         *       exclos, fins a superar maxim o assentar limit llocs.
+         */
+        private void cercarTestimonis(int u, int exclos, double maxim, int limit) {
+            testimoni.iniciar(u);
+            HeapIndexat heap = testimoni.heap;
+            int assentats = 0;
+            while (!heap.esBuit() && heap.clauMinima() <= maxim && assentats < limit) {
+                double d = heap.clauMinima();
+                int w = heap.extreureMinim();
+                testimoni.tancar(w);
+                assentats++;
+                for (int k = 0; k < nSortints[w]; k++) {
+                    int e = sortints[w][k];
+                    int y = a[e];
+                    if (y == exclos || contret[y] || testimoni.esTancat(y)) {
+                        continue;
+                    }
+                    if (testimoni.relaxar(y, d + pes[e], w)) {
+                        heap.inserirODisminuir(y, d + pes[e]);
+                    }
+                }
+            }
+            heap.buidar();
+        }
+
+        private void afegirDrecera(int u, int x, double via, int entrada, int sortida) {
+            int existent = buscarAresta(u, x);
+            if (existent >= 0 && pes[existent] <= via) {
+                return;
+            }
+            if (existent >= 0 && fill1[existent] >= 0) {
+                pes[existent] = via;
+                fill1[existent] = entrada;
+                fill2[existent] = sortida;
+                return;
+            }
+            afegirAresta(u, x, via, entrada, sortida);
+            dreceres++;
+        }
+
+        /**
+         * @pre contret[v]
+         * @post Treu les arestes de v de les llistes dels veïns, perquè les
+         *       cerques posteriors només recorrin el graf que queda. Les
+         *       arestes es conserven per a la jerarquia final.
+         */
+        private void desconnectar(int v) {
+            for (int k = 0; k < nEntrants[v]; k++) {
+                int e = entrants[v][k];
+                treure(sortints[de[e]], nSortints, de[e], e);
+            }
+            for (int k = 0; k < nSortints[v]; k++) {
+                int e = sortints[v][k];
+                treure(entrants[a[e]], nEntrants, a[e], e);
+            }
+        }
+
+        private static void treure(int[] llista, int[] mides, int lloc, int aresta) {
+            for (int k = 0; k < mides[lloc]; k++) {
+                if (llista[k] == aresta) {
+                    llista[k] = llista[--mides[lloc]];
+                    return;
+                }
+            }
+        }
+
+        private int buscarAresta(int u, int v) {
+            int millor = -1;
+            for (int k = 0; k < nSortints[u]; k++) {
+                int e = sortints[u][k];
+                if (a[e] == v && (millor < 0 || pes[e] < pes[millor])) {
+                    millor = e;
+                }
+            }
+            return millor;
+        }
+
+        private void afegirAresta(int u, int v, double p, int f1, int f2) {
+            if (m == de.length) {
+                int mida = m * 2;
+                de = Arrays.copyOf(de, mida);
+                a = Arrays.copyOf(a, mida);
+                pes = Arrays.copyOf(pes, mida);
+                fill1 = Arrays.copyOf(fill1, mida);
+                fill2 = Arrays.copyOf(fill2, mida);
+            }
+            de[m] = u;
+            a[m] = v;
+            pes[m] = p;
+            fill1[m] = f1;
+            fill2[m] = f2;
+            if (nSortints[u] == sortints[u].length) {
+                sortints[u] = Arrays.copyOf(sortints[u], nSortints[u] * 2);
+            }
+            sortints[u][nSortints[u]++] = m;
+            if (nEntrants[v] == entrants[v].length) {
+                entrants[v] = Arrays.copyOf(entrants[v], nEntrants[v] * 2);
+            }
+            entrants[v][nEntrants[v]++] = m;
+            m++;
+        }
+    }
+}
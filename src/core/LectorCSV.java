@@ -3,7 +3,6 @@ package core;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -19,7 +18,9 @@ public class LectorCSV {
 
     /**
      * @pre pathFitxer != null
-     * @post Carrega una llista de llocs des d'un fitxer CSV.
+     * @post Carrega una llista de llocs des d'un fitxer CSV. Si la capçalera
+     *       té les columnes opcionals X i Y, els llocs que les tinguin
+     *       informades en reben les coordenades.
      * @param pathFitxer
      * @return Llista de llocs carregats
      */
@@ -27,13 +28,26 @@ public class LectorCSV {
         List<Lloc> llocs = new ArrayList<>();
 
         try (BufferedReader lector = new BufferedReader(new FileReader(pathFitxer))) {
-            String linia = lector.readLine(); // saltem la capçalera
+            String linia = lector.readLine(); // capçalera
+            int columnaX = -1;
+            int columnaY = -1;
+            if (linia != null) {
+                String[] capcalera = linia.split(",");
+                for (int i = 0; i < capcalera.length; i++) {
+                    if (capcalera[i].trim().equalsIgnoreCase("X")) {
+                        columnaX = i;
+                    } else if (capcalera[i].trim().equalsIgnoreCase("Y")) {
+                        columnaY = i;
+                    }
+                }
+            }
 
             while ((linia = lector.readLine()) != null) {
                 String[] camps = linia.split(",");
 
                 int id = Integer.parseInt(camps[0].trim());
                 char tipus = camps[1].trim().charAt(0);
+                int carregats = llocs.size();
 
                 if (tipus == 'L') {
                     // Localització normal
@@ -61,6 +75,12 @@ public class LectorCSV {
                 } else {
                     System.err.println("Tipus desconegut: " + tipus + " a la línia: " + linia);
                 }
+                if (llocs.size() > carregats && columnaX < camps.length && columnaY < camps.length
+                        && columnaX >= 0 && columnaY >= 0
+                        && !camps[columnaX].isBlank() && !camps[columnaY].isBlank()) {
+                    llocs.get(carregats).assignarCoordenades(Double.parseDouble(camps[columnaX].trim()),
+                            Double.parseDouble(camps[columnaY].trim()));
+                }
             }
 
         } catch (IOException | NumberFormatException e) {
@@ -127,8 +147,8 @@ public class LectorCSV {
                 int id = Integer.parseInt(camps[0].trim());
                 int idOrigen = Integer.parseInt(camps[1].trim());
                 int idDesti = Integer.parseInt(camps[2].trim());
-                LocalTime horaMinRecollida = LocalTime.parse(camps[3].trim());
-                LocalTime horaMaxArribada = LocalTime.parse(camps[4].trim());
+                long horaMinRecollida = Temps.llegir(camps[3]);
+                long horaMaxArribada = Temps.llegir(camps[4]);
                 int numPassatgers = Integer.parseInt(camps[5].trim());
                 boolean vehicleCompartit = Boolean.parseBoolean(camps[6].trim());
 
@@ -15,7 +15,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -27,6 +26,7 @@ import events.FiCarregaEvent;
 import events.FiRutaEvent;
 import events.IniciRutaEvent;
 import events.MoureVehicleEvent;
+import events.PeticioArribadaEvent;
 import events.RecollirPassatgersEvent;
 
 /**
@@ -96,6 +96,8 @@ public class LectorJSON {
      * generar punts de càrrega públics i privats amb tipus alternatius
      * (ràpida/lenta).
      *
+     * Els camps opcionals "X" i "Y" donen les coordenades del lloc.
+     *
      * @param pathFitxer Ruta del fitxer JSON que conté les dades dels llocs.
      * @return Una llista de Llocs i Parquings carregats des del fitxer.
      */
@@ -127,6 +129,8 @@ public class LectorJSON {
         );
 
         Matcher matcher = pattern.matcher(llocsContent);
+        Pattern patroX = Pattern.compile("\"X\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)");
+        Pattern patroY = Pattern.compile("\"Y\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)");
 
         while (matcher.find()) {
             int id = Integer.parseInt(matcher.group(1));
@@ -154,6 +158,12 @@ public class LectorJSON {
             } else {
                 llocs.add(new Lloc(id));
             }
+            Matcher x = patroX.matcher(matcher.group());
+            Matcher y = patroY.matcher(matcher.group());
+            if (x.find() && y.find()) {
+                llocs.get(llocs.size() - 1).assignarCoordenades(Double.parseDouble(x.group(1)),
+                        Double.parseDouble(y.group(1)));
+            }
         }
 
         System.out.println("Llocs carregats: " + llocs.size());
@@ -409,14 +419,16 @@ public class LectorJSON {
     /**
      * Carrega l'horari d'inici i final a partir d'un fitxer JSON.
      *
-     * El fitxer ha de contenir els camps "horaInici" i "horaFinal" amb format
-     * d'hora (HH:mm).
+     * El fitxer ha de contenir els camps "horaInici" i "horaFinal" en el
+     * format de Temps.text() (HH:mm, o d+HH:mm a partir del segon dia). Si
+     * l'hora final no és posterior a la d'inici, s'entén que és del dia
+     * següent.
      *
      * @param pathFitxer Ruta del fitxer JSON que conté l'horari.
-     * @return Un array de dos valors LocalTime: [horaInici, horaFinal], o null
+     * @return Un array de dos valors en ticks: [horaInici, horaFinal], o null
      * si hi ha error.
      */
-    public static LocalTime[] carregarHorari(String pathFitxer) {
+    public static long[] carregarHorari(String pathFitxer) {
         String jsonContent = llegirFitxerComplet(pathFitxer);
 
         // Patró corregit per extreure horaInici i horaFinal
@@ -428,9 +440,12 @@ public class LectorJSON {
 
         if (matcher.find()) {
             try {
-                LocalTime horaInici = LocalTime.parse(matcher.group(1));
-                LocalTime horaFinal = LocalTime.parse(matcher.group(2));
-                return new LocalTime[]{horaInici, horaFinal};
+                long horaInici = Temps.llegir(matcher.group(1));
+                long horaFinal = Temps.llegir(matcher.group(2));
+                if (horaFinal <= horaInici) {
+                    horaFinal += Temps.SEGONS_DIA;
+                }
+                return new long[]{horaInici, horaFinal};
             } catch (Exception e) {
                 System.err.println("Error parsejant hores: " + e.getMessage());
                 e.printStackTrace();
@@ -472,7 +487,7 @@ public class LectorJSON {
         Matcher arrayMatcher = arrayPattern.matcher(jsonContent);
 
         if (!arrayMatcher.find()) {
-            System.out.println("No se encontró el array de eventos en el JSON");
+            Registre.avis(() -> "No s'ha trobat l'array d'esdeveniments al JSON");
             return events;
         }
 
@@ -488,11 +503,13 @@ public class LectorJSON {
 
         while (matcher.find()) {
             try {
-                LocalTime temps = LocalTime.parse(matcher.group(1));
+                long temps = Temps.llegir(matcher.group(1));
                 String eventType = matcher.group(2);
                 String eventData = matcher.group(3).trim();
 
-                System.out.println("Procesando evento tipo: " + eventType);
+                if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                    Registre.escriure(Registre.Nivell.DEPURACIO, "Processant esdeveniment de tipus " + eventType);
+                }
 
                 Event event = crearEventFromData(eventType, temps, eventData,
                         vehiclesPerId, conductorsPerId, llocsPerId);
@@ -505,7 +522,7 @@ public class LectorJSON {
             }
         }
 
-        System.out.println("Total eventos leídos: " + events.size());
+        Registre.depuracio(() -> "Esdeveniments llegits: " + events.size());
         return events;
     }
 
@@ -540,8 +557,11 @@ public class LectorJSON {
 
             String eventsContent = eventsMatcher.group(1);
 
-            // Buscar cada objecte JSON dins l'array
-            Pattern eventPattern = Pattern.compile("\\{(?:[^{}]*+|\\{(?:[^{}]*+|\\{[^{}]*+\\})*+\\})*+\\}");
+            // Buscar cada objecte JSON dins l'array, amb fins a dos nivells d'objectes
+            // niats (la ruta d'IniciRuta). Les alternatives de text consumeixen almenys un
+            // caràcter: si poguessin ser buides, la repetició possessiva s'aturaria davant
+            // del primer '{' niat i només es trobaria l'objecte interior.
+            Pattern eventPattern = Pattern.compile("\\{(?:[^{}]++|\\{(?:[^{}]++|\\{[^{}]*+\\})*+\\})*+\\}");
             Matcher matcher = eventPattern.matcher(eventsContent);
 
             while (matcher.find()) {
@@ -556,7 +576,7 @@ public class LectorJSON {
                 }
 
                 try {
-                    LocalTime temps = LocalTime.parse(tempsStr);
+                    long temps = Temps.llegir(tempsStr);
                     Event event = crearEventFromData(type, temps, eventData, vehiclesPerId, conductorsPerId, llocsPerId);
                     if (event != null) {
                         events.add(event);
@@ -628,7 +648,7 @@ public class LectorJSON {
      * @param llocsPerId Mapa de llocs indexats pel seu ID.
      * @return Un objecte Event corresponent al tipus d'esdeveniment.
      */
-    private static Event crearEventFromData(String eventType, LocalTime temps, String eventData,
+    private static Event crearEventFromData(String eventType, long temps, String eventData,
             Map<Integer, Vehicle> vehiclesPerId,
             Map<Integer, Conductor> conductorsPerId,
             Map<Integer, Lloc> llocsPerId) {
@@ -648,6 +668,8 @@ public class LectorJSON {
                     return parseCarregarBateriaEvent(temps, eventData, vehiclesPerId, conductorsPerId);
                 case "FiCarrega":
                     return parseFiCarregaEvent(temps, eventData, conductorsPerId);
+                case "PeticioArribada":
+                    return parsePeticioArribadaEvent(temps, eventData, llocsPerId);
                 default:
                     System.err.println("Tipus d'event desconegut: " + eventType);
                     return null;
@@ -670,7 +692,7 @@ public class LectorJSON {
      * @param llocsPerId Mapa de llocs indexats pel seu ID.
      * @return Un objecte RecollirPassatgersEvent corresponent a les dades.
      */
-    private static Event parseRecollirPassatgersEvent(LocalTime temps, String data,
+    private static Event parseRecollirPassatgersEvent(long temps, String data,
             Map<Integer, Conductor> conductorsPerId,
             Map<Integer, Lloc> llocsPerId) {
         Pattern p = Pattern.compile(
@@ -708,7 +730,7 @@ public class LectorJSON {
      * @param llocsPerId Mapa de llocs indexats pel seu ID.
      * @return Un objecte DeixarPassatgersEvent corresponent a les dades.
      */
-    private static Event parseDeixarPassatgersEvent(LocalTime temps, String data,
+    private static Event parseDeixarPassatgersEvent(long temps, String data,
             Map<Integer, Conductor> conductorsPerId,
             Map<Integer, Lloc> llocsPerId) {
         Pattern p = Pattern.compile(
@@ -743,7 +765,7 @@ public class LectorJSON {
      * @param llocsPerId Mapa de llocs indexats pel seu ID.
      * @return Un objecte MoureVehicleEvent corresponent a les dades.
      */
-    private static Event parseMoureVehicleEvent(LocalTime temps, String data,
+    private static Event parseMoureVehicleEvent(long temps, String data,
             Map<Integer, Vehicle> vehiclesPerId,
             Map<Integer, Lloc> llocsPerId) {
         Pattern p = Pattern.compile(
@@ -780,7 +802,7 @@ public class LectorJSON {
      * @return Un objecte IniciRutaEvent corresponent a les dades.
      */
     // Ejemplo para IniciRutaEvent
-    private static Event parseIniciRutaEvent(LocalTime temps, String data,
+    private static Event parseIniciRutaEvent(long temps, String data,
             Map<Integer, Conductor> conductorsPerId,
             Map<Integer, Vehicle> vehiclesPerId,
             Map<Integer, Lloc> llocsPerId) {
@@ -817,7 +839,7 @@ public class LectorJSON {
 
                 double distanciaTotal = Double.parseDouble(m.group(4));
                 double tempsTotal = Double.parseDouble(m.group(5));
-                LocalTime horaInici = LocalTime.parse(m.group(6));
+                long horaInici = Temps.llegir(m.group(6));
                 boolean esRutaCarrega = Boolean.parseBoolean(m.group(7));
 
                 if (conductor != null && vehicle != null && !llocsRuta.isEmpty()) {
@@ -845,7 +867,7 @@ public class LectorJSON {
      * @param conductorsPerId Mapa de conductors indexats pel seu ID.
      * @return Un objecte FiRutaEvent corresponent a les dades.
      */
-    private static Event parseFiRutaEvent(LocalTime temps, String data,
+    private static Event parseFiRutaEvent(long temps, String data,
             Map<Integer, Conductor> conductorsPerId) {
         Pattern p = Pattern.compile(
                 "\"conductorId\"\\s*:\\s*(\\d+)");
@@ -862,6 +884,15 @@ public class LectorJSON {
         return null;
     }
 
+    /**
+     * @pre data != null
+     * @post Retorna si les dades d'un esdeveniment de càrrega diuen que és una
+     *       parada d'una ruta en curs.
+     */
+    private static boolean esParada(String data) {
+        return Pattern.compile("\"parada\"\\s*:\\s*true").matcher(data).find();
+    }
+
     /**
      * Parsea un event de tipus FiCarrega a partir de les dades extretes del
      * JSON.
@@ -871,7 +902,7 @@ public class LectorJSON {
      * @param conductorsPerId Mapa de conductors indexats pel seu ID.
      * @return Un objecte FiCarregaEvent corresponent a les dades.
      */
-    private static Event parseFiCarregaEvent(LocalTime temps, String data,
+    private static Event parseFiCarregaEvent(long temps, String data,
             Map<Integer, Conductor> conductorsPerId) {
         Pattern p = Pattern.compile(
                 "\"conductorId\"\\s*:\\s*(\\d+)");
@@ -882,7 +913,7 @@ public class LectorJSON {
             Conductor conductor = conductorsPerId.get(conductorId);
 
             if (conductor != null) {
-                return new FiCarregaEvent(temps, conductor);
+                return new FiCarregaEvent(temps, conductor, esParada(data));
             } else {
                 System.err.println("Conductor no trobat amb ID: " + conductorId);
             }
@@ -890,6 +921,42 @@ public class LectorJSON {
         return null;
     }
 
+    /**
+     * Parsea un event de tipus PeticioArribada a partir de les dades extretes
+     * del JSON.
+     *
+     * @param temps Hora de l'esdeveniment.
+     * @param data Dades específiques de l'esdeveniment.
+     * @param llocsPerId Mapa de llocs indexats pel seu ID.
+     * @return Un objecte PeticioArribadaEvent amb una petició nova.
+     */
+    private static Event parsePeticioArribadaEvent(long temps, String data,
+            Map<Integer, Lloc> llocsPerId) {
+        Pattern p = Pattern.compile(
+                "\"peticioId\"\\s*:\\s*(\\d+)\\s*,\\s*"
+                + "\"origenId\"\\s*:\\s*(\\d+)\\s*,\\s*"
+                + "\"destiId\"\\s*:\\s*(\\d+)\\s*,\\s*"
+                + "\"horaMinimaRecollida\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*"
+                + "\"horaMaximaArribada\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*"
+                + "\"numPassatgers\"\\s*:\\s*(\\d+)\\s*,\\s*"
+                + "\"compartit\"\\s*:\\s*(true|false)");
+
+        Matcher m = p.matcher(data);
+        if (m.find()) {
+            Lloc origen = llocsPerId.get(Integer.parseInt(m.group(2)));
+            Lloc desti = llocsPerId.get(Integer.parseInt(m.group(3)));
+
+            if (origen != null && desti != null) {
+                Peticio peticio = new Peticio(Integer.parseInt(m.group(1)), origen, desti, Temps.llegir(m.group(4)),
+                        Temps.llegir(m.group(5)), Integer.parseInt(m.group(6)), Boolean.parseBoolean(m.group(7)));
+                return new PeticioArribadaEvent(temps, peticio);
+            } else {
+                System.err.println("Datos incompletos para PeticioArribadaEvent");
+            }
+        }
+        return null;
+    }
+
     /**
      * Parsea un event de tipus CarregarBateria a partir de les dades extretes
      * del JSON.
@@ -900,7 +967,7 @@ public class LectorJSON {
      * @param conductorsPerId Mapa de conductors indexats pel seu ID.
      * @return Un objecte CarregarBateriaEvent corresponent a les dades.
      */
-    private static Event parseCarregarBateriaEvent(LocalTime temps, String data,
+    private static Event parseCarregarBateriaEvent(long temps, String data,
             Map<Integer, Vehicle> vehiclesPerId,
             Map<Integer, Conductor> conductorsPerId) {
         Pattern p = Pattern.compile(
@@ -918,7 +985,7 @@ public class LectorJSON {
             Conductor conductor = conductorsPerId.get(conductorId);
 
             if (vehicle != null && conductor != null) {
-                return new CarregarBateriaEvent(temps, vehicle, duracio, conductor);
+                return new CarregarBateriaEvent(temps, vehicle, duracio, conductor, esParada(data));
             } else {
                 if (vehicle == null) {
                     System.err.println("Vehicle no trobat amb ID: " + vehicleId);
@@ -941,7 +1008,9 @@ public class LectorJSON {
      * @param connexions Llista de connexions a escriure al fitxer.
      * @param peticions Llista de peticions a escriure al fitxer.
      * @param estadistiques Estadístiques a escriure al fitxer.
-     * @param events Llista d'esdeveniments a escriure al fitxer.
+     * @param events Esdeveniments a escriure al fitxer, en ordre d'execució.
+     * @param horaInici Hora d'inici de la simulació, en ticks.
+     * @param horaFi Hora de finalització de la simulació, en ticks.
      * @param filePath Ruta del fitxer JSON on s'escriurà la informació.
      * @throws IOException Si hi ha un error d'entrada/sortida durant
      * l'escriptura del fitxer.
@@ -949,7 +1018,8 @@ public class LectorJSON {
     // METODES D ESCRIPTURA
     public static void writeJsonFile(List<Conductor> conductors, List<Vehicle> vehicles, List<Lloc> llocs,
             List<Cami> connexions, List<Peticio> peticions,
-            Estadistiques estadistiques, PriorityQueue<Event> events, String filePath) throws IOException {
+            Estadistiques estadistiques, Iterable<Event> events, long horaInici, long horaFi, String filePath)
+            throws IOException {
 
         StringBuilder jsonBuilder = new StringBuilder();
         jsonBuilder.append("{\n");
@@ -966,9 +1036,14 @@ public class LectorJSON {
                 jsonBuilder.append("      \"N_CARREGADORS\": ").append(p.obtenirPuntsCarregaPublics()).append(",\n");
                 jsonBuilder.append("      \"N_CARREGADORS_PRIVATS\": ").append(p.obtenirPuntsCarregaPrivats())
                         .append(",\n");
-                jsonBuilder.append("      \"MAX_VEHICLES\": ").append(p.obtenirCapacitatMaxima()).append("\n");
+                jsonBuilder.append("      \"MAX_VEHICLES\": ").append(p.obtenirCapacitatMaxima())
+                        .append(lloc.teCoordenades() ? ",\n" : "\n");
             } else {
-                jsonBuilder.append("      \"TIPUS\": \"").append("L").append("\"\n");
+                jsonBuilder.append("      \"TIPUS\": \"").append("L").append("\"").append(lloc.teCoordenades() ? ",\n" : "\n");
+            }
+            if (lloc.teCoordenades()) {
+                jsonBuilder.append("      \"X\": ").append(lloc.obtenirX()).append(",\n");
+                jsonBuilder.append("      \"Y\": ").append(lloc.obtenirY()).append("\n");
             }
             jsonBuilder.append("    }").append(i < llocs.size() - 1 ? ",\n" : "\n");
         }
@@ -1039,9 +1114,9 @@ public class LectorJSON {
             jsonBuilder.append("      \"ID\": ").append(peticio.obtenirId()).append(",\n");
             jsonBuilder.append("      \"ORIGEN\": ").append(peticio.obtenirOrigen().obtenirId()).append(",\n");
             jsonBuilder.append("      \"DESTI\": ").append(peticio.obtenirDesti().obtenirId()).append(",\n");
-            jsonBuilder.append("      \"HORA_MIN_RECOLLIDA\": \"").append(peticio.obtenirHoraMinimaRecollida())
+            jsonBuilder.append("      \"HORA_MIN_RECOLLIDA\": \"").append(Temps.text(peticio.obtenirHoraMinimaRecollida()))
                     .append("\",\n");
-            jsonBuilder.append("      \"HORA_MAX_ARRIBADA\": \"").append(peticio.obtenirHoraMaximaArribada())
+            jsonBuilder.append("      \"HORA_MAX_ARRIBADA\": \"").append(Temps.text(peticio.obtenirHoraMaximaArribada()))
                     .append("\",\n");
             jsonBuilder.append("      \"NUM_PASSATGERS\": ").append(peticio.obtenirNumPassatgers()).append(",\n");
             jsonBuilder.append("      \"VEHICLE_COMPARTIT\": ").append(peticio.esVehicleCompartit()).append("\n");
@@ -1049,23 +1124,43 @@ public class LectorJSON {
         }
         jsonBuilder.append("  ],\n");
 
-        // 6. Escribir "horaInici" y "horaFinal" (se mantiene igual)
-        jsonBuilder.append("  \"horaInici\": \"08:00\",\n");
-        jsonBuilder.append("  \"horaFinal\": \"20:00\",\n");
+        // 6. Escribir "horaInici" y "horaFinal"
+        jsonBuilder.append("  \"horaInici\": \"").append(Temps.text(horaInici)).append("\",\n");
+        jsonBuilder.append("  \"horaFinal\": \"").append(Temps.text(horaFi)).append("\",\n");
 
         // 7. Escribir "events"
         jsonBuilder.append("  \"events\": [\n");
 
-        // Convert PriorityQueue to a list while preserving order
-        List<Event> eventsList = new ArrayList<>();
-        while (!events.isEmpty()) {
-            eventsList.add(events.poll());
+        afegirEvents(jsonBuilder, events);
+        jsonBuilder.append("  ],\n");  // Cierre del array events
+
+        // 8. Escribir estadísticas
+        jsonBuilder.append("  \"estadisticas\": [\n");
+        jsonBuilder.append(crearBloqueEstadisticas(estadistiques));
+        jsonBuilder.append("\n  ]\n"); // Cierre del array estadisticas
+
+        jsonBuilder.append("}\n");    // Cierre del objeto JSON principal
+
+        // Escribir en el archivo
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+            writer.write(jsonBuilder.toString());
         }
+    }
 
-        for (int i = 0; i < eventsList.size(); i++) {
-            Event event = eventsList.get(i);
+    /**
+     * Escriu els esdeveniments donats, en ordre, com a elements de l'array
+     * "events" del JSON de simulació.
+     *
+     * @param jsonBuilder On s'escriuen els esdeveniments.
+     * @param events Esdeveniments a escriure.
+     */
+    private static void afegirEvents(StringBuilder jsonBuilder, Iterable<Event> events) {
+        boolean primer = true;
+        for (Event event : events) {
+            jsonBuilder.append(primer ? "" : ",\n");
+            primer = false;
             jsonBuilder.append("    {\n");
-            jsonBuilder.append("      \"temps\": \"").append(event.getTemps()).append("\"");
+            jsonBuilder.append("      \"temps\": \"").append(Temps.text(event.getTemps())).append("\"");
 
             // Determinar el tipo de evento y sus campos específicos
             if (event instanceof MoureVehicleEvent) {
@@ -1092,7 +1187,7 @@ public class LectorJSON {
                 jsonBuilder.append("],\n");
                 jsonBuilder.append("        \"distanciaTotal\": ").append(ire.getRuta().obtenirDistanciaTotal()).append(",\n");
                 jsonBuilder.append("        \"tempsTotal\": ").append(ire.getRuta().obtenirTempsTotal()).append(",\n");
-                jsonBuilder.append("        \"horaInici\": \"").append(ire.getRuta().getHoraInici()).append("\",\n");
+                jsonBuilder.append("        \"horaInici\": \"").append(Temps.text(ire.getRuta().getHoraInici())).append("\",\n");
                 jsonBuilder.append("        \"esRutaCarrega\": ").append(ire.getRuta().isRutaCarrega()).append("\n");
                 jsonBuilder.append("      }");
             } else if (event instanceof FiRutaEvent) {
@@ -1103,12 +1198,18 @@ public class LectorJSON {
                 FiCarregaEvent fce = (FiCarregaEvent) event;
                 jsonBuilder.append(",\n      \"type\": \"FiCarrega\"");
                 jsonBuilder.append(",\n      \"conductorId\": ").append(fce.getConductor().getId());
+                if (fce.esParada()) {
+                    jsonBuilder.append(",\n      \"parada\": true");
+                }
             } else if (event instanceof CarregarBateriaEvent) {
                 CarregarBateriaEvent cbe = (CarregarBateriaEvent) event;
                 jsonBuilder.append(",\n      \"type\": \"CarregarBateria\"");
                 jsonBuilder.append(",\n      \"vehicleId\": ").append(cbe.getVehicle().getId());
                 jsonBuilder.append(",\n      \"duracioCarregaMinuts\": ").append(cbe.getDuracioCarregaMinuts());
                 jsonBuilder.append(",\n      \"conductorId\": ").append(cbe.getConductor().getId());
+                if (cbe.esParada()) {
+                    jsonBuilder.append(",\n      \"parada\": true");
+                }
             } else if (event instanceof RecollirPassatgersEvent) {
                 RecollirPassatgersEvent rpe = (RecollirPassatgersEvent) event;
                 jsonBuilder.append(",\n      \"type\": \"RecollirPassatgers\"");
@@ -1121,20 +1222,42 @@ public class LectorJSON {
                 jsonBuilder.append(",\n      \"conductorId\": ").append(dpe.getConductor().getId());
                 jsonBuilder.append(",\n      \"destiId\": ").append(dpe.getDesti().obtenirId());
                 jsonBuilder.append(",\n      \"passatgersDeixats\": ").append(dpe.getPassatgersDeixats());
+            } else if (event instanceof PeticioArribadaEvent) {
+                Peticio peticio = ((PeticioArribadaEvent) event).getPeticio();
+                jsonBuilder.append(",\n      \"type\": \"PeticioArribada\"");
+                jsonBuilder.append(",\n      \"peticioId\": ").append(peticio.obtenirId());
+                jsonBuilder.append(",\n      \"origenId\": ").append(peticio.obtenirOrigen().obtenirId());
+                jsonBuilder.append(",\n      \"destiId\": ").append(peticio.obtenirDesti().obtenirId());
+                jsonBuilder.append(",\n      \"horaMinimaRecollida\": \"")
+                        .append(Temps.text(peticio.obtenirHoraMinimaRecollida())).append("\"");
+                jsonBuilder.append(",\n      \"horaMaximaArribada\": \"")
+                        .append(Temps.text(peticio.obtenirHoraMaximaArribada())).append("\"");
+                jsonBuilder.append(",\n      \"numPassatgers\": ").append(peticio.obtenirNumPassatgers());
+                jsonBuilder.append(",\n      \"compartit\": ").append(peticio.esVehicleCompartit());
             }
 
-            jsonBuilder.append("\n    }").append(i < eventsList.size() - 1 ? ",\n" : "\n");
+            jsonBuilder.append("\n    }");
         }
-        jsonBuilder.append("  ],\n");  // Cierre del array events
-
-        // 8. Escribir estadísticas
-        jsonBuilder.append("  \"estadisticas\": [\n");
-        jsonBuilder.append(crearBloqueEstadisticas(estadistiques));
-        jsonBuilder.append("\n  ]\n"); // Cierre del array estadisticas
-
-        jsonBuilder.append("}\n");    // Cierre del objeto JSON principal
+        if (!primer) {
+            jsonBuilder.append("\n");
+        }
+    }
 
-        // Escribir en el archivo
+    /**
+     * Escriu un fitxer JSON que només conté l'array "events" amb els
+     * esdeveniments donats, en el format que llegeix carregarEvents2.
+     *
+     * @param events Esdeveniments a escriure.
+     * @param filePath Ruta del fitxer.
+     * @throws IOException Si hi ha un error d'escriptura.
+     */
+    public static void writeEventsFile(Iterable<Event> events, String filePath) throws IOException {
+        StringBuilder jsonBuilder = new StringBuilder();
+        jsonBuilder.append("{\n");
+        jsonBuilder.append("  \"events\": [\n");
+        afegirEvents(jsonBuilder, events);
+        jsonBuilder.append("  ]\n");
+        jsonBuilder.append("}\n");
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
             writer.write(jsonBuilder.toString());
         }
@@ -1173,8 +1296,8 @@ public class LectorJSON {
             int id = Integer.parseInt(matcher.group(1));
             int origenId = Integer.parseInt(matcher.group(2));
             int destiId = Integer.parseInt(matcher.group(3));
-            LocalTime horaMinRecollida = LocalTime.parse(matcher.group(4));
-            LocalTime horaMaxArribada = LocalTime.parse(matcher.group(5));
+            long horaMinRecollida = Temps.llegir(matcher.group(4));
+            long horaMaxArribada = Temps.llegir(matcher.group(5));
             int numPassatgers = Integer.parseInt(matcher.group(6));
             boolean vehicleCompartit = Boolean.parseBoolean(matcher.group(7));
 
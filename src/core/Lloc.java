@@ -11,6 +11,8 @@ package core;
 public class Lloc {
 
     protected int id; /// < Identificador del lloc
+    protected double x = Double.NaN; /// < Coordenada x del lloc (km), o NaN si no se'n sap.
+    protected double y = Double.NaN; /// < Coordenada y del lloc (km), o NaN si no se'n sap.
 
     public Lloc(int id) {
         this.id = id;
@@ -26,4 +28,40 @@ public class Lloc {
         return id;
     }
 
+    /**
+     * @pre Cert.
+     * @post Assigna les coordenades del lloc.
+     *
+     * @param x Coordenada x.
+     * @param y Coordenada y.
+     */
+    public void assignarCoordenades(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna true si el lloc té coordenades.
+     */
+    public boolean teCoordenades() {
+        return !Double.isNaN(x) && !Double.isNaN(y);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la coordenada x del lloc, o NaN si no en té.
+     */
+    public double obtenirX() {
+        return x;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la coordenada y del lloc, o NaN si no en té.
+     */
+    public double obtenirY() {
+        return y;
+    }
+
 }
@@ -1,13 +1,14 @@
 package core;
 
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.random.RandomGenerator;
 
 /**
  * @class Mapa
@@ -22,6 +23,31 @@ public class Mapa {
     private Map<Lloc, List<Cami>> llocs;
 
     /// < Llista de llocs i les seves connexions
+    private GrafCSR graf;
+    /// < Representació CSR del mapa, o null si cal reconstruir-la.
+    private GrafCSR grafInvers;
+    /// < Graf CSR amb els camins invertits (adjacència d'entrada), o null.
+    private Lloc[] llocsPerIndex;
+    /// < Lloc corresponent a cada índex del graf CSR.
+    private CercaDijkstra cerca;
+    /// < Cercador de camins mínims sobre el graf CSR.
+    private volatile Encaminador encaminador;
+    /// < Algorisme amb què es resolen les consultes punt a punt, o null si
+    /// s'ha de tornar a construir.
+    private final Object bloqueigEncaminador = new Object();
+    /// < Serialitza les reconstruccions de l'encaminador fora del bloqueig del mapa.
+    private TipusEncaminament tipusEncaminament = TipusEncaminament.DIJKSTRA;
+    /// < Algorisme triat per a les consultes punt a punt.
+    private TaulaCamins camins = new TaulaCamins();
+    /// < Índex dels camins per (id origen, id destí).
+    private volatile MatriusDistancies matrius;
+    /// < Temps i distàncies precalculats entre tots els llocs, o null.
+    private volatile Instantania instantania;
+    /// < Graf congelat amb les estructures de cerca que s'hi corresponen, o null.
+    private final CacheRutes cacheRutes = new CacheRutes(CacheRutes.CAPACITAT_PER_DEFECTE);
+    /// < Rutes mínimes consultades recentment.
+    private IndexAccessibilitat accessibilitat;
+    /// < Components fortament connexos del graf CSR, o null si cal calcular-los.
 
     /**
      * Constructor de la classe Mapa
@@ -35,8 +61,9 @@ public class Mapa {
      *
      * @post Afegeix un nou lloc a la llista de llocs
      */
-    public void afegirLloc(Lloc lloc) {
+    public synchronized void afegirLloc(Lloc lloc) {
         llocs.put(lloc, new ArrayList<>());
+        invalidarGraf();
     }
 
     /**
@@ -44,8 +71,10 @@ public class Mapa {
      * @post Afegeix un nou camí a la llista de connexions
      *
      */
-    public void afegirCami(Cami cami) {
+    public synchronized void afegirCami(Cami cami) {
         llocs.get(cami.obtenirOrigen()).add(cami);
+        camins.afegir(cami);
+        invalidarGraf();
     }
 
     /**
@@ -54,18 +83,11 @@ public class Mapa {
      * @post Retorna el Cami si hi ha camí entre origen i desti, altrament null
      */
     public Cami hihaCami(Lloc origen, Lloc desti) {
-        List<Cami> camins = llocs.get(origen);
-        if (camins == null) {
+        Cami cami = camins.obtenir(origen.obtenirId(), desti.obtenirId());
+        if (cami == null && !llocs.containsKey(origen)) {
             throw new IllegalArgumentException("Lloc origen no existeix");
         }
-
-        for (Cami cami : camins) {
-            if (cami.obtenirDesti().equals(desti)) {
-                return cami;
-            }
-        }
-
-        return null; // No s'ha trobat cap camí
+        return cami; // null si no s'ha trobat cap camí
     }
 
     /**
@@ -74,16 +96,8 @@ public class Mapa {
      * @post Retorna la distància en km que hi ha entre dos llocs
      */
     public double calcularDistancia(Lloc origen, Lloc desti) {
-        if (hihaCami(origen, desti) == null) {
-            return 0;
-        }
-        List<Cami> camins = llocs.get(origen);
-        for (Cami cami : camins) {
-            if (cami.obtenirDesti().obtenirId() == desti.obtenirId()) {
-                return cami.obtenirDistancia();
-            }
-        }
-        return -1;
+        Cami cami = hihaCami(origen, desti);
+        return cami == null ? 0 : cami.obtenirDistancia();
     }
 
     /**
@@ -142,79 +156,552 @@ public class Mapa {
      * @post Retorna el temps en min que hi ha entre dos llocs
      */
     public double calcularTemps(Lloc origen, Lloc desti) {
-        if (hihaCami(origen, desti) == null) {
-            return 0;
+        Cami cami = hihaCami(origen, desti);
+        return cami == null ? 0 : cami.obtenirTemps();
+    }
+
+    /**
+     * @pre Origen i desti existents
+     *
+     * @post Retorna el camí més ràpid (en temps) entre dos llocs, o null si no
+     *       n'hi ha cap.
+     */
+    public List<Lloc> camiMesRapid(Lloc origen, Lloc desti) {
+        return camiMinim(origen, desti, CriteriCami.TEMPS);
+    }
+
+    /**
+     * @pre Origen i desti existents
+     *
+     * @post Retorna el camí més curt (en distància) entre dos llocs, o null si
+     *       no n'hi ha cap.
+     */
+    public List<Lloc> camiMesCurt(Lloc origen, Lloc desti) {
+        return camiMinim(origen, desti, CriteriCami.DISTANCIA);
+    }
+
+    /**
+     * @brief Cerca el camí mínim entre dos llocs amb l'algorisme de Dijkstra.
+     * @details La cerca es fa sobre la representació CSR congelada del mapa
+     *          (vegeu congelar()) i és iterativa, de manera que no depèn de la
+     *          mida de la pila encara que el mapa sigui gran.
+     * @pre Origen i desti existents
+     * @post Retorna la llista de llocs del camí mínim segons el criteri
+     *       (origen i desti inclosos), o null si desti no és accessible.
+     * @param origen  Lloc de sortida.
+     * @param desti   Lloc d'arribada.
+     * @param criteri Criteri per ponderar els camins.
+     * @return Camí mínim o null.
+     */
+    public List<Lloc> camiMinim(Lloc origen, Lloc desti, CriteriCami criteri) {
+        Instantania s = instantania();
+        int o = s.graf.index(origen.obtenirId());
+        int d = s.graf.index(desti.obtenirId());
+        if (o < 0 || d < 0) {
+            return null;
+        }
+        MatriusDistancies m = s.matrius;
+        if (m != null && criteri == CriteriCami.TEMPS) {
+            if (m.temps(o, d) == Double.MAX_VALUE) {
+                return null;
+            }
+            int[] cami = m.cami(o, d);
+            if (cami != null) {
+                return s.convertirCami(cami);
+            }
+        }
+        return s.convertirCami(rutaMinima(s, o, d, criteri).cami);
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna el temps en minuts del camí més ràpid entre dos llocs, o
+     *       Double.MAX_VALUE si desti no és accessible. Si les matrius estan
+     *       precalculades és una sola consulta a la matriu.
+     */
+    public double tempsMinim(Lloc origen, Lloc desti) {
+        Instantania s = instantania();
+        int o = s.graf.index(origen.obtenirId());
+        int d = s.graf.index(desti.obtenirId());
+        if (o < 0 || d < 0) {
+            return Double.MAX_VALUE;
+        }
+        MatriusDistancies m = s.matrius;
+        return m != null ? m.temps(o, d) : rutaMinima(s, o, d, CriteriCami.TEMPS).temps;
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna la distància en km del camí més ràpid entre dos llocs, o
+     *       Double.MAX_VALUE si desti no és accessible. Si les matrius estan
+     *       precalculades és una sola consulta a la matriu.
+     */
+    public double distanciaMesRapida(Lloc origen, Lloc desti) {
+        Instantania s = instantania();
+        int o = s.graf.index(origen.obtenirId());
+        int d = s.graf.index(desti.obtenirId());
+        if (o < 0 || d < 0) {
+            return Double.MAX_VALUE;
+        }
+        MatriusDistancies m = s.matrius;
+        if (m != null) {
+            return m.distancia(o, d);
+        }
+        return rutaMinima(s, o, d, CriteriCami.TEMPS).distancia;
+    }
+
+    /**
+     * @brief Retorna la ruta mínima entre dos índexs del graf, consultant
+     *        primer la memòria cau de rutes.
+     * @details La cerca es fa fora del bloqueig de la memòria cau, de manera
+     *          que diversos fils poden cercar rutes diferents alhora.
+     * @pre 0 <= o, d < s.graf.nombreLlocs()
+     * @post Retorna l'entrada amb el camí i els seus totals sobre el graf de
+     *       s; si desti no és accessible el camí és null i els totals
+     *       Double.MAX_VALUE.
+     */
+    private CacheRutes.Entrada rutaMinima(Instantania s, int o, int d, CriteriCami criteri) {
+        GrafCSR g = s.graf;
+        long clau = CacheRutes.clau(o, d, criteri);
+        CacheRutes.Entrada entrada = instantania == s ? cacheRutes.obtenir(clau) : null;
+        if (entrada != null) {
+            return entrada;
+        }
+        int[] cami = encaminador(s).cercar(o, d, criteri);
+        if (cami == null) {
+            entrada = new CacheRutes.Entrada(null, Double.MAX_VALUE, Double.MAX_VALUE);
+        } else {
+            double[] pesos = g.pesos(criteri);
+            double[] temps = g.pesos(CriteriCami.TEMPS);
+            double[] distancia = g.pesos(CriteriCami.DISTANCIA);
+            double tempsTotal = 0.0;
+            double distanciaTotal = 0.0;
+            for (int i = 0; i + 1 < cami.length; i++) {
+                int millor = -1;
+                for (int c = g.primerCami(cami[i]), fi = g.fiCamins(cami[i]); c < fi; c++) {
+                    if (g.desti(c) == cami[i + 1] && (millor < 0 || pesos[c] < pesos[millor])) {
+                        millor = c;
+                    }
+                }
+                tempsTotal += temps[millor];
+                distanciaTotal += distancia[millor];
+            }
+            entrada = new CacheRutes.Entrada(cami, tempsTotal, distanciaTotal);
         }
+        synchronized (this) {
+            if (instantania == s) {
+                cacheRutes.guardar(clau, entrada); // no es guarden rutes d'un graf ja substituït
+            }
+        }
+        return entrada;
+    }
+
+    /**
+     * @pre capacitat >= 0
+     * @post Canvia el nombre màxim de rutes que es guarden a la memòria cau
+     *       (0 la desactiva).
+     */
+    public void configurarCacheRutes(int capacitat) {
+        cacheRutes.setCapacitat(capacitat);
+    }
 
-        List<Cami> camins = llocs.get(origen);
-        for (Cami cami : camins) {
-            if (cami.obtenirDesti().equals(desti)) {
-                return cami.obtenirTemps();
+    /**
+     * @pre Cert
+     * @post Retorna la memòria cau de rutes del mapa, per consultar-ne els
+     *       encerts i les fallades.
+     */
+    public CacheRutes obtenirCacheRutes() {
+        return cacheRutes;
+    }
+
+    /**
+     * @pre nouTemps >= 0
+     * @post Canvia el temps del camí d'origen a desti (vegeu
+     *       actualitzarTempsCamins).
+     * @throws IllegalArgumentException si no hi ha cap camí d'origen a desti.
+     */
+    public void actualitzarTempsCami(Lloc origen, Lloc desti, double nouTemps) {
+        Cami cami = hihaCami(origen, desti);
+        if (cami == null) {
+            throw new IllegalArgumentException(
+                    "No hi ha cap camí de " + origen.obtenirId() + " a " + desti.obtenirId());
+        }
+        actualitzarTempsCamins(Map.of(cami, nouTemps));
+    }
+
+    /**
+     * @brief Canvia el temps de diversos camins (per exemple per congestió)
+     *        reparant només el que queda afectat.
+     * @details Cada clau identifica el camí pel seu origen i destí (el mateix
+     *          que retorna hihaCami). En lloc de descartar-ho tot com
+     *          afegirCami:
+     *          - el graf CSR es substitueix per un amb els temps nous, que
+     *            comparteix la resta de vectors;
+     *          - de les matrius només es recalculen les files dels orígens
+     *            els camins mínims dels quals poden haver canviat;
+     *          - de la memòria cau de rutes només s'eliminen les que passen
+     *            per un camí alentit, o totes les de temps si algun s'ha
+     *            accelerat;
+     *          - les fites d'ALT es conserven si cap temps ha baixat; si no,
+     *            l'encaminador (ALT o jerarquia de contracció) queda marcat
+     *            com a obsolet i es torna a construir, fora del bloqueig del
+     *            mapa, a la primera consulta que el necessiti. Així diverses
+     *            actualitzacions seguides només el reconstrueixen un cop.
+     *          Els canvis es fan tots alhora per poder aplicar cada minut de
+     *          simulació amb una sola reparació.
+     * @pre Els temps nous són >= 0
+     * @post Els camins tenen els temps nous i totes les consultes els tenen en
+     *       compte.
+     * @throws IllegalArgumentException si per a alguna clau no hi ha cap camí
+     *         entre el seu origen i el seu destí; aleshores no es canvia res.
+     */
+    public synchronized void actualitzarTempsCamins(Map<Cami, Double> nousTemps) {
+        List<Cami> reals = new ArrayList<>(nousTemps.size());
+        for (Cami clau : nousTemps.keySet()) {
+            Cami cami = hihaCami(clau.obtenirOrigen(), clau.obtenirDesti());
+            if (cami == null) {
+                throw new IllegalArgumentException("No hi ha cap camí de " + clau.obtenirOrigen().obtenirId()
+                        + " a " + clau.obtenirDesti().obtenirId());
+            }
+            reals.add(cami);
+        }
+        GrafCSR antic = congelar();
+        double[] temps = antic.pesos(CriteriCami.TEMPS).clone();
+        int[] indexos = new int[nousTemps.size()];
+        double[] tempsAntics = new double[nousTemps.size()];
+        double[] tempsNous = new double[nousTemps.size()];
+        int k = 0;
+        boolean algunBaixa = false;
+        int i = 0;
+        for (double nouTemps : nousTemps.values()) {
+            Cami cami = reals.get(i++);
+            cami.temps = nouTemps;
+            int c = indexCami(antic, cami);
+            if (c < 0 || temps[c] == cami.temps) {
+                continue; // destí fora del graf, o sense canvi
             }
+            indexos[k] = c;
+            tempsAntics[k] = temps[c];
+            tempsNous[k] = cami.temps;
+            algunBaixa |= tempsNous[k] < tempsAntics[k];
+            temps[c] = cami.temps;
+            k++;
+        }
+        if (k == 0) {
+            return;
+        }
+        if (k < indexos.length) {
+            indexos = Arrays.copyOf(indexos, k);
+            tempsAntics = Arrays.copyOf(tempsAntics, k);
+            tempsNous = Arrays.copyOf(tempsNous, k);
+        }
+
+        graf = antic.ambTemps(temps);
+        grafInvers = null;
+        cerca = new CercaDijkstra(graf);
+        instantania = new Instantania(graf, llocsPerIndex, cerca, matrius);
+        if (encaminador instanceof CercaALT alt && !algunBaixa) {
+            encaminador = alt.ambPesosMajors(graf);
+        } else if (tipusEncaminament == TipusEncaminament.DIJKSTRA) {
+            encaminador = cerca;
+        } else {
+            encaminador = null; // es reconstrueix a la primera consulta
         }
 
+        MatriusDistancies m = matrius;
+        if (m != null) {
+            m.reparar(graf, cerca, indexos, tempsAntics, tempsNous, ForkJoinPool.commonPool());
+        }
+
+        if (algunBaixa) {
+            cacheRutes.invalidar(CriteriCami.TEMPS);
+        }
+        for (int c : indexos) {
+            cacheRutes.invalidarCami(graf.origen(c), graf.desti(c));
+        }
+    }
+
+    /**
+     * @pre cami és un camí del mapa
+     * @post Retorna la posició del camí al graf g, o -1 si el seu destí no
+     *       és al graf.
+     */
+    private int indexCami(GrafCSR g, Cami cami) {
+        int c = g.primerCami(g.index(cami.obtenirOrigen().obtenirId()));
+        for (Cami altre : llocs.get(cami.obtenirOrigen())) {
+            if (g.index(altre.obtenirDesti().obtenirId()) < 0) {
+                continue; // GrafCSR no inclou els camins a llocs de fora del mapa
+            }
+            if (altre == cami) {
+                return c;
+            }
+            c++;
+        }
         return -1;
     }
 
     /**
-     * @pre Origen i desti existents
-     *
-     * @post Retorna el camí més ràpid entre dos llocs
+     * @brief Precalcula les matrius de temps i distància mínims entre tots els
+     *        parells de llocs.
+     * @details Les cerques s'executen en paral·lel al ForkJoinPool comú. Si el
+     *          mapa té més de MatriusDistancies.MAX_LLOCS llocs no es fa res i
+     *          les consultes continuen fent cerques. Les matrius es descarten
+     *          quan s'afegeix un lloc o un camí.
+     * @pre Cert
+     * @post Retorna true si les matrius s'han calculat.
      */
-    public List<Lloc> camivorac(Lloc origen, Lloc desti) {
-        Set<Lloc> visitats = new HashSet<>();
-        List<Lloc> millorCami = new ArrayList<>();
-        if (trobarCamivorac(origen, desti, visitats, new ArrayList<>(), millorCami)) {
-            return millorCami;
-        } else {
-            return null;
+    public boolean precalcularMatrius() {
+        Instantania s = instantania();
+        if (s.graf.nombreLlocs() > MatriusDistancies.MAX_LLOCS) {
+            return false;
+        }
+        MatriusDistancies m = MatriusDistancies.calcular(s.graf, s.cerca, ForkJoinPool.commonPool());
+        synchronized (this) {
+            if (instantania != s) {
+                return false; // el graf ha canviat mentre es calculaven
+            }
+            matrius = m;
+            instantania = new Instantania(s.graf, s.llocsPerIndex, s.cerca, m);
         }
+        return true;
+    }
 
+    /**
+     * @pre Cert
+     * @post Retorna true si les matrius de temps i distància estan
+     *       precalculades.
+     */
+    public boolean teMatriusPrecalculades() {
+        return matrius != null;
     }
 
     /**
-     * @brief Funció recursiva per trobar el camí més ràpid entre dos llocs,
-     *        utilitzant
-     *        un enfocament vorac.
-     * @details Aquesta funció explora els camins disponibles a partir del lloc
-     *          actual
-     *          i selecciona el camí amb el temps més curt per continuar la cerca.
      * @pre Cert
-     * @post Retorna el camí més ràpid entre dos llocs
-     * @param actual
-     * @param desti
-     * @param visitats
-     * @param camiActual
-     * @param millorCami
-     * @return true si s'ha trobat un camí, false en cas contrari
-     */
-    private boolean trobarCamivorac(Lloc actual, Lloc desti, Set<Lloc> visitats,
-            List<Lloc> camiActual, List<Lloc> millorCami) {
-        visitats.add(actual);
-        camiActual.add(actual);
-
-        if (actual.equals(desti)) {
-            millorCami.clear();
-            millorCami.addAll(camiActual);
-            return true;
-        }
-
-        List<Cami> camins = new ArrayList<>(llocs.getOrDefault(actual, List.of()));
-        camins.sort(Comparator.comparingDouble(Cami::obtenirTemps)); // ordena per temps més curt
-
-        for (Cami cami : camins) {
-            Lloc seguent = cami.obtenirDesti();
-            if (!visitats.contains(seguent)) {
-                boolean trobat = trobarCamivorac(seguent, desti, visitats, camiActual, millorCami);
-                if (trobat) {
-                    return true; // sortim tan bon punt trobem el destí
+     * @post Retorna la representació CSR del mapa. Si s'han afegit llocs o
+     *       camins des de l'última crida, es torna a construir.
+     * @return Graf congelat del mapa.
+     */
+    public synchronized GrafCSR congelar() {
+        if (graf == null) {
+            graf = GrafCSR.construir(llocs);
+            llocsPerIndex = new Lloc[graf.nombreLlocs()];
+            for (Lloc lloc : llocs.keySet()) {
+                llocsPerIndex[graf.index(lloc.obtenirId())] = lloc;
+            }
+            cerca = new CercaDijkstra(graf);
+            instantania = new Instantania(graf, llocsPerIndex, cerca, null);
+            encaminador = crearEncaminador();
+        }
+        return graf;
+    }
 
+    /**
+     * @pre Cert
+     * @post Retorna el graf congelat del mapa (vegeu congelar()) amb les
+     *       estructures de cerca que s'hi corresponen. Les consultes que només
+     *       fan servir la instantània no es barregen amb un graf que un altre
+     *       fil substitueixi mentrestant.
+     */
+    private synchronized Instantania instantania() {
+        congelar();
+        return instantania;
+    }
+
+    /**
+     * @brief Canvia l'algorisme amb què es calculen els camins mínims.
+     * @details Les taules que necessiti l'algorisme (les fites d'ALT o la
+     *          jerarquia de contracció per temps) es calculen ara si el mapa ja
+     *          s'ha congelat, o bé la primera vegada que es congeli. Els resultats no canvien, només
+     *          el cost de cada consulta.
+     * @pre tipus != null
+     * @post Les consultes punt a punt fan servir l'algorisme indicat.
+     */
+    public synchronized void setTipusEncaminament(TipusEncaminament tipus) {
+        tipusEncaminament = tipus;
+        if (graf != null) {
+            encaminador = crearEncaminador();
+        }
+        cacheRutes.invalidar();
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna l'algorisme triat per a les consultes punt a punt.
+     */
+    public synchronized TipusEncaminament getTipusEncaminament() {
+        return tipusEncaminament;
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna l'encaminador actual, amb les seves estadístiques de
+     *       consultes i llocs assentats.
+     */
+    public Encaminador obtenirEncaminador() {
+        return encaminadorActual();
+    }
+
+    /**
+     * @brief Retorna l'encaminador actual, construint-lo si és obsolet.
+     * @details La construcció (fites d'ALT o contracció) es fa sense tenir el
+     *          bloqueig del mapa, de manera que les actualitzacions de temps i
+     *          la resta de consultes del mapa no s'esperen. Si mentrestant el
+     *          graf es substitueix, l'encaminador construït es fa servir per a
+     *          aquesta consulta però no es guarda.
+     * @pre Cert
+     * @post Retorna un encaminador sobre el graf congelat.
+     */
+    private Encaminador encaminadorActual() {
+        return encaminador(instantania());
+    }
+
+    /**
+     * @pre s és una instantània retornada per instantania().
+     * @post Retorna un encaminador sobre el graf de s: l'actual si s encara és
+     *       la instantània del mapa, o una cerca de Dijkstra sobre el graf de
+     *       s si ja s'ha substituït.
+     */
+    private Encaminador encaminador(Instantania s) {
+        Encaminador actual = encaminador;
+        if (instantania != s) {
+            return s.cerca; // encaminador s'escriu després d'instantania
+        }
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (bloqueigEncaminador) {
+            TipusEncaminament tipus;
+            GrafCSR invers;
+            synchronized (this) {
+                if (instantania != s) {
+                    return s.cerca;
+                }
+                if (encaminador != null) {
+                    return encaminador; // un altre fil l'ha reconstruït
+                }
+                tipus = tipusEncaminament;
+                invers = grafInvers();
+            }
+            Encaminador e = crearEncaminador(tipus, s.graf, invers);
+            synchronized (this) {
+                if (encaminador == null && instantania == s && tipusEncaminament == tipus) {
+                    encaminador = e;
                 }
             }
+            return e;
+        }
+    }
+
+    /**
+     * @brief Retorna l'índex d'accessibilitat del mapa.
+     * @details Es calcula la primera vegada que es demana després de congelar
+     *          el mapa. Canviar el temps dels camins no el modifica, perquè no
+     *          canvia quins llocs estan connectats.
+     * @pre Cert
+     * @post Retorna els components fortament connexos del graf congelat, amb
+     *       els mateixos índexs que congelar().
+     */
+    public synchronized IndexAccessibilitat obtenirAccessibilitat() {
+        congelar();
+        if (accessibilitat == null) {
+            accessibilitat = new IndexAccessibilitat(graf);
+        }
+        return accessibilitat;
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna true si hi ha algun camí d'origen a desti, sense calcular
+     *       cap ruta. Retorna false si algun dels dos llocs no és del mapa.
+     */
+    public boolean esAccessible(Lloc origen, Lloc desti) {
+        IndexAccessibilitat index;
+        GrafCSR g;
+        synchronized (this) {
+            index = obtenirAccessibilitat();
+            g = graf;
         }
+        int o = g.index(origen.obtenirId());
+        int d = g.index(desti.obtenirId());
+        return o >= 0 && d >= 0 && index.esAccessible(o, d);
+    }
 
-        camiActual.remove(camiActual.size() - 1); // backtrack
-        return false;
+    /**
+     * @pre random != null
+     * @post Retorna {origen, desti}, dos llocs diferents amb desti accessible
+     *       des d'origen, triats uniformement entre tots els parells
+     *       possibles, o null si el mapa no en té cap.
+     */
+    public Lloc[] parellAccessibleAleatori(RandomGenerator random) {
+        IndexAccessibilitat index;
+        Lloc[] perIndex;
+        synchronized (this) {
+            index = obtenirAccessibilitat();
+            perIndex = llocsPerIndex;
+        }
+        int[] parell = index.parellAleatori(random);
+        if (parell == null) {
+            return null;
+        }
+        return new Lloc[] { perIndex[parell[0]], perIndex[parell[1]] };
+    }
+
+    /**
+     * @pre Cert
+     * @post Retorna el graf CSR invers del mapa: els camins que entren a cada
+     *       lloc, amb els mateixos índexs que congelar().
+     */
+    public synchronized GrafCSR congelarInvers() {
+        congelar();
+        return grafInvers();
+    }
+
+    private GrafCSR grafInvers() {
+        if (grafInvers == null) {
+            grafInvers = graf.invertir();
+        }
+        return grafInvers;
+    }
+
+    /**
+     * @pre graf != null
+     * @post Retorna un encaminador del tipus triat sobre el graf actual.
+     */
+    private Encaminador crearEncaminador() {
+        return tipusEncaminament == TipusEncaminament.DIJKSTRA ? cerca
+                : crearEncaminador(tipusEncaminament, graf, grafInvers());
+    }
+
+    /**
+     * @pre g != null; invers és g.invertir()
+     * @post Retorna un encaminador del tipus indicat sobre g.
+     */
+    private static Encaminador crearEncaminador(TipusEncaminament tipus, GrafCSR g, GrafCSR invers) {
+        switch (tipus) {
+            case ALT:
+                return new CercaALT(g, invers, CercaALT.FITES_PER_DEFECTE);
+            case BIDIRECCIONAL:
+                return new CercaBidireccional(g, invers);
+            case CONTRACCIO:
+                JerarquiaContraccio jerarquia = new JerarquiaContraccio(g);
+                jerarquia.preparar(CriteriCami.TEMPS);
+                return jerarquia;
+            default:
+                return new CercaDijkstra(g);
+        }
+    }
+
+    /**
+     * @pre Cert
+     * @post Descarta el graf CSR i tot el que s'hi ha precalculat.
+     */
+    private void invalidarGraf() {
+        graf = null;
+        instantania = null;
+        grafInvers = null;
+        accessibilitat = null;
+        matrius = null;
+        cacheRutes.invalidar();
     }
 
     /**
@@ -222,28 +709,92 @@ public class Mapa {
      * @post Retorna la ruta més ràpida per arribar a un parquing públic
      * @return Ruta més ràpida per arribar a un parquing públic
      */
-    public Ruta rutaParquingMesProper(Lloc origen, LocalTime horaInici, Conductor conductor) {
-        Ruta millorRuta = null;
-        double millorTemps = Double.MAX_VALUE;
-
-        for (Lloc lloc : llocs.keySet()) {
-            if (lloc instanceof Parquing) {
-                Parquing parquing = (Parquing) lloc;
-                if (!parquing.publicPle()) {
-                    List<Lloc> cami = camivorac(origen, lloc);
-                    if (cami != null) {
-                        double tempsRuta = calcularTempsRuta(cami);
-                        if (tempsRuta < millorTemps) {
-                            millorTemps = tempsRuta;
-                            millorRuta = new Ruta(cami, horaInici, -1, tempsRuta, conductor, true);
-                        }
-                    }
-                }
+    public Ruta rutaParquingMesProper(Lloc origen, long horaInici, Conductor conductor) {
+        return rutaParquingMesProper(origen, horaInici, conductor, parquing -> !parquing.publicPle());
+    }
 
-            }
+    /**
+     * @pre tipus != null
+     * @post Retorna la ruta més ràpida per arribar a un parquing amb un punt
+     *       de càrrega públic lliure del tipus indicat, o null si no n'hi ha
+     *       cap d'accessible.
+     */
+    public Ruta rutaCarregadorMesProper(Lloc origen, long horaInici, Conductor conductor,
+            TipusPuntCarrega tipus) {
+        return rutaParquingMesProper(origen, horaInici, conductor,
+                parquing -> parquing.teCarregadorPublicLliure(tipus));
+    }
+
+    /**
+     * @brief Cerca el parquing més proper que compleix una condició.
+     * @details Fa una única cerca de Dijkstra des d'origen que s'atura en el
+     *          primer parquing assentat que compleix la condició, en lloc de
+     *          fer una cerca per a cada parquing del mapa.
+     * @pre condicio != null
+     * @post Retorna la ruta més ràpida fins al parquing, o null si no n'hi ha
+     *       cap d'accessible que compleixi la condició.
+     */
+    public Ruta rutaParquingMesProper(Lloc origen, long horaInici, Conductor conductor,
+            Predicate<Parquing> condicio) {
+        Instantania s = instantania();
+        int o = s.graf.index(origen.obtenirId());
+        if (o < 0) {
+            return null;
         }
+        Lloc[] perIndex = s.llocsPerIndex;
+        List<Lloc> cami = s.convertirCami(s.cerca.cercarMesProper(o,
+                i -> perIndex[i] instanceof Parquing parquing && condicio.test(parquing), CriteriCami.TEMPS));
+        if (cami == null) {
+            return null;
+        }
+        return new Ruta(cami, horaInici, -1, calcularTempsRuta(cami), conductor, true);
+    }
 
-        return millorRuta;
+    /**
+     * @brief Planifica la ruta més ràpida que passa pels llocs donats tenint
+     *        en compte la bateria del vehicle del conductor.
+     * @details Fa una única cerca amb restricció d'autonomia (vegeu
+     *          CercaAmbBateria) que, si cal, afegeix parades als pàrquings on
+     *          tempsCarrega no és negatiu. A cada parada el vehicle es carrega
+     *          fins a Vehicle.autonomiaCarregada(), que és com el deixa
+     *          FiCarregaEvent.
+     * @pre punts.size() >= 2; conductor té vehicle; reservaKm >= 0
+     * @post Retorna la ruta, que surt a horaInici del primer punt i passa per
+     *       la resta en ordre, amb les posicions on es carrega a
+     *       obtenirParadesCarrega() i el temps de càrrega inclòs al temps
+     *       total, o null si no es pot fer sense baixar de reservaKm
+     *       d'autonomia.
+     *
+     * @param autonomiaInicial Km que el vehicle pot recórrer en sortir.
+     * @param tempsCarrega     Minuts que el vehicle trigaria a carregar a cada
+     *                         pàrquing, o un valor negatiu si no hi pot
+     *                         carregar.
+     */
+    public Ruta rutaAmbBateria(List<Lloc> punts, long horaInici, Conductor conductor, double autonomiaInicial,
+            double reservaKm, ToDoubleFunction<Parquing> tempsCarrega) {
+        Instantania s = instantania();
+        int[] indexos = new int[punts.size()];
+        for (int i = 0; i < indexos.length; i++) {
+            indexos[i] = s.graf.index(punts.get(i).obtenirId());
+            if (indexos[i] < 0) {
+                return null;
+            }
+        }
+        Lloc[] perIndex = s.llocsPerIndex;
+        CercaAmbBateria.Resultat resultat = new CercaAmbBateria(s.graf).cercar(indexos, autonomiaInicial,
+                conductor.getVehicle().autonomiaCarregada(), reservaKm,
+                i -> perIndex[i] instanceof Parquing parquing ? tempsCarrega.applyAsDouble(parquing) : -1);
+        if (resultat == null) {
+            return null;
+        }
+        Ruta ruta = new Ruta(s.convertirCami(resultat.obtenirCami()), horaInici, resultat.obtenirDistancia(),
+                resultat.obtenirTemps(), conductor, false);
+        List<Integer> parades = new ArrayList<>();
+        for (int posicio : resultat.obtenirParades()) {
+            parades.add(posicio);
+        }
+        ruta.assignarParadesCarrega(parades);
+        return ruta;
     }
 
     /**
@@ -251,31 +802,17 @@ public class Mapa {
      * @post Retorna la ruta més ràpida per arribar a un parquing privat
      * @return Ruta més ràpida per arribar a un parquing privat
      */
-    public Ruta rutaParquingPrivatMesProper(Lloc origen, LocalTime horaInici, ConductorPlanificador conductor) {
-        Ruta millorRuta = null;
-        double millorTemps = Double.MAX_VALUE;
-
-        for (Lloc lloc : llocs.keySet()) {
-            if (lloc instanceof Parquing) {
-                Parquing parquing = (Parquing) lloc;
-                if (!parquing.estaPle() && parquing.esCarregadorPrivat(conductor.getParquingPrivat().obtenirId())) {
-                    List<Lloc> cami = camivorac(origen, lloc);
-                    if (cami != null) {
-                        double tempsRuta = calcularTempsRuta(cami);
-                        if (tempsRuta < millorTemps) {
-                            millorTemps = tempsRuta;
-                            millorRuta = new Ruta(cami, horaInici, -1, tempsRuta, conductor, true);
-                        }
-                    }
-                }
-
+    public Ruta rutaParquingPrivatMesProper(Lloc origen, long horaInici, ConductorPlanificador conductor) {
+        int idPrivat = conductor.getParquingPrivat().obtenirId();
+        Ruta millorRuta = rutaParquingMesProper(origen, horaInici, conductor,
+                parquing -> !parquing.estaPle() && parquing.esCarregadorPrivat(idPrivat));
+        if (millorRuta != null && Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            StringBuilder text = new StringBuilder("Ruta al pàrquing privat " + idPrivat + ":");
+            for (Lloc l : millorRuta.getLlocs()) {
+                text.append(' ').append(l.obtenirId());
             }
-        }System.out.println();
-        System.out.println("mapaaaaaa");
-        for(Lloc l : millorRuta.getLlocs()){
-            System.out.print(l.obtenirId() + " -- ");
+            Registre.escriure(Registre.Nivell.DEPURACIO, text.toString());
         }
-        System.out.println("\n");
         return millorRuta;
     }
 
@@ -303,4 +840,38 @@ public class Mapa {
         return totsElsCamins;
     }
 
+    /**
+     * @class Instantania
+     * @brief Graf congelat del mapa i les estructures de cerca construïdes
+     *        sobre ell, que no canvien.
+     */
+    private static final class Instantania {
+        final GrafCSR graf; /// < Representació CSR del mapa.
+        final Lloc[] llocsPerIndex; /// < Lloc corresponent a cada índex de graf.
+        final CercaDijkstra cerca; /// < Cercador de camins mínims sobre graf.
+        final MatriusDistancies matrius; /// < Matrius precalculades sobre graf, o null.
+
+        Instantania(GrafCSR graf, Lloc[] llocsPerIndex, CercaDijkstra cerca, MatriusDistancies matrius) {
+            this.graf = graf;
+            this.llocsPerIndex = llocsPerIndex;
+            this.cerca = cerca;
+            this.matrius = matrius;
+        }
+
+        /**
+         * @pre Cert
+         * @post Retorna la llista de llocs corresponent als índexs de graf, o
+         *       null si cami és null.
+         */
+        List<Lloc> convertirCami(int[] cami) {
+            if (cami == null) {
+                return null;
+            }
+            List<Lloc> resultat = new ArrayList<>(cami.length);
+            for (int i : cami) {
+                resultat.add(llocsPerIndex[i]);
+            }
+            return resultat;
+        }
+    }
 }
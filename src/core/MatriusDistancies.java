@@ -0,0 +1,266 @@
+package core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @class MatriusDistancies
+ * @brief Matrius precalculades de temps i distància mínims entre tots els
+ *        parells de llocs del mapa.
+ * @details Per a cada parell (origen, destí) es guarda el temps del camí més
+ *          ràpid, la distància recorreguda per aquest mateix camí (la que fan
+ *          servir els conductors per calcular la bateria) i el primer lloc del
+ *          camí, que permet reconstruir-lo sense fer cap cerca. Les matrius es
+ *          calculen fent Dijkstra des de cada lloc en paral·lel sobre un
+ *          ForkJoinPool. Ocupen 12 * n * n bytes, per això només s'han de fer
+ *          servir en mapes petits i mitjans.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.04
+ */
+public final class MatriusDistancies {
+
+    public static final int MAX_LLOCS = 2500; /// < Nombre màxim de llocs per precalcular les matrius.
+    private static final int FILES_PER_TASCA = 16; /// < Files que calcula cada tasca sense dividir-se.
+
+    private final int n; /// < Nombre de llocs.
+    private final float[] temps; /// < Temps mínim de cada parell (fila = origen).
+    private final float[] distancia; /// < Distància del camí més ràpid de cada parell.
+    private final int[] seguent; /// < Primer lloc del camí més ràpid de cada parell, o -1.
+
+    private MatriusDistancies(int n) {
+        this.n = n;
+        this.temps = new float[n * n];
+        this.distancia = new float[n * n];
+        this.seguent = new int[n * n];
+        Arrays.fill(temps, Float.POSITIVE_INFINITY);
+        Arrays.fill(distancia, Float.POSITIVE_INFINITY);
+        Arrays.fill(seguent, -1);
+    }
+
+    /**
+     * @pre graf.nombreLlocs() <= MAX_LLOCS
+     * @post Retorna les matrius del graf calculades en paral·lel al pool.
+     *
+     * @param graf  Graf congelat del mapa.
+     * @param cerca Cercador sobre el graf.
+     * @param pool  Pool on s'executen les cerques.
+     * @return Matrius de temps, distància i lloc següent.
+     */
+    public static MatriusDistancies calcular(GrafCSR graf, CercaDijkstra cerca, ForkJoinPool pool) {
+        MatriusDistancies matrius = new MatriusDistancies(graf.nombreLlocs());
+        int[] files = new int[graf.nombreLlocs()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = i;
+        }
+        pool.invoke(new CalculFiles(matrius, graf, cerca, files, 0, files.length));
+        return matrius;
+    }
+
+    /**
+     * @pre 0 <= origen < n; espai té mida n
+     * @post Torna a calcular la fila d'origen amb els pesos actuals del graf.
+     *       La fila es calcula a l'espai de treball i després es copia, de
+     *       manera que un lector concurrent veu a cada posició el valor antic o
+     *       el nou, però mai una posició buidada.
+     */
+    void calcularFila(GrafCSR graf, CercaDijkstra cerca, int origen, EspaiFila espai) {
+        Arrays.fill(espai.temps, Float.POSITIVE_INFINITY);
+        Arrays.fill(espai.distancia, Float.POSITIVE_INFINITY);
+        Arrays.fill(espai.seguent, -1);
+
+        double[] pesDistancia = graf.pesos(CriteriCami.DISTANCIA);
+        int[] ordre = espai.ordre;
+        int[] camiAnterior = espai.camiAnterior;
+        double[] cost = espai.cost;
+        double[] acumulada = espai.acumulada;
+        int k = cerca.arbreComplet(origen, CriteriCami.TEMPS, ordre, camiAnterior, cost);
+        for (int i = 0; i < k; i++) {
+            int v = ordre[i];
+            int c = camiAnterior[v];
+            if (c < 0) {
+                acumulada[v] = 0.0;
+                espai.seguent[v] = v;
+            } else {
+                int pare = graf.origen(c);
+                acumulada[v] = acumulada[pare] + pesDistancia[c];
+                espai.seguent[v] = pare == origen ? v : espai.seguent[pare];
+            }
+            espai.temps[v] = (float) cost[v];
+            espai.distancia[v] = (float) acumulada[v];
+        }
+
+        int fila = origen * n;
+        System.arraycopy(espai.temps, 0, temps, fila, n);
+        System.arraycopy(espai.distancia, 0, distancia, fila, n);
+        System.arraycopy(espai.seguent, 0, seguent, fila, n);
+    }
+
+    /**
+     * @brief Repara les matrius després de canviar el temps d'alguns camins.
+     * @details Només es tornen a calcular les files afectades. Si un camí
+     *          u -> v s'ha alentit, una fila s només pot canviar si el camí era
+     *          ajustat (temps(s, u) + pes antic == temps(s, v)), és a dir, si
+     *          formava part d'algun camí mínim des de s. Si s'ha accelerat,
+     *          només canvia si ara millora temps(s, v). Les comprovacions es
+     *          fan amb un marge per l'arrodoniment a float, de manera que en
+     *          cas de dubte la fila es recalcula.
+     * @pre graf és el graf amb els temps nous; camins, tempsAntics i
+     *      tempsNous tenen la mateixa mida.
+     * @post Les files afectades tornen a ser correctes. Retorna el nombre de
+     *       files recalculades.
+     */
+    public int reparar(GrafCSR graf, CercaDijkstra cerca, int[] camins, double[] tempsAntics, double[] tempsNous,
+            ForkJoinPool pool) {
+        boolean[] afectada = new boolean[n];
+        int nombre = 0;
+        for (int s = 0; s < n; s++) {
+            int fila = s * n;
+            for (int i = 0; i < camins.length && !afectada[s]; i++) {
+                int u = graf.origen(camins[i]);
+                int v = graf.desti(camins[i]);
+                float tu = temps[fila + u];
+                if (tu == Float.POSITIVE_INFINITY) {
+                    continue; // u no és accessible des de s
+                }
+                float tv = temps[fila + v];
+                double marge = 1e-4 * (1.0 + Math.abs(tv == Float.POSITIVE_INFINITY ? tu : tv));
+                if (tempsNous[i] > tempsAntics[i]) {
+                    afectada[s] = Math.abs(tu + tempsAntics[i] - tv) <= marge;
+                } else {
+                    afectada[s] = tv == Float.POSITIVE_INFINITY || tu + tempsNous[i] <= tv + marge;
+                }
+            }
+            if (afectada[s]) {
+                nombre++;
+            }
+        }
+        int[] files = new int[nombre];
+        for (int s = 0, k = 0; s < n; s++) {
+            if (afectada[s]) {
+                files[k++] = s;
+            }
+        }
+        pool.invoke(new CalculFiles(this, graf, cerca, files, 0, files.length));
+        return nombre;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de llocs de les matrius.
+     */
+    public int nombreLlocs() {
+        return n;
+    }
+
+    /**
+     * @pre 0 <= origen, desti < n
+     * @post Retorna el temps mínim en minuts, o Double.MAX_VALUE si desti no és
+     *       accessible.
+     */
+    public double temps(int origen, int desti) {
+        float t = temps[origen * n + desti];
+        return t == Float.POSITIVE_INFINITY ? Double.MAX_VALUE : t;
+    }
+
+    /**
+     * @pre 0 <= origen, desti < n
+     * @post Retorna la distància en km del camí més ràpid, o Double.MAX_VALUE
+     *       si desti no és accessible.
+     */
+    public double distancia(int origen, int desti) {
+        float d = distancia[origen * n + desti];
+        return d == Float.POSITIVE_INFINITY ? Double.MAX_VALUE : d;
+    }
+
+    /**
+     * @pre 0 <= origen, desti < n
+     * @post Retorna els índexs dels llocs del camí més ràpid (ambdós extrems
+     *       inclosos), o null si desti no és accessible o si els empats amb
+     *       camins de temps zero no permeten reconstruir-lo.
+     */
+    public int[] cami(int origen, int desti) {
+        int fila = origen * n;
+        if (seguent[fila + desti] < 0) {
+            return null;
+        }
+        int longitud = 1;
+        for (int v = origen; v != desti; v = seguent[v * n + desti]) {
+            if (++longitud > n) {
+                return null;
+            }
+        }
+        int[] cami = new int[longitud];
+        int i = 0;
+        for (int v = origen; v != desti; v = seguent[v * n + desti]) {
+            cami[i++] = v;
+        }
+        cami[i] = desti;
+        return cami;
+    }
+
+    /**
+     * @class EspaiFila
+     * @brief Vectors de treball per calcular una fila de les matrius.
+     */
+    static final class EspaiFila {
+        private final int[] ordre; /// < Llocs en ordre d'assentament.
+        private final int[] camiAnterior; /// < Camí pel qual s'arriba a cada lloc.
+        private final double[] cost; /// < Temps mínim a cada lloc.
+        private final double[] acumulada; /// < Distància acumulada a cada lloc.
+        private final float[] temps; /// < Fila de temps en construcció.
+        private final float[] distancia; /// < Fila de distàncies en construcció.
+        private final int[] seguent; /// < Fila de llocs següents en construcció.
+
+        EspaiFila(int n) {
+            ordre = new int[n];
+            camiAnterior = new int[n];
+            cost = new double[n];
+            acumulada = new double[n];
+            temps = new float[n];
+            distancia = new float[n];
+            seguent = new int[n];
+        }
+    }
+
+    /**
+     * @class CalculFiles
+     * @brief Tasca que calcula les files files[desde, fins) dividint-se en
+     *        dues meitats mentre siguin moltes.
+     */
+    private static final class CalculFiles extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MatriusDistancies matrius;
+        private final GrafCSR graf;
+        private final CercaDijkstra cerca;
+        private final int[] files;
+        private final int desde;
+        private final int fins;
+
+        CalculFiles(MatriusDistancies matrius, GrafCSR graf, CercaDijkstra cerca, int[] files, int desde,
+                int fins) {
+            this.matrius = matrius;
+            this.graf = graf;
+            this.cerca = cerca;
+            this.files = files;
+            this.desde = desde;
+            this.fins = fins;
+        }
+
+        @Override
+        protected void compute() {
+            if (fins - desde > FILES_PER_TASCA) {
+                int mig = (desde + fins) >>> 1;
+                invokeAll(new CalculFiles(matrius, graf, cerca, files, desde, mig),
+                        new CalculFiles(matrius, graf, cerca, files, mig, fins));
+                return;
+            }
+            EspaiFila espai = new EspaiFila(graf.nombreLlocs());
+            for (int i = desde; i < fins; i++) {
+                matrius.calcularFila(graf, cerca, files[i], espai);
+            }
+        }
+    }
+}
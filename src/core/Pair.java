@@ -1,5 +1,7 @@
 package core;
 
+import java.io.Serializable;
+
 /**
  * @class Pair
  * @brief Classe genèrica que representa un parell de valors (clau, valor).
@@ -7,7 +9,9 @@ package core;
  * @author Dídac Gros Labrador
  * @version 2025.05.15
  */
-public class Pair<K, V> {
+public class Pair<K, V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private final K key; /// < Clau del parell.
     private final V value; /// < Valor del parell.
 
@@ -39,6 +39,20 @@ public class Parquing extends Lloc {
         return null; // No hi ha punts de càrrega disponibles
     }
 
+    /**
+     * @pre tipus != null
+     * @post Retorna true si hi ha algun punt de càrrega públic lliure del tipus
+     *       indicat, false en cas contrari.
+     */
+    public boolean teCarregadorPublicLliure(TipusPuntCarrega tipus) {
+        for (PuntCarrega punt : puntsCargaPublics) {
+            if (!punt.isOcupat() && punt.getTipusCarga() == tipus) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * @pre Cert.
      * @post Retorna si el punt de càrrega és privat.
@@ -139,6 +153,48 @@ public class Parquing extends Lloc {
         return puntsCargaPublics.size();
     }
 
+    /**
+     * @pre Cert.
+     * @post Retorna els punts de càrrega públics del pàrquing.
+     */
+    List<PuntCarrega> obtenirLlistaPuntsCarregaPublics() {
+        return puntsCargaPublics;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna si cada punt de càrrega està ocupat, primer els públics i
+     *       després els privats.
+     */
+    boolean[] obtenirOcupacioPunts() {
+        boolean[] ocupats = new boolean[puntsCargaPublics.size() + puntsCargaPrivats.size()];
+        int i = 0;
+        for (PuntCarrega punt : puntsCargaPublics) {
+            ocupats[i++] = punt.isOcupat();
+        }
+        for (PuntCarrega punt : puntsCargaPrivats) {
+            ocupats[i++] = punt.isOcupat();
+        }
+        return ocupats;
+    }
+
+    /**
+     * @pre ocupats té un valor per cada punt de càrrega, en l'ordre de
+     *      obtenirOcupacioPunts().
+     * @post El pàrquing té vehiclesActuals vehicles i els punts de càrrega
+     *       ocupats indicats.
+     */
+    void restaurarOcupacio(int vehiclesActuals, boolean[] ocupats) {
+        this.vehiclesActuals = vehiclesActuals;
+        int i = 0;
+        for (PuntCarrega punt : puntsCargaPublics) {
+            punt.setOcupat(ocupats[i++]);
+        }
+        for (PuntCarrega punt : puntsCargaPrivats) {
+            punt.setOcupat(ocupats[i++]);
+        }
+    }
+
     /**
      * @pre Cert.
      * @post Retorna el nombre de places de pàrquing disponibles.
@@ -1,7 +1,6 @@
 package core;
 
-import java.time.Duration;
-import java.time.LocalTime;
+import java.io.Serializable;
 
 /**
  * @class Peticio
@@ -12,18 +11,19 @@ import java.time.LocalTime;
  * @author Dídac Gros Labrador
  * @version 2025.03.04
  */
-public class Peticio {
+public class Peticio implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private int id; /// < Identificador de la petició.
     private Lloc origen; /// < Lloc on el client vol ser recollit.
     private Lloc desti; /// < Lloc on el client vol arribar.
-    private LocalTime horaMinimaRecollida;/// < Hora mínima en què el client vol ser recollit.
-    private LocalTime horaMaximaArribada; /// < Hora màxima en què el client vol arribar al destí.
+    private long horaMinimaRecollida;/// < Hora mínima en què el client vol ser recollit, en ticks.
+    private long horaMaximaArribada; /// < Hora màxima en què el client vol arribar al destí, en ticks.
     private int numPassatgers; /// < Nombre de passatgers que han de viatjar.
     private boolean vehicleCompartit;/// < Indica si el client vol un vehicle compartit.
     private EstatPeticio estat;/// < Estat actual de la petició.
 
-    public Peticio(int id, Lloc origen, Lloc desti, LocalTime horaMinimaRecollida, LocalTime horaMaximaArribada,
+    public Peticio(int id, Lloc origen, Lloc desti, long horaMinimaRecollida, long horaMaximaArribada,
             int numPassatgers, boolean vehicleCompartit) {
         this.id = id;
         this.origen = origen;
@@ -73,19 +73,21 @@ public class Peticio {
 
     /**
      * @pre Cert.
-     * @post Retorna l'hora més primerenca en què el client vol ser recollit.
+     * @post Retorna l'hora més primerenca en què el client vol ser recollit,
+     *       en ticks.
      *
      */
-    public LocalTime obtenirHoraMinimaRecollida() {
+    public long obtenirHoraMinimaRecollida() {
         return horaMinimaRecollida;
     }
 
     /**
      * @pre Cert.
-     * @post Retorna l'hora màxima en què el client vol arribar al seu destí.
+     * @post Retorna l'hora màxima en què el client vol arribar al seu destí,
+     *       en ticks.
      *
      */
-    public LocalTime obtenirHoraMaximaArribada() {
+    public long obtenirHoraMaximaArribada() {
         return horaMaximaArribada;
     }
 
@@ -127,10 +129,7 @@ public class Peticio {
     }
 
     public double diferenciaEnMinuts() {
-        // Calculem la diferència com una Duration
-        Duration durada = Duration.between(this.horaMinimaRecollida, this.horaMaximaArribada);
-
         // Retornem la durada en minuts com a double
-        return durada.toSeconds() / 60.0;
+        return (this.horaMaximaArribada - this.horaMinimaRecollida) / (double) Temps.SEGONS_MINUT;
     }
 }
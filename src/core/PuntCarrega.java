@@ -1,5 +1,7 @@
 package core;
 
+import java.io.Serializable;
+
 /**
  * @class PuntCarrega
  * @brief Classe que representa un punt de càrrega d'un vehicle elèctric.
@@ -7,7 +9,9 @@ package core;
  * @author Dídac Gros Labrador
  * @version 2025.05.13
  */
-public class PuntCarrega {
+public class PuntCarrega implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private TipusPuntCarrega tipusCarga; /// < Tipus de punt de càrrega (ràpid o lent).
     private boolean ocupat; /// < Indica si el punt de càrrega està ocupat o no.
 
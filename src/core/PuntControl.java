@@ -0,0 +1,201 @@
+package core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import events.Event;
+
+/**
+ * @class PuntControl
+ * @brief Estat complet d'una simulació entre dos instants, per guardar-lo en
+ *        un fitxer binari i reprendre-la des d'aquell punt.
+ * @details Conté els vehicles, conductors, peticions, estadístiques, generador
+ *          aleatori i punts de càrrega de la simulació, l'ocupació dels
+ *          pàrquings i els esdeveniments pendents. El mapa no s'hi guarda: els
+ *          llocs i els camins s'escriuen pel seu identificador i en llegir-los
+ *          se substitueixen pels del mapa donat, que ha de ser el de la
+ *          simulació. Tampoc s'hi guarda el diari dels esdeveniments ja
+ *          executats. El fitxer és la serialització de l'estat comprimida amb
+ *          GZIP, i només el pot llegir la mateixa versió del programa que l'ha
+ *          escrit.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.22
+ */
+final class PuntControl implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    long horaInici; /// < Hora d'inici de la simulació, en ticks.
+    long horaFi; /// < Hora de finalització de la simulació, en ticks.
+    long horaActual; /// < Últim instant executat, en ticks.
+    List<Vehicle> vehicles; /// < Vehicles de la simulació.
+    List<Conductor> conductors; /// < Conductors de la simulació.
+    List<Peticio> peticions; /// < Peticions pendents de servei.
+    List<Peticio> totesPeticions; /// < Totes les peticions, per guardar-les al .json.
+    List<Event> esdeveniments; /// < Esdeveniments pendents, en ordre.
+    Estadistiques estadistiques; /// < Estadístiques acumulades.
+    GeneradorAleatori aleatori; /// < Generador aleatori, en el seu estat actual.
+    DotacioCarregadors carregadors; /// < Punts de càrrega públics de la simulació, o null.
+    Map<Integer, long[]> carregadorsOcupatsFins; /// < Instant en què queda lliure cada punt de càrrega públic, per id de pàrquing.
+    List<EstatParquing> parquings = new ArrayList<>(); /// < Ocupació de cada pàrquing del mapa.
+
+    /**
+     * @class EstatParquing
+     * @brief Ocupació d'un pàrquing del mapa.
+     */
+    static final class EstatParquing implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int id; /// < Identificador del pàrquing.
+        final int vehicles; /// < Vehicles que hi ha al pàrquing.
+        final boolean[] ocupats; /// < Si cada punt de càrrega està ocupat (vegeu Parquing.obtenirOcupacioPunts).
+
+        EstatParquing(Parquing parquing) {
+            this.id = parquing.obtenirId();
+            this.vehicles = parquing.obtenirVehiclesActuals();
+            this.ocupats = parquing.obtenirOcupacioPunts();
+        }
+    }
+
+    /**
+     * @class RefLloc
+     * @brief Lloc del mapa, escrit pel seu identificador.
+     */
+    private static final class RefLloc implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int id; /// < Identificador del lloc.
+
+        RefLloc(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * @class RefCami
+     * @brief Camí del mapa, escrit pels identificadors dels seus extrems.
+     */
+    private static final class RefCami implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int origen; /// < Identificador del lloc d'origen.
+        final int desti; /// < Identificador del lloc de destí.
+        final double distancia; /// < Distància, per si el camí ja no és al mapa.
+        final double temps; /// < Temps, per si el camí ja no és al mapa.
+
+        RefCami(Cami cami) {
+            this.origen = cami.obtenirOrigen().obtenirId();
+            this.desti = cami.obtenirDesti().obtenirId();
+            this.distancia = cami.obtenirDistancia();
+            this.temps = cami.obtenirTemps();
+        }
+    }
+
+    /**
+     * @class Sortida
+     * @brief Escriu l'estat canviant els llocs i camins per referències.
+     */
+    private static final class Sortida extends ObjectOutputStream {
+        Sortida(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Lloc lloc) {
+                return new RefLloc(lloc.obtenirId());
+            }
+            if (obj instanceof Cami cami) {
+                return new RefCami(cami);
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * @class Entrada
+     * @brief Llegeix l'estat canviant les referències pels llocs i camins del
+     *        mapa.
+     */
+    private static final class Entrada extends ObjectInputStream {
+        private final Mapa mapa; /// < Mapa de la simulació.
+        private final Map<Integer, Lloc> llocsPerId = new HashMap<>(); /// < Llocs del mapa per identificador.
+
+        Entrada(InputStream in, Mapa mapa) throws IOException {
+            super(in);
+            this.mapa = mapa;
+            for (Lloc lloc : mapa.getLlocs().keySet()) {
+                llocsPerId.put(lloc.obtenirId(), lloc);
+            }
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof RefLloc ref) {
+                return lloc(ref.id);
+            }
+            if (obj instanceof RefCami ref) {
+                Lloc origen = lloc(ref.origen);
+                Lloc desti = lloc(ref.desti);
+                Cami cami = mapa.hihaCami(origen, desti);
+                return cami != null ? cami : new Cami(origen, desti, ref.distancia, ref.temps);
+            }
+            return obj;
+        }
+
+        private Lloc lloc(int id) throws InvalidObjectException {
+            Lloc lloc = llocsPerId.get(id);
+            if (lloc == null) {
+                throw new InvalidObjectException("El lloc " + id + " del punt de control no és al mapa");
+            }
+            return lloc;
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Escriu el punt de control al fitxer, que se substitueix si ja
+     *       existeix.
+     */
+    void escriure(File fitxer) throws IOException {
+        try (ObjectOutputStream sortida = new Sortida(
+                new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(fitxer))))) {
+            sortida.writeObject(this);
+        }
+    }
+
+    /**
+     * @pre fitxer l'ha escrit escriure() en una simulació sobre un mapa amb
+     *      els mateixos llocs i camins que mapa.
+     * @post Retorna el punt de control del fitxer, amb els llocs i camins de
+     *       mapa.
+     * @throws IOException si el fitxer no es pot llegir o no és un punt de
+     *         control d'aquest mapa.
+     */
+    static PuntControl llegir(File fitxer, Mapa mapa) throws IOException {
+        try (ObjectInputStream entrada = new Entrada(
+                new GZIPInputStream(new BufferedInputStream(new FileInputStream(fitxer))), mapa)) {
+            return (PuntControl) entrada.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidObjectException("El fitxer no és un punt de control: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package core;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @class Registre
+ * @brief Missatges de traça de la simulació, per nivells i escrits en un fil
+ *        a part.
+ * @details Els missatges d'un nivell per sota del nivell actiu no es
+ *          construeixen: es passen com a Supplier, que només es crida si el
+ *          nivell està actiu. Un Supplier que captura variables, però, es crea
+ *          a cada crida encara que el nivell no estigui actiu: en els bucles de
+ *          la simulació, i on el missatge és car de construir, es comprova
+ *          abans amb actiu() i s'escriu amb escriure(). Els missatges de cada
+ *          esdeveniment són de nivell DEPURACIO, perquè una execució per lots
+ *          amb el nivell per defecte no els escrigui. Els missatges actius es
+ *          posen en una cua circular de mida fixa i un fil dimoni els escriu,
+ *          de manera que qui els genera no espera l'escriptura; si la cua és
+ *          plena, espera que hi hagi lloc. Cada missatge s'escriu al System.out
+ *          (o System.err per a AVIS i ERROR) que hi havia quan es va generar, i
+ *          els d'un mateix fil surten en ordre. El nivell inicial es tria amb
+ *          la propietat del sistema "registre" (depuracio, info, avis, error o
+ *          cap); per defecte és INFO.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.24
+ */
+public final class Registre {
+
+    /**
+     * @enum Nivell
+     * @brief Nivells dels missatges, de més a menys detallat.
+     */
+    public enum Nivell {
+        DEPURACIO, INFO, AVIS, ERROR, CAP
+    }
+
+    private static final int CAPACITAT = 8192; /// < Missatges que caben a la cua.
+    private static final int MIDA_LOT = 256; /// < Missatges que l'escriptor treu de cop com a màxim.
+
+    /**
+     * @class Missatge
+     * @brief Missatge pendent d'escriure.
+     */
+    private static final class Missatge {
+        final PrintStream desti; /// < On s'ha d'escriure.
+        final String text; /// < Text del missatge.
+
+        Missatge(PrintStream desti, String text) {
+            this.desti = desti;
+            this.text = text;
+        }
+    }
+
+    private static volatile Nivell nivell = nivellInicial(); /// < Nivell mínim dels missatges que s'escriuen.
+    private static final BlockingQueue<Missatge> cua = new ArrayBlockingQueue<>(CAPACITAT); /// < Missatges pendents.
+    private static final AtomicLong enviats = new AtomicLong(); /// < Missatges posats a la cua.
+    private static final Object escrit = new Object(); /// < Avisa quan l'escriptor ha escrit un lot.
+    private static long escrits; /// < Missatges escrits (protegit per escrit).
+
+    /**
+     * @class Escriptor
+     * @brief Fil que escriu els missatges.
+     * @details El fil es crea quan s'inicialitza aquesta classe, que la JVM
+     *          fa un sol cop, la primera vegada que s'escriu un missatge. Les
+     *          crides següents a iniciar() no prenen cap bloqueig.
+     */
+    private static final class Escriptor {
+        static final Thread FIL = crear(); /// < Fil que escriu els missatges.
+
+        private static Thread crear() {
+            Thread fil = new Thread(Registre::escriureMissatges, "registre");
+            fil.setDaemon(true);
+            fil.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(Registre::buidar, "registre-final"));
+            return fil;
+        }
+
+        /**
+         * @pre Cert.
+         * @post El fil escriptor està en marxa.
+         */
+        static void iniciar() {
+            // inicialitzar la classe ja ha creat el fil
+        }
+    }
+
+    private Registre() {
+    }
+
+    private static Nivell nivellInicial() {
+        String valor = System.getProperty("registre");
+        return valor == null ? Nivell.INFO : Nivell.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @pre nivell != null
+     * @post A partir d'ara només s'escriuen els missatges de nivell igual o
+     *       superior al donat (cap si és CAP).
+     */
+    public static void setNivell(Nivell nivell) {
+        Registre.nivell = nivell;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nivell actiu.
+     */
+    public static Nivell getNivell() {
+        return nivell;
+    }
+
+    /**
+     * @pre n != null
+     * @post Retorna true si els missatges de nivell n s'escriuen.
+     */
+    public static boolean actiu(Nivell n) {
+        return n != Nivell.CAP && n.compareTo(nivell) >= 0;
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Si el nivell DEPURACIO és actiu, escriu el missatge.
+     */
+    public static void depuracio(Supplier<String> missatge) {
+        if (actiu(Nivell.DEPURACIO)) {
+            escriure(Nivell.DEPURACIO, missatge.get());
+        }
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Si el nivell INFO és actiu, escriu el missatge.
+     */
+    public static void info(Supplier<String> missatge) {
+        if (actiu(Nivell.INFO)) {
+            escriure(Nivell.INFO, missatge.get());
+        }
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Si el nivell AVIS és actiu, escriu el missatge.
+     */
+    public static void avis(Supplier<String> missatge) {
+        if (actiu(Nivell.AVIS)) {
+            escriure(Nivell.AVIS, missatge.get());
+        }
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Si el nivell ERROR és actiu, escriu el missatge.
+     */
+    public static void error(Supplier<String> missatge) {
+        if (actiu(Nivell.ERROR)) {
+            escriure(Nivell.ERROR, missatge.get());
+        }
+    }
+
+    /**
+     * @pre n != CAP; text != null; el nivell n és actiu (vegeu actiu()).
+     * @post Posa el text a la cua per escriure'l en una línia.
+     */
+    public static void escriure(Nivell n, String text) {
+        PrintStream desti = n.compareTo(Nivell.AVIS) >= 0 ? System.err : System.out;
+        Missatge missatge = new Missatge(desti, text);
+        Escriptor.iniciar();
+        enviats.incrementAndGet();
+        try {
+            cua.put(missatge);
+        } catch (InterruptedException e) {
+            // No es perd el missatge: s'escriu directament
+            Thread.currentThread().interrupt();
+            desti.println(text);
+            anotarEscrits(1);
+        }
+    }
+
+    /**
+     * @pre No es crida des del fil escriptor.
+     * @post Espera que s'hagin escrit tots els missatges generats abans de la
+     *       crida.
+     */
+    public static void buidar() {
+        long objectiu = enviats.get();
+        synchronized (escrit) {
+            while (escrits < objectiu) {
+                try {
+                    escrit.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @pre Es crida des del fil escriptor.
+     * @post Escriu per sempre els missatges de la cua, per lots.
+     */
+    private static void escriureMissatges() {
+        List<Missatge> lot = new ArrayList<>(MIDA_LOT);
+        Map<PrintStream, Boolean> destins = new IdentityHashMap<>();
+        while (true) {
+            try {
+                lot.add(cua.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            cua.drainTo(lot, MIDA_LOT - 1);
+            for (Missatge missatge : lot) {
+                missatge.desti.println(missatge.text);
+                destins.put(missatge.desti, Boolean.TRUE);
+            }
+            for (PrintStream desti : destins.keySet()) {
+                desti.flush();
+            }
+            anotarEscrits(lot.size());
+            lot.clear();
+            destins.clear();
+        }
+    }
+
+    private static void anotarEscrits(int n) {
+        synchronized (escrit) {
+            escrits += n;
+            escrit.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package core;
+
+/**
+ * @interface Rellotge
+ * @brief Decideix quant s'espera, en temps real, entre dos esdeveniments de la
+ *        simulació.
+ * @details El bucle de la simulació pregunta al rellotge el retard abans de
+ *          cada instant amb esdeveniments (que s'executen tots junts), a partir
+ *          de l'hora simulada de l'anterior i de la del següent. Així el
+ *          mateix bucle pot anar a un instant per
+ *          segon, seguir el temps simulat (a escala real o accelerat), avançar
+ *          pas a pas o anar tan ràpid com pugui.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.15
+ */
+public interface Rellotge {
+
+    long ESPERAR_PAS = -1; /// < Retard que indica que cal esperar que es demani el pas següent.
+
+    /**
+     * @pre seguent >= 0
+     * @post Retorna els mil·lisegons que cal esperar abans d'executar
+     *       l'esdeveniment de l'hora seguent, si l'anterior era a l'hora
+     *       anterior (Temps.SENSE_HORA si no n'hi ha cap), o ESPERAR_PAS. Les
+     *       hores són en ticks.
+     */
+    long retard(long anterior, long seguent);
+
+    /**
+     * @pre ms >= 0
+     * @post Retorna un rellotge que executa un instant amb esdeveniments cada
+     *       ms mil·lisegons, sigui quin sigui el temps simulat entre ells.
+     */
+    static Rellotge intervalFix(long ms) {
+        return (anterior, seguent) -> ms;
+    }
+
+    /**
+     * @pre factor > 0
+     * @post Retorna un rellotge que espera el temps simulat entre esdeveniments
+     *       dividit per factor (factor 10 va deu vegades més ràpid que el temps
+     *       real).
+     */
+    static Rellotge escalat(double factor) {
+        return (anterior, seguent) -> {
+            if (anterior == Temps.SENSE_HORA) {
+                return 0;
+            }
+            long ms = (seguent - anterior) * 1000;
+            return Math.max(0, Math.round(ms / factor));
+        };
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna un rellotge que segueix el temps simulat a escala real.
+     */
+    static Rellotge tempsReal() {
+        return escalat(1.0);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna un rellotge que només avança quan es demana el pas
+     *       següent.
+     */
+    static Rellotge pasAPas() {
+        return (anterior, seguent) -> ESPERAR_PAS;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna un rellotge sense cap espera.
+     */
+    static Rellotge maximaVelocitat() {
+        return (anterior, seguent) -> 0;
+    }
+
+    /**
+     * @pre nom != null
+     * @post Retorna el rellotge amb el nom donat: "fix" (un instant amb
+     *       esdeveniments per segon), "real", "x<factor>" (per exemple "x10" o "x1000"), "pas" o
+     *       "max".
+     * @throws IllegalArgumentException si el nom no correspon a cap rellotge.
+     */
+    static Rellotge perNom(String nom) {
+        String n = nom.trim().toLowerCase();
+        switch (n) {
+            case "fix":
+                return intervalFix(1000);
+            case "real":
+                return tempsReal();
+            case "pas":
+                return pasAPas();
+            case "max":
+                return maximaVelocitat();
+            default:
+                if (n.startsWith("x")) {
+                    try {
+                        double factor = Double.parseDouble(n.substring(1));
+                        if (factor > 0) {
+                            return escalat(factor);
+                        }
+                    } catch (NumberFormatException e) {
+                        // s'informa a sota
+                    }
+                }
+                throw new IllegalArgumentException("Rellotge desconegut: " + nom);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @class ReplicacionsMonteCarlo
+ * @brief Executa diverses rèpliques independents d'una simulació en paral·lel
+ *        i en resumeix els resultats.
+ * @details Cada rèplica és un Simulador nou, creat per la fàbrica amb tot el
+ *          seu estat (mapa, vehicles, conductors i peticions) i amb el seu
+ *          propi generador aleatori, de manera que les rèpliques no comparteixen
+ *          res i es poden executar en fils diferents. Les llavors de les
+ *          rèpliques surten de la llavor base, i els resultats es guarden en
+ *          l'ordre de les llavors: amb la mateixa llavor base el resum és el
+ *          mateix sigui quin sigui el nombre de fils.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.19
+ */
+public final class ReplicacionsMonteCarlo {
+
+    /**
+     * @interface FabricaSimulador
+     * @brief Crea una rèplica de la simulació.
+     */
+    public interface FabricaSimulador {
+        /**
+         * @pre Cert.
+         * @post Retorna un Simulador nou, que no comparteix cap objecte mutable
+         *       amb els d'altres crides, amb les dades aleatòries generades a
+         *       partir de la llavor donada.
+         */
+        Simulador crear(long llavor);
+    }
+
+    private final FabricaSimulador fabrica; /// < Crea cada rèplica.
+    private final int fils; /// < Fils que executen rèpliques alhora.
+
+    /**
+     * @pre fabrica != null; fils >= 1
+     * @post Crea un executor de rèpliques amb el nombre de fils donat.
+     */
+    public ReplicacionsMonteCarlo(FabricaSimulador fabrica, int fils) {
+        if (fils < 1) {
+            throw new IllegalArgumentException("Cal almenys un fil");
+        }
+        this.fabrica = fabrica;
+        this.fils = fils;
+    }
+
+    /**
+     * @pre n >= 1
+     * @post Executa n rèpliques sense interfície i en retorna el resum.
+     * @throws IllegalStateException si alguna rèplica falla.
+     */
+    public ResumReplicacions executar(int n, long llavorBase) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Cal almenys una rèplica");
+        }
+        GeneradorAleatori llavors = new GeneradorAleatori(llavorBase);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(fils, n));
+        try {
+            List<Future<Estadistiques>> pendents = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                long llavor = llavors.nextLong();
+                pendents.add(executor.submit(() -> {
+                    Simulador simulador = fabrica.crear(llavor);
+                    simulador.executarSenseInterficie(null, null);
+                    return simulador.getEstadistiques();
+                }));
+            }
+            List<Estadistiques> resultats = new ArrayList<>();
+            for (Future<Estadistiques> pendent : pendents) {
+                resultats.add(pendent.get());
+            }
+            return new ResumReplicacions(resultats);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ha fallat una rèplica: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("S'han interromput les rèpliques", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @pre dir conté llocs.csv, camins.csv, vehicles.csv, conductors.csv i
+     *      peticions.csv; 0 <= horaInici < horaFi, en ticks; peticionsAleatories
+     *      >= 0
+     * @post Retorna una fàbrica que, per cada rèplica, torna a llegir
+     *       l'escenari dels fitxers (així cada rèplica en té una còpia pròpia) i
+     *       hi afegeix peticionsAleatories peticions aleatòries generades amb
+     *       la llavor de la rèplica.
+     */
+    public static FabricaSimulador desDeEscenari(File dir, long horaInici, long horaFi, int peticionsAleatories) {
+        return llavor -> {
+            Simulador simulador = carregarEscenari(dir, horaInici, horaFi, CuaEsdeveniments.crear());
+            simulador.setLlavor(llavor);
+            List<Lloc> llocs = new ArrayList<>(simulador.getMapa().getLlocs().keySet());
+            for (int i = 0; i < peticionsAleatories; i++) {
+                simulador.afegirPeticioAleatoria(llocs);
+            }
+            return simulador;
+        };
+    }
+
+    /**
+     * @pre dir conté llocs.csv, camins.csv, vehicles.csv, conductors.csv i
+     *      peticions.csv; 0 <= horaInici < horaFi, en ticks.
+     * @post Retorna un Simulador nou amb l'escenari del directori, que programa
+     *       els esdeveniments a la cua donada.
+     */
+    static Simulador carregarEscenari(File dir, long horaInici, long horaFi, CuaEsdeveniments cua) {
+        List<Lloc> llocs = LectorCSV.carregarLlocs(new File(dir, "llocs.csv").getPath());
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        Mapa mapa = new Mapa();
+        for (Lloc lloc : llocs) {
+            llocsPerId.put(lloc.obtenirId(), lloc);
+            mapa.afegirLloc(lloc);
+        }
+        for (Cami cami : LectorCSV.carregarCamins(new File(dir, "camins.csv").getPath(), llocsPerId)) {
+            mapa.afegirCami(cami);
+        }
+        List<Vehicle> vehicles = LectorCSV.carregarVehicles(new File(dir, "vehicles.csv").getPath(), llocsPerId);
+        Map<Integer, Vehicle> vehiclesPerId = new HashMap<>();
+        for (Vehicle vehicle : vehicles) {
+            vehiclesPerId.put(vehicle.getId(), vehicle);
+        }
+        List<Conductor> conductors = LectorCSV.carregarConductors(new File(dir, "conductors.csv").getPath(),
+                vehiclesPerId, llocsPerId);
+        List<Peticio> peticions = LectorCSV.carregarPeticions(new File(dir, "peticions.csv").getPath(),
+                llocsPerId);
+        return new Simulador(horaInici, horaFi, mapa, vehicles, conductors, peticions, cua);
+    }
+}
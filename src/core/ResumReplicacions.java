@@ -0,0 +1,179 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @class ResumReplicacions
+ * @brief Mitjana i interval de confiança del 95% de cada mètrica d'un conjunt
+ *        de rèpliques d'una simulació.
+ * @details Cada rèplica aporta un valor per mètrica (el que dóna la seva
+ *          Estadistiques). L'interval és el de la t de Student amb n - 1 graus
+ *          de llibertat: mitjana ± t · s / √n. Amb una sola rèplica l'interval
+ *          és només la mitjana.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.19
+ */
+public final class ResumReplicacions {
+
+    /// Quantils 0.975 de la t de Student per 1..30 graus de llibertat.
+    private static final double[] T_975 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262,
+            2.228, 2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069,
+            2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042 };
+    private static final double Z_975 = 1.959964; /// < Quantil 0.975 de la normal.
+
+    /**
+     * @class Metrica
+     * @brief Resum d'una mètrica: mitjana, desviació i interval de confiança.
+     */
+    public static final class Metrica {
+        private final String nom; /// < Nom de la mètrica.
+        private final double mitjana; /// < Mitjana de les rèpliques.
+        private final double desviacio; /// < Desviació típica mostral.
+        private final double marge; /// < Mig ample de l'interval de confiança.
+
+        Metrica(String nom, double mitjana, double desviacio, double marge) {
+            this.nom = nom;
+            this.mitjana = mitjana;
+            this.desviacio = desviacio;
+            this.marge = marge;
+        }
+
+        /// @return Nom de la mètrica
+        public String getNom() {
+            return nom;
+        }
+
+        /// @return Mitjana de les rèpliques
+        public double getMitjana() {
+            return mitjana;
+        }
+
+        /// @return Desviació típica mostral de les rèpliques
+        public double getDesviacio() {
+            return desviacio;
+        }
+
+        /// @return Extrem inferior de l'interval de confiança del 95%
+        public double getInferior() {
+            return mitjana - marge;
+        }
+
+        /// @return Extrem superior de l'interval de confiança del 95%
+        public double getSuperior() {
+            return mitjana + marge;
+        }
+    }
+
+    private final List<Estadistiques> replicacions; /// < Estadístiques de cada rèplica, en ordre.
+    private final Map<String, Metrica> metriques = new LinkedHashMap<>(); /// < Resum per nom de mètrica.
+
+    /**
+     * @pre replicacions no és buida.
+     * @post Calcula el resum de cada mètrica de les rèpliques donades.
+     */
+    public ResumReplicacions(List<Estadistiques> replicacions) {
+        if (replicacions.isEmpty()) {
+            throw new IllegalArgumentException("Cal almenys una rèplica");
+        }
+        this.replicacions = Collections.unmodifiableList(new ArrayList<>(replicacions));
+        afegir("Peticions servides", Estadistiques::getPeticionesServidas);
+        afegir("Peticions no servides", Estadistiques::getPeticionesNoServidas);
+        afegir("Percentatge d'èxit (%)", Estadistiques::getPorcentajeExito);
+        afegir("Temps espera promig (min)", Estadistiques::getTiempoEsperaPromedio);
+        afegir("Temps espera màxim (min)", Estadistiques::getTiempoMaximoEspera);
+        afegir("Ocupació promig vehicles (%)", Estadistiques::getOcupacionPromedioVehiculos);
+        afegir("Bateria promig (%)", Estadistiques::getPorcentajeBateriaPromedio);
+        afegir("Temps viatge promig (min)", Estadistiques::getTiempoViajePromedio);
+    }
+
+    private void afegir(String nom, ToDoubleFunction<Estadistiques> valor) {
+        int n = replicacions.size();
+        double suma = 0.0;
+        for (Estadistiques e : replicacions) {
+            suma += valor.applyAsDouble(e);
+        }
+        double mitjana = suma / n;
+        double quadrats = 0.0;
+        for (Estadistiques e : replicacions) {
+            double d = valor.applyAsDouble(e) - mitjana;
+            quadrats += d * d;
+        }
+        double desviacio = n > 1 ? Math.sqrt(quadrats / (n - 1)) : 0.0;
+        double marge = n > 1 ? quantilT(n - 1) * desviacio / Math.sqrt(n) : 0.0;
+        metriques.put(nom, new Metrica(nom, mitjana, desviacio, marge));
+    }
+
+    /**
+     * @pre graus >= 1
+     * @post Retorna el quantil 0.975 de la t de Student amb els graus de
+     *       llibertat donats (aproximació de Cornish-Fisher a partir de 30).
+     */
+    static double quantilT(int graus) {
+        if (graus <= T_975.length) {
+            return T_975[graus - 1];
+        }
+        double z = Z_975;
+        double z3 = z * z * z;
+        return z + (z3 + z) / (4.0 * graus) + (5 * z3 * z * z + 16 * z3 + 3 * z) / (96.0 * graus * graus);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el nombre de rèpliques.
+     */
+    public int nombreReplicacions() {
+        return replicacions.size();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna les estadístiques de cada rèplica, en l'ordre de les
+     *       llavors.
+     */
+    public List<Estadistiques> getReplicacions() {
+        return replicacions;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el resum de cada mètrica, en ordre fix.
+     */
+    public List<Metrica> getMetriques() {
+        return new ArrayList<>(metriques.values());
+    }
+
+    /**
+     * @pre nom és el nom d'una mètrica.
+     * @post Retorna el resum de la mètrica amb el nom donat.
+     */
+    public Metrica getMetrica(String nom) {
+        Metrica metrica = metriques.get(nom);
+        if (metrica == null) {
+            throw new IllegalArgumentException("Mètrica desconeguda: " + nom);
+        }
+        return metrica;
+    }
+
+    /**
+     * @brief Retorna el resum en format de taula.
+     * @return String amb una fila per mètrica
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Rèpliques: %d (interval de confiança del 95%%)%n", replicacions.size()));
+        text.append(String.format("%-30s %12s %12s %12s %12s%n", "Mètrica", "Mitjana", "Desviació", "Inferior",
+                "Superior"));
+        for (Metrica m : metriques.values()) {
+            text.append(String.format("%-30s %12.3f %12.3f %12.3f %12.3f%n", m.getNom(), m.getMitjana(),
+                    m.getDesviacio(), m.getInferior(), m.getSuperior()));
+        }
+        return text.toString();
+    }
+}
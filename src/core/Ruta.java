@@ -1,6 +1,6 @@
 package core;
 
-import java.time.LocalTime;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,12 +13,14 @@ import java.util.List;
  * @author Dídac Gros Labrador
  * @version 2025.03.04
  */
-public class Ruta {
+public class Ruta implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private List<Lloc> llocs; /// < Llista de llocs que formen la ruta.
     private List<Cami> camins = new ArrayList<>();
     private double distanciaTotal; /// < Distància total de la ruta.
     private double tempsTotal; /// < Temps total de la ruta.
-    private LocalTime horaInici; /// < Hora d'inici de la ruta.
+    private long horaInici; /// < Hora d'inici de la ruta, en ticks.
     private Conductor conductor; /// < Conductor que realitza la ruta.
     private boolean esRutaCarrega; /// < Indica si la ruta és per una petició.
     private List<Pair<Integer, Integer>> llocsOrigenPeticioId; /// < Llista de parells que guardaran cada origen d'una
@@ -26,8 +28,9 @@ public class Ruta {
     private List<Pair<Integer, Integer>> llocsDestiPeticioId; /// < Llista de parells que guardaran cada destí d'una
                                                               /// petició amb el seu nombre de passatgers.
     private int passatgersPeticio; /// < Nombre de passatgers de la petició.
+    private List<Integer> paradesCarrega = new ArrayList<>(); /// < Posicions de llocs on s'ha de carregar, en ordre.
 
-    public Ruta(List<Lloc> llocs, LocalTime horaInici, double distanciaTotal, double tempsTotal, Conductor conductor,
+    public Ruta(List<Lloc> llocs, long horaInici, double distanciaTotal, double tempsTotal, Conductor conductor,
             boolean esRutaCarrega) {
         this.llocs = llocs;
         this.distanciaTotal = distanciaTotal;
@@ -44,7 +47,7 @@ public class Ruta {
         this.llocs = null; // Llista buida en lloc de null
         this.distanciaTotal = 0.0;
         this.tempsTotal = 0.0;
-        this.horaInici = null; // O LocalTime.MIN si prefereixes un valor per defecte
+        this.horaInici = Temps.SENSE_HORA;
         this.conductor = null;
         this.esRutaCarrega = false; // Valor per defecte més lògic
     }
@@ -78,6 +81,26 @@ public class Ruta {
         return passatgersPeticio;
     }
 
+    /**
+     * @pre Cert.
+     * @post Assigna les posicions de getLlocs() on el vehicle ha de carregar
+     *       abans de continuar la ruta.
+     *
+     * @param parades Posicions dels llocs on es carrega, en ordre creixent.
+     */
+    public void assignarParadesCarrega(List<Integer> parades) {
+        paradesCarrega = parades;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna les posicions de getLlocs() on el vehicle ha de carregar
+     *       abans de continuar la ruta, en ordre (buida si no cal carregar).
+     */
+    public List<Integer> obtenirParadesCarrega() {
+        return paradesCarrega;
+    }
+
     /**
      * @pre Cert.
      * @post Assigna la llista de parells de llocs d'origen i passatgers.
@@ -189,11 +212,11 @@ public class Ruta {
 
     /**
      * @pre Cert.
-     * @post Retorna l'hora inicial.
+     * @post Retorna l'hora inicial, en ticks.
      *
      * @return Hora inicial.
      */
-    public LocalTime obtenirHoraInici() {
+    public long obtenirHoraInici() {
         return horaInici;
     }
 
@@ -227,9 +250,9 @@ public class Ruta {
         this.tempsTotal = tempsTotal;
     }
 
-    public void setHoraInici(LocalTime horaInici) {
-        if (horaInici == null) {
-            throw new IllegalArgumentException("L'hora d'inici no pot ser nul·la");
+    public void setHoraInici(long horaInici) {
+        if (horaInici < 0) {
+            throw new IllegalArgumentException("L'hora d'inici no pot ser negativa");
         }
         this.horaInici = horaInici;
     }
@@ -245,7 +268,7 @@ public class Ruta {
         this.esRutaCarrega = esRutaCarrega;
     }
 
-    public LocalTime getHoraInici() {
+    public long getHoraInici() {
         return horaInici;
     }
 }
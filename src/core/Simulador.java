@@ -3,18 +3,19 @@ package core;
 import java.awt.BorderLayout;
 import java.awt.Font;
 import java.awt.Frame;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.File;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static javax.swing.BorderFactory.createEmptyBorder;
 import javax.swing.JButton;
@@ -23,13 +24,12 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
-import javax.swing.Timer;
 
 import events.CarregarBateriaEvent;
 import events.DeixarPassatgersEvent;
 import events.Event;
 import events.IniciRutaEvent;
-import events.MoureVehicleEvent;
+import events.PeticioArribadaEvent;
 import views.MapPanel;
 
 /**
@@ -43,43 +43,228 @@ import views.MapPanel;
  */
 public class Simulador {
 
+    static final int CANDIDATS_VORAC = 8;
+    /// < Conductors més propers que s'avaluen primer en l'assignació voraç.
+    public static final long LLAVOR_PER_DEFECTE = 1;
+    /// < Llavor de les dades aleatòries si no se n'indica cap altra amb setLlavor().
     private List<Vehicle> vehicles;
     /// < Vehicles disponibles per la simulació.
     private List<Conductor> conductors;
     /// < Conductors disponibles per la simulació.
     private List<Peticio> peticions;
     /// < Peticions pendents de servei.
-    private LocalTime horaInici;
-    /// < Hora d'inici de la simulació.
-    private LocalTime horaFi;
-    /// < Hora de finalització de la simulació.
-    private LocalTime horaActual;
-    /// < Hora actual de la simulació.
+    private long horaInici;
+    /// < Hora d'inici de la simulació, en ticks.
+    private long horaFi;
+    /// < Hora de finalització de la simulació, en ticks.
+    private long horaActual;
+    /// < Hora actual de la simulació, en ticks.
     private Mapa mapa;
     /// < Mapa de la ciutat.
-    private PriorityQueue<Event> esdeveniments = new PriorityQueue<>();
+    private CuaEsdeveniments esdeveniments;
     /// < Esdeveniments programats.
     private MapPanel mapPanel;
     /// < Panell per mostrar el mapa i els vehicles.
     private Estadistiques estadistiques = new Estadistiques();
     /// < Llista on es guarden totes les peticions al inici per poder guardarles al final al .json.
     private List<Peticio> TotesPeticions = new ArrayList<Peticio>();
-    /// < Llista on es guarden totes el esdeveniments executats durant la simulacio per poder guardarlos al final al .json.
-    private PriorityQueue<Event> esdevenimentsExecutats = new PriorityQueue<>(Comparator.comparing(Event::getTemps));
+    /// < Esdeveniments executats durant la simulació, un sol cop i en ordre, per guardar-los al final al .json i reproduir-los.
+    private DiariEsdeveniments diari = new DiariEsdeveniments();
+    /// < Posició del diari del pròxim esdeveniment a reproduir.
+    private int posicioReproduccio;
+    /// < Posició dels vehicles per trobar els més propers a una petició, o null si els llocs no tenen coordenades.
+    private IndexEspacial indexEspacial;
+    /// < Conductor de cada vehicle.
+    private Map<Vehicle, Conductor> conductorPerVehicle = new HashMap<>();
+    /// < Ritme amb què s'executen els esdeveniments.
+    private Rellotge rellotge = Rellotge.intervalFix(1000);
+    /// < Bucle que executa la simulació en curs, o null.
+    private BucleSimulacio bucle;
+    /// < Generador aleatori de la simulació; cada component en fa servir un flux propi.
+    private GeneradorAleatori aleatori = new GeneradorAleatori(LLAVOR_PER_DEFECTE);
+    /// < Punts de càrrega públics de la simulació, o null si són els del mapa.
+    private DotacioCarregadors carregadors;
+    /// < Peticions que han arribat durant l'instant en curs.
+    private List<Peticio> peticionsNoves = new ArrayList<>();
+    /// < Conductors que han quedat lliures durant l'instant en curs, en ordre.
+    private Set<Conductor> conductorsAlliberats = new LinkedHashSet<>();
+    /// < Hora màxima d'arribada més propera de les peticions pendents; abans d'aquesta hora no n'ha caducat cap.
+    private long properaCaducitat;
+    /// < Instant en què queda lliure cada punt de càrrega públic, per id de pàrquing, en ticks.
+    private Map<Integer, long[]> carregadorsOcupatsFins = new HashMap<>();
+    /// < Directori on es guarden els punts de control periòdics, o null.
+    private File directoriPuntsControl;
+    /// < Ticks entre dos punts de control periòdics.
+    private long intervalPuntsControl;
+    /// < Instant a partir del qual toca guardar el pròxim punt de control periòdic.
+    private long properPuntControl;
 
+    /**
+     * @pre Cap paràmetre és null.
+     * @post Crea una simulació d'un sol dia; si horaFi no és posterior a
+     * horaInici, s'entén que és del dia següent.
+     */
     public Simulador(LocalTime horaInici, LocalTime horaFi, Mapa mapa, List<Vehicle> vehicles,
             List<Conductor> conductors, List<Peticio> peticions_) {
+        this(Temps.ticks(horaInici), ticksFi(horaInici, horaFi), mapa, vehicles, conductors, peticions_,
+                CuaEsdeveniments.crear());
+    }
+
+    /**
+     * @pre 0 <= horaInici < horaFi, en ticks; esdeveniments és buida; cap
+     * paràmetre és null.
+     * @post Crea una simulació que va de horaInici a horaFi, que poden ser de
+     * dies diferents, i que programa els esdeveniments a la cua donada.
+     */
+    public Simulador(long horaInici, long horaFi, Mapa mapa, List<Vehicle> vehicles,
+            List<Conductor> conductors, List<Peticio> peticions_, CuaEsdeveniments esdeveniments) {
+        this(horaInici, horaFi, mapa, vehicles, conductors, peticions_, esdeveniments, null);
+    }
+
+    /**
+     * @pre 0 <= horaInici < horaFi, en ticks; esdeveniments és buida; cap
+     * paràmetre és null excepte carregadors.
+     * @post Crea una simulació com l'anterior en què els punts de càrrega
+     * públics dels pàrquings són els de carregadors (els del mapa si és null).
+     * El mapa no es modifica, de manera que el poden compartir simulacions
+     * que s'executin alhora.
+     */
+    public Simulador(long horaInici, long horaFi, Mapa mapa, List<Vehicle> vehicles,
+            List<Conductor> conductors, List<Peticio> peticions_, CuaEsdeveniments esdeveniments,
+            DotacioCarregadors carregadors) {
+        this.carregadors = carregadors;
         this.vehicles = vehicles;
         this.conductors = conductors;
-        this.peticions = peticions_;
-        this.TotesPeticions = new ArrayList<>(peticions_); // Còpia independent
+        this.peticions = new ArrayList<>();
         this.horaInici = horaInici;
         this.horaFi = horaFi;
+        peticions_ = peticionsDelHorari(peticions_);
+        this.TotesPeticions = new ArrayList<>(peticions_); // Còpia independent
         this.mapa = mapa;
         this.horaActual = horaInici;
-        esdeveniments = new PriorityQueue<>();
+        this.esdeveniments = esdeveniments;
+
+        crearIndexEspacial();
+        programarArribades(peticions_);
+    }
+
+    /**
+     * @pre punt s'ha llegit sobre mapa; esdeveniments és buida.
+     * @post Crea la simulació en l'estat del punt de control, amb el diari
+     * d'esdeveniments buit. La simulació continua a partir de l'instant
+     * següent al del punt de control.
+     */
+    private Simulador(PuntControl punt, Mapa mapa, CuaEsdeveniments esdeveniments) {
+        this.horaInici = punt.horaInici;
+        this.horaFi = punt.horaFi;
+        this.horaActual = punt.horaActual;
+        this.vehicles = punt.vehicles;
+        this.conductors = punt.conductors;
+        this.peticions = punt.peticions;
+        this.TotesPeticions = punt.totesPeticions;
+        this.estadistiques = punt.estadistiques;
+        this.aleatori = punt.aleatori;
+        this.carregadors = punt.carregadors;
+        if (punt.carregadorsOcupatsFins != null) {
+            this.carregadorsOcupatsFins = punt.carregadorsOcupatsFins;
+        }
+        this.mapa = mapa;
+        this.esdeveniments = esdeveniments;
+        for (Event event : punt.esdeveniments) {
+            esdeveniments.afegir(event);
+        }
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        for (Lloc lloc : mapa.getLlocs().keySet()) {
+            llocsPerId.put(lloc.obtenirId(), lloc);
+        }
+        for (PuntControl.EstatParquing estat : punt.parquings) {
+            if (llocsPerId.get(estat.id) instanceof Parquing parquing) {
+                parquing.restaurarOcupacio(estat.vehicles, estat.ocupats);
+            }
+        }
+        crearIndexEspacial();
+    }
+
+    /**
+     * @pre fitxer l'ha escrit guardarPuntControl() en una simulació sobre un
+     * mapa amb els mateixos llocs i camins que mapa.
+     * @post Retorna una simulació nova en l'estat del punt de control, sobre
+     * el mapa donat, que en pot continuar l'execució. L'ocupació dels
+     * pàrquings del mapa passa a ser la del punt de control.
+     * @throws IOException si el fitxer no es pot llegir o no és un punt de
+     * control d'aquest mapa.
+     */
+    public static Simulador reprendre(File fitxer, Mapa mapa) throws IOException {
+        return new Simulador(PuntControl.llegir(fitxer, mapa), mapa, CuaEsdeveniments.crear());
+    }
+
+    /**
+     * @pre No s'està executant cap esdeveniment (la simulació és entre dos
+     * instants).
+     * @post Escriu al fitxer un punt de control amb tot l'estat de la
+     * simulació, des del qual reprendre() la pot continuar. La simulació no
+     * canvia.
+     */
+    public void guardarPuntControl(File fitxer) throws IOException {
+        PuntControl punt = new PuntControl();
+        punt.horaInici = horaInici;
+        punt.horaFi = horaFi;
+        punt.horaActual = horaActual;
+        punt.vehicles = vehicles;
+        punt.conductors = conductors;
+        punt.peticions = peticions;
+        punt.totesPeticions = TotesPeticions;
+        punt.estadistiques = estadistiques;
+        punt.aleatori = aleatori;
+        punt.carregadors = carregadors;
+        punt.carregadorsOcupatsFins = carregadorsOcupatsFins;
+        punt.esdeveniments = new ArrayList<>(esdeveniments.mida());
+        while (!esdeveniments.esBuida()) {
+            punt.esdeveniments.add(esdeveniments.treure());
+        }
+        for (Event event : punt.esdeveniments) {
+            esdeveniments.afegir(event);
+        }
+        for (Lloc lloc : mapa.getLlocs().keySet()) {
+            if (lloc instanceof Parquing parquing) {
+                punt.parquings.add(new PuntControl.EstatParquing(parquing));
+            }
+        }
+        punt.escriure(fitxer);
+    }
+
+    /**
+     * @pre directori existeix; interval > 0, en ticks.
+     * @post Durant l'execució, després del primer instant de cada interval es
+     * guarda un punt de control al directori, en un fitxer control-T.bin on T
+     * és l'instant en ticks.
+     */
+    public void activarPuntsControl(File directori, long interval) {
+        this.directoriPuntsControl = directori;
+        this.intervalPuntsControl = interval;
+        this.properPuntControl = (horaActual / interval + 1) * interval;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Si toca, guarda el punt de control periòdic de l'instant actual.
+     * Si no es pot escriure, la simulació continua sense.
+     */
+    private void guardarPuntControlPeriodic() {
+        if (directoriPuntsControl == null || horaActual < properPuntControl) {
+            return;
+        }
+        properPuntControl = (horaActual / intervalPuntsControl + 1) * intervalPuntsControl;
+        try {
+            guardarPuntControl(new File(directoriPuntsControl, "control-" + horaActual + ".bin"));
+        } catch (IOException e) {
+            Registre.avis(() -> "No s'ha pogut guardar el punt de control: " + e.getMessage());
+        }
+    }
 
-        assignarPeticions();
+    private static long ticksFi(LocalTime horaInici, LocalTime horaFi) {
+        long fi = Temps.ticks(horaFi);
+        return fi > Temps.ticks(horaInici) ? fi : fi + Temps.SEGONS_DIA;
     }
 
     /**
@@ -98,9 +283,11 @@ public class Simulador {
         }
         this.conductors = LectorJSON.carregarConductors(JsonFile.getAbsolutePath(),
                 LectorJSON.convertirLlistaAMap_Vehicles(vehicles), llocs_ID);
-        this.peticions = LectorJSON.carregarPeticions(JsonFile.getAbsolutePath(), llocs_ID);
-        this.horaInici = LectorJSON.carregarHorari(JsonFile.getAbsolutePath())[0];
-        this.horaFi = LectorJSON.carregarHorari(JsonFile.getAbsolutePath())[1];
+        List<Peticio> peticionsCarregades = LectorJSON.carregarPeticions(JsonFile.getAbsolutePath(), llocs_ID);
+        this.peticions = new ArrayList<>();
+        long[] horari = LectorJSON.carregarHorari(JsonFile.getAbsolutePath());
+        this.horaInici = horari[0];
+        this.horaFi = horari[1];
         Mapa mapa_Nou = new Mapa();
 
         for (Lloc lloc : llocs) {
@@ -110,110 +297,202 @@ public class Simulador {
         for (Cami cami : camins) {
             mapa_Nou.afegirCami(cami);
         }
+        mapa_Nou.precalcularMatrius();
 
         List<Event> eventsExec = LectorJSON.carregarEvents2(JsonFile.getAbsolutePath(), LectorJSON.convertirLlistaAMap_Vehicles(vehicles), LectorJSON.convertirLlistaAMap_Conductors(this.conductors), llocs_ID);
-        PriorityQueue<Event> eventQueue = new PriorityQueue<>(eventsExec);
+        this.diari = new DiariEsdeveniments(eventsExec);
         this.mapa = mapa_Nou;
         MapPanel mapPanel = new MapPanel(mapa_Nou);
         setMapPanel(mapPanel);
         this.horaActual = horaInici;
-        esdeveniments = new PriorityQueue<>();
-        assignarPeticions();
+        esdeveniments = CuaEsdeveniments.crear();
+        crearIndexEspacial();
+        programarArribades(peticionsCarregades);
 
     }
 
+    /**
+     * @pre mapa, vehicles i conductors inicialitzats.
+     * @post Registra els vehicles en un índex espacial si els llocs del mapa
+     *       tenen coordenades.
+     */
+    private void crearIndexEspacial() {
+        for (Conductor conductor : conductors) {
+            conductorPerVehicle.put(conductor.getVehicle(), conductor);
+        }
+        indexEspacial = IndexEspacial.crear(mapa.getLlocs().keySet(), vehicles);
+    }
+
+    /**
+     * @pre k > 0
+     * @post Retorna els conductors dels k vehicles més propers en línia recta
+     *       a origen (i els dels vehicles en llocs sense coordenades), o tots
+     *       els conductors si no hi ha índex espacial o origen no té
+     *       coordenades.
+     */
+    private List<Conductor> candidatsVorac(Lloc origen, int k) {
+        if (indexEspacial == null || !origen.teCoordenades()) {
+            return conductors;
+        }
+        List<Conductor> candidats = new ArrayList<>();
+        for (Vehicle vehicle : indexEspacial.mesPropers(origen.obtenirX(), origen.obtenirY(), k)) {
+            Conductor conductor = conductorPerVehicle.get(vehicle);
+            if (conductor != null) {
+                candidats.add(conductor);
+            }
+        }
+        return candidats;
+    }
+
+    /**
+     * @pre horaInici i horaFi inicialitzades.
+     * @post Retorna les peticions amb les hores sense dia (HH:mm) situades
+     * dins la simulació: si travessa la mitjanit, una petició que comença
+     * abans de horaInici però l'endemà cau dins la simulació passa al dia
+     * següent, i una hora màxima d'arribada anterior a la de recollida també.
+     * Les altres peticions no canvien.
+     */
+    private List<Peticio> peticionsDelHorari(List<Peticio> peticions) {
+        List<Peticio> resultat = new ArrayList<>(peticions.size());
+        for (Peticio p : peticions) {
+            long minima = p.obtenirHoraMinimaRecollida();
+            long maxima = p.obtenirHoraMaximaArribada();
+            if (minima < horaInici && minima < Temps.SEGONS_DIA && minima + Temps.SEGONS_DIA <= horaFi) {
+                minima += Temps.SEGONS_DIA;
+                maxima += Temps.SEGONS_DIA;
+            }
+            if (maxima < minima && maxima < Temps.SEGONS_DIA) {
+                maxima += Temps.SEGONS_DIA;
+            }
+            resultat.add(minima == p.obtenirHoraMinimaRecollida() && maxima == p.obtenirHoraMaximaArribada() ? p
+                    : new Peticio(p.obtenirId(), p.obtenirOrigen(), p.obtenirDesti(), minima, maxima,
+                            p.obtenirNumPassatgers(), p.esVehicleCompartit()));
+        }
+        return resultat;
+    }
+
+    /**
+     * @pre mapa inicialitzat.
+     * @post Programa l'arribada de cada petició a la seva hora mínima de
+     *       recollida, o a l'hora actual si ja ha passat. Les peticions amb el
+     *       destí inaccessible des de l'origen, que cap conductor podria
+     *       servir, es descarten i es compten com a no servides.
+     */
+    private void programarArribades(List<Peticio> noves) {
+        for (Peticio peticio : noves) {
+            if (!mapa.esAccessible(peticio.obtenirOrigen(), peticio.obtenirDesti())) {
+                if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                    Registre.escriure(Registre.Nivell.DEPURACIO, "Petició descartada, destí inaccessible: "
+                            + peticio.obtenirOrigen().obtenirId() + " -> " + peticio.obtenirDesti().obtenirId());
+                }
+                estadistiques.registrarPeticionNoServida(1);
+                continue;
+            }
+            afegirEsdeveniment(new PeticioArribadaEvent(
+                    Math.max(horaActual, peticio.obtenirHoraMinimaRecollida()), peticio));
+        }
+    }
+
     /**
      * @brief Assigna peticions pendents als conductors de tipus ConductorVorac
      * utilitzant una estratègia voraça.
      *
      * Aquesta funció recorre totes les peticions pendents i intenta
      * assignar-les al conductor més proper (en distància fins a l'origen de la
-     * petició) que pugui atendre la petició (capacitat i bateria suficient), i
-     * que pugui arribar abans de l'hora límit d'arribada.
+     * petició) que pugui atendre la petició (capacitat, i bateria suficient
+     * parant a carregar si cal; vegeu ConductorVorac.planificarRuta()), i que
+     * pugui arribar abans de l'hora límit d'arribada. Si els llocs tenen
+     * coordenades, primer només s'avaluen els CANDIDATS_VORAC conductors més
+     * propers en línia recta, i la cerca s'amplia si cap no la pot fer.
      *
      * @pre El conjunt de peticions i conductors ha d’estar inicialitzat.
      * @post Algunes peticions poden ser assignades a conductors i es generen
-     * esdeveniments de moviment i inici de ruta.
-     * @post S'actualitzen les estadístiques de peticions servides i no
-     * servides.
+     * esdeveniments d'inici de ruta.
+     * @post S'actualitzen les estadístiques de peticions servides. Les que no
+     * es poden servir es compten quan caduquen (vegeu descartarCaducades()).
      */
     public void assignarPeticionsvorac() {
+        assignarVorac(peticions, null);
+    }
+
+    /**
+     * @pre Les peticions de pendents són a la llista de peticions pendents.
+     * @post Com assignarPeticionsvorac(), però només per a les peticions de
+     * pendents i, si nomesConductors no és null, només amb aquests conductors.
+     */
+    private void assignarVorac(List<Peticio> pendents, List<Conductor> nomesConductors) {
         List<Peticio> peticionsAssignades = new ArrayList<>();
 
-        for (Peticio peticio : peticions) {
+        for (Peticio peticio : pendents) {
             if (peticio.estatActual() == EstatPeticio.PENDENT) {
                 Lloc origenPeticio = peticio.obtenirOrigen();
                 Lloc destiPeticio = peticio.obtenirDesti();
 
                 ConductorVorac millorConductor = null;
+                Ruta millorRuta = null;
                 double millorDistancia = Double.MAX_VALUE;
-                double millorTemps = Double.MAX_VALUE;
-
-                for (Conductor conductor : conductors) {
-                    if (conductor instanceof ConductorVorac) {
-                        Vehicle vehicle = conductor.getVehicle();
-                        Lloc ubicacio = vehicle.getUbicacioActual();
-
-                        // Calcular camins per avaluar si pot fer la petició
-                        List<Lloc> camiFinsOrigen = mapa.camivorac(ubicacio, origenPeticio);
-                        List<Lloc> camiFinsDesti = mapa.camivorac(origenPeticio, destiPeticio);
-                        List<Lloc> camiTotal = mapa.camivorac(ubicacio, destiPeticio);
-
-                        if (camiFinsOrigen != null && camiFinsDesti != null && camiTotal != null) {
-                            double distanciaFinsOrigen = mapa.calcularDistanciaRuta(camiFinsOrigen);
-                            double distanciaFinsDesti = mapa.calcularDistanciaRuta(camiFinsDesti);
-                            double distanciaTotal = distanciaFinsOrigen + distanciaFinsDesti;
-
-                            double tempsFinsOrigen = mapa.calcularTempsRuta(camiFinsOrigen);
-                            double tempsFinsDesti = mapa.calcularTempsRuta(camiFinsDesti);
-
-                            // Calcular hora d’arribada prevista al destí
-                            LocalTime horaArribadaPrevista = horaActual
-                                    .plusMinutes((long) (tempsFinsOrigen + tempsFinsDesti));
-
-                            if (horaArribadaPrevista.isBefore(peticio.obtenirHoraMaximaArribada())) {
-                                // Verificar capacitat i bateria
-                                if (conductor.potServirPeticio(peticio.obtenirNumPassatgers())) {
-                                    if (conductor.teBateria(distanciaTotal, this, mapa, horaInici, horaActual)) {
-                                        // Guardar el millor conductor (més proper a l'origen)
-                                        if (distanciaFinsOrigen < millorDistancia) {
-                                            millorDistancia = distanciaFinsOrigen;
-                                            millorConductor = (ConductorVorac) conductor;
-                                            millorTemps = tempsFinsOrigen;
 
+                // Primer només els conductors més propers en línia recta; si
+                // cap no pot fer la petició, s'amplia la cerca.
+                Set<Conductor> avaluats = new HashSet<>();
+                int k = CANDIDATS_VORAC;
+                boolean totsAvaluats = false;
+                while (millorConductor == null && !totsAvaluats) {
+                    List<Conductor> candidats = nomesConductors != null ? nomesConductors
+                            : candidatsVorac(origenPeticio, k);
+                    totsAvaluats = candidats == nomesConductors || candidats == conductors || k >= vehicles.size();
+                    k *= 4;
+                    for (Conductor conductor : candidats) {
+                        if (conductor instanceof ConductorVorac && avaluats.add(conductor)) {
+                            Vehicle vehicle = conductor.getVehicle();
+                            Lloc ubicacio = vehicle.getUbicacioActual();
+
+                            // Temps i distàncies dels camins més ràpids per avaluar si pot fer la petició
+                            double tempsFinsOrigen = mapa.tempsMinim(ubicacio, origenPeticio);
+                            double tempsFinsDesti = mapa.tempsMinim(origenPeticio, destiPeticio);
+
+                            if (tempsFinsOrigen != Double.MAX_VALUE && tempsFinsDesti != Double.MAX_VALUE) {
+                                double distanciaFinsOrigen = mapa.distanciaMesRapida(ubicacio, origenPeticio);
+
+                                // Calcular hora d’arribada prevista al destí
+                                long horaArribadaPrevista = horaActual
+                                        + Temps.minuts((long) (tempsFinsOrigen + tempsFinsDesti));
+
+                                if (horaArribadaPrevista < peticio.obtenirHoraMaximaArribada()) {
+                                    // Verificar capacitat i bateria
+                                    if (conductor.potServirPeticio(peticio.obtenirNumPassatgers())) {
+                                        // Guardar el millor conductor (més proper a l'origen) que la pugui fer
+                                        // amb la seva bateria, parant a carregar si cal
+                                        if (distanciaFinsOrigen < millorDistancia) {
+                                            Ruta ruta = ((ConductorVorac) conductor).planificarRuta(peticio, this);
+                                            if (ruta != null && horaActual + Temps.minuts((long) ruta.obtenirTempsTotal())
+                                                    < peticio.obtenirHoraMaximaArribada()) {
+                                                millorDistancia = distanciaFinsOrigen;
+                                                millorConductor = (ConductorVorac) conductor;
+                                                millorRuta = ruta;
+                                            } else {
+                                                Registre.depuracio(() -> "El vehicle no pot fer la petició, ja que no té bateria.");
+                                            }
                                         }
                                     } else {
-                                        System.out.println("\nEl vehicle no pot fer la petició, ja que no té bateria.");
+                                        Registre.depuracio(() -> "El vehicle no pot fer la petició.");
                                     }
-                                } else {
-                                    System.out.println("El vehicle no pot fer la petició.");
                                 }
+                            } else {
+                                Registre.depuracio(() -> "El vehicle no pot fer la petició, ja que no hi ha camí"
+                                        + " entre vehicle i petició.");
                             }
-                        } else {
-                            System.out.println(
-                                    "El vehicle no pot fer la petició, ja que no hi ha camí entre vehicle i petició.");
                         }
                     }
                 }
 
                 if (millorConductor != null) {
-                    // Si el vehicle no està a l'origen, generar esdeveniment de moviment previ
-                    if (millorConductor.getVehicle().getUbicacioActual() != origenPeticio) {
-                        LocalTime horaSortida = peticio.obtenirHoraMinimaRecollida()
-                                .minusMinutes((long) millorTemps);
-                        afegirEsdeveniment(new MoureVehicleEvent(horaActual, millorConductor.getVehicle(),
-                                millorConductor.getVehicle().getUbicacioActual(), origenPeticio, millorDistancia));
-                        //PENDENT CALCULAR TEMPS FINS AL PUNT ON ES DEMANA LA PETICIO
-                        //this.estadistiques.registrarPeticionServida();
-
-                    }
-
-                    // Planificar i assignar la ruta
-                    Ruta ruta = millorConductor.planificarRuta(peticio, mapa);
+                    // Assignar la ruta, que ja porta el vehicle fins a l'origen
+                    Ruta ruta = millorRuta;
                     if (ruta != null) {
                         peticio.peticioEnProces();
-                        LocalTime horaIniciRuta = ruta.obtenirHoraInici();
-                        if (!horaIniciRuta.isBefore(horaActual)) {
+                        long horaIniciRuta = ruta.obtenirHoraInici();
+                        if (horaIniciRuta >= horaActual) {
                             afegirEsdeveniment(new IniciRutaEvent(horaIniciRuta, millorConductor,
                                     millorConductor.getVehicle(), ruta));
                             millorConductor.setOcupat(true);
@@ -224,17 +503,21 @@ public class Simulador {
                             this.estadistiques.registrarTiempoViaje(ruta.obtenirTempsTotal());
 
                         } else {
-                            System.out.println("No hi ha temps per fer la ruta de la petició " + peticio.obtenirId());
+                            if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                                Registre.escriure(Registre.Nivell.DEPURACIO,
+                                        "No hi ha temps per fer la ruta de la petició " + peticio.obtenirId());
+                            }
                         }
                     }
                 } else {
-                    System.out.println("Cap conductor pot arribar a la petició " + peticio.obtenirId());
+                    if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                        Registre.escriure(Registre.Nivell.DEPURACIO,
+                                "Cap conductor pot arribar a la petició " + peticio.obtenirId());
+                    }
                 }
             }
         }
 
-        // Registrar les peticions que no s’han pogut assignar
-        estadistiques.registrarPeticionNoServida(peticionsAssignades.size());
         peticions.removeAll(peticionsAssignades);
 
     }
@@ -253,16 +536,32 @@ public class Simulador {
      * esdeveniments corresponents.
      */
     public void assignarPeticionsPlan() {
-        for (Conductor conductor : conductors) {
+        assignarPlan(peticions, null);
+    }
+
+    /**
+     * @pre Les peticions de pendents són a la llista de peticions pendents.
+     * @post Com assignarPeticionsPlan(), però només amb les peticions de
+     * pendents i, si nomesConductors no és null, només per a aquests
+     * conductors. Les peticions assignades surten de la llista de pendents.
+     */
+    private void assignarPlan(List<Peticio> pendents, List<Conductor> nomesConductors) {
+        List<Peticio> inicials = pendents == peticions ? null : new ArrayList<>(pendents);
+        for (Conductor conductor : nomesConductors != null ? nomesConductors : conductors) {
             if (conductor instanceof ConductorPlanificador) {
                 ConductorPlanificador conductorPlani = (ConductorPlanificador) conductor;
 
-                // Es demana al conductor que planifiqui una ruta segons les peticions actuals
-                Ruta r = conductorPlani.planificarRuta(peticions, this, horaActual);
+                // Es demana al conductor que planifiqui una ruta segons les peticions actuals;
+                // les que hi afegeix surten de pendents
+                int nombrePendents = pendents.size();
+                Ruta r = conductorPlani.planificarRuta(pendents, this, horaActual);
 
                 if (r != null) {
                     this.estadistiques.registrarEstadoBateria(conductorPlani.getVehicle().obtenirBateria());
-                    this.estadistiques.registrarPeticionServida(calcularTempsEsperaMitja());
+                    double tempsEspera = calcularTempsEsperaMitja();
+                    for (int i = pendents.size(); i < nombrePendents; i++) {
+                        this.estadistiques.registrarPeticionServida(tempsEspera); // una per petició de la ruta
+                    }
                     this.estadistiques.registrarOcupacionVehiculo(r.obtenirPassatgersPeticio());
                     this.estadistiques.registrarTiempoViaje(r.obtenirTempsTotal());
 
@@ -273,7 +572,17 @@ public class Simulador {
                             r));
                 } else {
                     // Si no s’ha pogut planificar ruta, informar per consola
-                    System.out.println("No hi ha ruta per al conductor planificador " + conductorPlani.getId());
+                    if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                        Registre.escriure(Registre.Nivell.DEPURACIO,
+                                "No hi ha ruta per al conductor planificador " + conductorPlani.getId());
+                    }
+                }
+            }
+        }
+        if (inicials != null) {
+            for (Peticio peticio : inicials) {
+                if (peticio.estatActual() != EstatPeticio.PENDENT) {
+                    peticions.remove(peticio);
                 }
             }
         }
@@ -285,82 +594,271 @@ public class Simulador {
      *
      */
     public void iniciar(File jsonFile, File estadisticFile) {
-        Timer timer = new Timer(1000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (!esdeveniments.isEmpty() && horaActual.isBefore(horaFi)) {
-                    Event event = esdeveniments.poll();
-                    esdevenimentsExecutats.add(event); // Registrar abans d'executar
-                    //System.out.println(".(esdeveniment afeegit)"+event.toString());
-                    horaActual = event.getTemps();
-                    mapPanel.setHoraActual(horaActual);
-                    //System.out.println("[DEBUG0] Finalitzant - Events executats: "+ esdevenimentsExecutats.size());
-                    event.executar(Simulador.this);
-
-                } // else if (esdeveniments.isEmpty() && !peticions.isEmpty()) {
-                // // Si no hi ha esdeveniments però hi ha peticions, reintenta
-                // assignarPeticions();
-                // }
-                else {
-                    //System.out.println("[DEBUG] Finalitzant - Events executats: "      + esdevenimentsExecutats.size());
-                    finalitzarSimulacio(e, jsonFile, estadisticFile, true);
+        executarBucle(false, null, () -> finalitzarSimulacio(jsonFile, estadisticFile, true));
+    }
 
+    /**
+     * @brief Executa la simulació sencera tan ràpid com es pugui, sense
+     * interfície gràfica.
+     * @details Processa els esdeveniments en el mateix ordre que iniciar(),
+     * però d'una tirada i al fil que la crida, de manera que els resultats són
+     * els mateixos. No cal cap MapPanel.
+     * @pre cert
+     * @post S'han executat tots els esdeveniments fins a l'hora final i s'han
+     * guardat els resultats als fitxers donats (si no són null).
+     */
+    public void executarSenseInterficie(File jsonFile, File estadisticFile) {
+        while (processarSeguentInstant(false, null)) {
+            // cada iteració executa tots els esdeveniments d'un instant
+        }
+        finalitzarSimulacio(jsonFile, estadisticFile, true);
+    }
+
+    /**
+     * @pre cert
+     * @post Executa els esdeveniments amb el ritme del rellotge de la
+     * simulació, des del fil de la interfície, i crida finalitzar quan
+     * s'acaben o s'arriba a l'hora final.
+     *
+     * @param reproduccio Si cal reproduir els esdeveniments ja executats en
+     * lloc dels programats.
+     * @param observador Acció que es crida amb cada esdeveniment abans
+     * d'executar-lo, o null.
+     * @param finalitzar Acció que es crida en acabar.
+     */
+    private void executarBucle(boolean reproduccio, Consumer<Event> observador, Runnable finalitzar) {
+        if (bucle != null) {
+            bucle.aturar();
+        }
+        bucle = new BucleSimulacio(rellotge, horaActual, () -> horaSeguent(reproduccio),
+                () -> processarSeguentInstant(reproduccio, observador), finalitzar);
+        bucle.iniciar();
+    }
+
+    /**
+     * @pre cert
+     * @post Retorna l'hora del pròxim esdeveniment a executar (o a
+     * reproduir), o Temps.SENSE_HORA si no n'hi ha cap.
+     */
+    private long horaSeguent(boolean reproduccio) {
+        if (reproduccio) {
+            return posicioReproduccio < diari.mida() ? diari.temps(posicioReproduccio) : Temps.SENSE_HORA;
+        }
+        Event seguent = esdeveniments.primer();
+        return seguent == null ? Temps.SENSE_HORA : seguent.getTemps();
+    }
+
+    /**
+     * @brief Executa tots els esdeveniments del pròxim instant.
+     * @details Primer s'executen, en ordre, tots els esdeveniments que tenen
+     * el mateix temps; després es fa una sola assignació de les peticions
+     * arribades i per als conductors que hagin quedat lliures (vegeu
+     * assignarPendents()) i,
+     * si l'assignació ha programat més esdeveniments per a aquest mateix
+     * instant, es repeteix. El panell del mapa s'actualitza un sol cop per
+     * instant.
+     * @pre cert
+     * @post Si queden esdeveniments abans de l'hora final, executa els del
+     * pròxim instant i retorna true; altrament retorna false. Cada
+     * esdeveniment executat es registra al diari. En una reproducció els
+     * esdeveniments es prenen del diari, en ordre, i no es tornen a
+     * registrar.
+     */
+    private boolean processarSeguentInstant(boolean reproduccio, Consumer<Event> observador) {
+        if (horaActual >= horaFi) {
+            return false;
+        }
+        long instant = horaSeguent(reproduccio);
+        if (instant == Temps.SENSE_HORA) {
+            return false;
+        }
+        horaActual = instant;
+        do {
+            while (horaSeguent(reproduccio) == instant) {
+                Event event;
+                if (reproduccio) {
+                    event = diari.obtenir(posicioReproduccio++);
+                } else {
+                    event = esdeveniments.treure();
+                    diari.registrar(event); // Registrar abans d'executar
+                }
+                if (observador != null) {
+                    observador.accept(event);
                 }
+                event.executar(this);
             }
-        });
-        timer.start();
+            assignarPendents();
+        } while (horaSeguent(reproduccio) == instant);
+        if (!reproduccio) {
+            guardarPuntControlPeriodic();
+        }
+        if (mapPanel != null) {
+            mapPanel.setHoraActual(Temps.hora(horaActual));
+        }
+        return true;
     }
 
     /**
+     * @pre conductor != null
+     * @post Al final de l'instant en curs s'intentaran assignar les peticions
+     * pendents al conductor, un sol cop encara que ho demanin diversos
+     * esdeveniments.
+     */
+    public void demanarAssignacio(Conductor conductor) {
+        conductorsAlliberats.add(conductor);
+    }
+
+    /**
+     * @pre peticio != null
+     * @post La petició queda pendent i, al final de l'instant en curs,
+     * s'intentarà assignar a algun conductor.
+     */
+    public void arribadaPeticio(Peticio peticio) {
+        peticions.add(peticio);
+        peticionsNoves.add(peticio);
+        properaCaducitat = Math.min(properaCaducitat, peticio.obtenirHoraMaximaArribada());
+    }
+
+    /**
+     * @brief Assigna peticions tenint en compte només el que ha canviat
+     * durant l'instant en curs.
+     * @details Els conductors que han quedat lliures miren totes les
+     * peticions pendents, i les peticions que han arribat (i que encara no
+     * s'han assignat) es miren amb tots els conductors. Les peticions que ja
+     * estaven pendents no es tornen a mirar amb la resta de conductors, perquè
+     * res no ha canviat per a elles.
      * @pre cert
-     * @post Es genera una petició de trasllat amb dades aleatòries i s'afegeix
-     * a la llista de peticions.
+     * @post Fa les assignacions de l'instant en curs i el deixa sense
+     * peticions arribades ni conductors alliberats.
      */
-    public void afegirPeticioAleatoria(List<Lloc> llocsDisponibles) {
-        Random random = new Random();
+    private void assignarPendents() {
+        List<Peticio> noves = peticionsNoves;
+        List<Conductor> lliures = new ArrayList<>(conductorsAlliberats);
+        peticionsNoves = new ArrayList<>();
+        conductorsAlliberats.clear();
+        if (!lliures.isEmpty() && hiHaPeticions()) {
+            assignarPlan(peticions, lliures);
+            assignarVorac(peticions, lliures);
+        }
+        noves.removeIf(peticio -> peticio.estatActual() != EstatPeticio.PENDENT);
+        if (!noves.isEmpty()) {
+            assignarPlan(noves, null);
+            assignarVorac(noves, null);
+        }
+        if (horaActual >= properaCaducitat) {
+            descartarCaducades(horaActual);
+        }
+    }
+
+    /**
+     * @brief Compta com a no servides les peticions pendents que ja no es
+     * poden servir.
+     * @details Una petició que encara és pendent quan arriba la seva hora
+     * màxima d'arribada ja no la pot fer cap conductor. Es treu de les
+     * pendents perquè no es torni a mirar en cap assignació.
+     * @pre cert
+     * @post Treu de les peticions pendents les que tenen l'hora màxima
+     * d'arribada no posterior a fins, les suma a les peticions no servides de
+     * les estadístiques i actualitza properaCaducitat.
+     */
+    private void descartarCaducades(long fins) {
+        int caducades = 0;
+        long propera = Long.MAX_VALUE;
+        for (Iterator<Peticio> it = peticions.iterator(); it.hasNext();) {
+            Peticio peticio = it.next();
+            if (peticio.estatActual() != EstatPeticio.PENDENT) {
+                continue;
+            }
+            if (peticio.obtenirHoraMaximaArribada() <= fins) {
+                it.remove();
+                caducades++;
+                if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+                    Registre.escriure(Registre.Nivell.DEPURACIO, "Petició " + peticio.obtenirId()
+                            + " no servida: ha passat l'hora màxima d'arribada.");
+                }
+            } else {
+                propera = Math.min(propera, peticio.obtenirHoraMaximaArribada());
+            }
+        }
+        properaCaducitat = propera;
+        estadistiques.registrarPeticionNoServida(caducades);
+    }
 
+    /**
+     * @pre rellotge != null
+     * @post Les simulacions que s'iniciïn a partir d'ara segueixen el ritme
+     * del rellotge donat.
+     */
+    public void setRellotge(Rellotge rellotge) {
+        this.rellotge = rellotge;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el rellotge de la simulació.
+     */
+    public Rellotge getRellotge() {
+        return rellotge;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Si la simulació avança pas a pas i espera, executa els
+     * esdeveniments de l'instant següent.
+     */
+    public void avancarPas() {
+        if (bucle != null) {
+            bucle.avancar();
+        }
+    }
+
+    /**
+     * @pre llocsDisponibles són els llocs del mapa.
+     * @post Es genera una petició de trasllat amb dades aleatòries, que
+     * arriba a la seva hora mínima de recollida. L'origen i el destí es trien uniformement entre
+     * els parells de llocs en què el destí és accessible des de l'origen; si el
+     * mapa no en té cap, no es genera cap petició.
+     */
+    public void afegirPeticioAleatoria(List<Lloc> llocsDisponibles) {
         if (llocsDisponibles.size() < 2) {
             return;
         }
 
-        // Triar origen i destí diferents
-        Lloc desti, origen;
-        boolean hiHaCami = true;
-        do {
-            hiHaCami = true;
-            origen = llocsDisponibles.get(random.nextInt(llocsDisponibles.size()));
-            desti = llocsDisponibles.get(random.nextInt(llocsDisponibles.size()));
-            if (desti.equals(origen) || mapa.hihaCami(origen, desti) == null) {
-                hiHaCami = false;
-            }
-        } while (!hiHaCami);
+        GeneradorAleatori random = aleatori.flux("peticions");
+        // Triar origen i destí diferents, amb el destí accessible des de l'origen
+        Lloc[] parell = mapa.parellAccessibleAleatori(random);
+        if (parell == null) {
+            return;
+        }
+        Lloc origen = parell[0];
+        Lloc desti = parell[1];
 
         // Generar hores aleatòries dins el rang de simulació (entre horaInici i horaFi)
-        int minutsInici = horaInici.toSecondOfDay() / 60;
-        int minutsFi = horaFi.toSecondOfDay() / 60;
-        int marge = minutsFi - minutsInici;
+        long minutsInici = horaInici / Temps.SEGONS_MINUT;
+        long minutsFi = horaFi / Temps.SEGONS_MINUT;
+        int marge = (int) (minutsFi - minutsInici);
 
-        int minutsRecollida = minutsInici + random.nextInt(marge - 30); // mínim 30 min abans del final
-        int minutsArribada = minutsRecollida + 15 + random.nextInt(45); // entre 15 i 60 minuts després
+        long minutsRecollida = minutsInici + random.nextInt(marge - 30); // mínim 30 min abans del final
+        long minutsArribada = minutsRecollida + 15 + random.nextInt(45); // entre 15 i 60 minuts després
 
-        LocalTime horaMinRecollida = LocalTime.ofSecondOfDay(minutsRecollida * 60);
-        LocalTime horaMaxArribada = LocalTime.ofSecondOfDay(minutsArribada * 60);
+        long horaMinRecollida = Temps.minuts(minutsRecollida);
+        long horaMaxArribada = Temps.minuts(minutsArribada);
 
         int numPassatgers = 1 + random.nextInt(4); // entre 1 i 4 passatgers
         boolean compartida = random.nextBoolean();
         int idRandom = 1 + random.nextInt(99); // entre 1 i 4 passatgers
 
         Peticio peticio = new Peticio(idRandom, origen, desti, horaMinRecollida, horaMaxArribada, numPassatgers, compartida);
-        // Registrar la petició (pots tenir una llista de peticions al simulador)
-        this.peticions.add(peticio);
 
         String missatge = "Afegida petició aleatòria: " + peticio.obtenirOrigen().obtenirId() + " -> "
                 + peticio.obtenirDesti().obtenirId()
-                + " ( recollida: " + peticio.obtenirHoraMinimaRecollida() + ", arribada: "
-                + peticio.obtenirHoraMaximaArribada() + ")";
-        System.out.println(missatge);
+                + " ( recollida: " + Temps.text(peticio.obtenirHoraMinimaRecollida()) + ", arribada: "
+                + Temps.text(peticio.obtenirHoraMaximaArribada()) + ")";
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            Registre.escriure(Registre.Nivell.DEPURACIO, missatge);
+        }
         pintarMissatge(missatge);
-        assignarPeticions();
+        programarArribades(List.of(peticio));
     }
 
     /**
@@ -378,24 +876,7 @@ public class Simulador {
      *
      */
     public void executarSimulacioGuardada(File jsonFile) {
-
-        Timer timer = new Timer(1000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (!esdevenimentsExecutats.isEmpty() && horaActual.isBefore(horaFi)) {
-                    Event event = esdevenimentsExecutats.poll();
-                    horaActual = event.getTemps();
-                    mapPanel.setHoraActual(horaActual);
-
-                    event.executar(Simulador.this);
-
-                } else {
-                    finalitzarSimulacio(e, null, null, false);
-
-                }
-            }
-        });
-        timer.start();
+        executarBucle(true, null, () -> finalitzarSimulacio(null, null, false));
     }
 
     /**
@@ -427,18 +908,19 @@ public class Simulador {
      * @param e Esdeveniment a afegir.
      */
     public void afegirEsdeveniment(Event e) {
-        esdeveniments.add(e);
-        this.esdevenimentsExecutats.add(e);
+        esdeveniments.afegir(e);
     }
 
     /**
      * @pre p != null
-     * @post La petició es registra i queda pendent d’assignació a un vehicle.
+     * @post La petició es registra i arriba a la seva hora mínima de
+     * recollida (o ara si ja ha passat), quan queda pendent d’assignació a un
+     * vehicle.
      *
      * @param p Petició a afegir.
      */
     public void afegirPeticio(Peticio p) {
-        peticions.add(p);
+        programarArribades(List.of(p));
     }
 
     /**
@@ -451,28 +933,28 @@ public class Simulador {
     }
 
     /**
-     * @param e
      * @pre cert
-     * @post Tanca la simulació i mostra un resum dels resultats.
+     * @post Tanca la simulació i mostra un resum dels resultats (en un diàleg
+     * si la simulació té MapPanel).
      */
-    private void finalitzarSimulacio(ActionEvent e, File jsonFile, File EstadisticsFile_, boolean guardarDades) {
+    private void finalitzarSimulacio(File jsonFile, File EstadisticsFile_, boolean guardarDades) {
+        descartarCaducades(Long.MAX_VALUE); // les que queden pendents ja no se serviran
         try {
             //System.out.println("DEBUG4 - estadistiquesFile: " + EstadisticsFile_); // <-- Aquí
 
-            ((Timer) e.getSource()).stop();
-
+            Registre.buidar();
             System.out.println("------------------");
             System.out.println("Estadistiques:");
             System.out.println(this.estadistiques.toString());
 
-            mostrarDialogEstadistiques(!horaActual.isBefore(horaFi));
+            if (mapPanel != null) {
+                mostrarDialogEstadistiques(horaActual >= horaFi);
+            }
             LectorJSON escritorJSON = new LectorJSON();
             List<Lloc> listDeLlocs = new ArrayList<>(mapa.getLlocs().keySet());
             List<Cami> listCami = mapa.obtenirTotsElsCamins();
             if (jsonFile != null && jsonFile.getAbsoluteFile() != null) {
-                System.out.println(".(                 qwdqw )" + this.esdevenimentsExecutats.size());
-
-                escritorJSON.writeJsonFile(this.conductors, this.vehicles, listDeLlocs, listCami, this.TotesPeticions, this.estadistiques, this.esdevenimentsExecutats, jsonFile.getAbsolutePath());
+                escritorJSON.writeJsonFile(this.conductors, this.vehicles, listDeLlocs, listCami, this.TotesPeticions, this.estadistiques, this.diari, horaInici, horaFi, jsonFile.getAbsolutePath());
 
                 if (EstadisticsFile_ != null) {
 
@@ -528,6 +1010,15 @@ public class Simulador {
         return mapa;
     }
 
+    /**
+     * @pre tipus != null
+     * @post Les cerques de camins de l'assignació i dels conductors fan servir
+     *       l'algorisme indicat.
+     */
+    public void configurarEncaminament(TipusEncaminament tipus) {
+        mapa.setTipusEncaminament(tipus);
+    }
+
     /**
      * @pre Cert.
      * @post Fa un set de la vista del mapa.
@@ -544,8 +1035,53 @@ public class Simulador {
         return mapPanel;
     }
 
+    /**
+     * @pre Cert.
+     * @post Mostra el missatge al panell del mapa, si n'hi ha.
+     */
     public void pintarMissatge(String missatge) {
-        mapPanel.afegirMissatge(missatge);
+        if (mapPanel != null) {
+            mapPanel.afegirMissatge(missatge);
+        }
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Mostra el missatge al panell del mapa, si n'hi ha; si no, no el
+     * construeix.
+     */
+    public void pintarMissatge(Supplier<String> missatge) {
+        if (mapPanel != null) {
+            mapPanel.afegirMissatge(missatge.get());
+        }
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna si informar() mostra els missatges en algun lloc. Els
+     * esdeveniments ho comproven abans de crear el missatge, que es genera a
+     * cada esdeveniment executat.
+     */
+    public boolean informa() {
+        return mapPanel != null || Registre.actiu(Registre.Nivell.DEPURACIO);
+    }
+
+    /**
+     * @pre missatge != null
+     * @post Escriu el missatge al registre, amb nivell DEPURACIO, i el mostra
+     * al panell del mapa, si n'hi ha. Si no s'ha de mostrar enlloc, el
+     * missatge no es construeix.
+     */
+    public void informar(Supplier<String> missatge) {
+        boolean registre = Registre.actiu(Registre.Nivell.DEPURACIO);
+        if (!registre && mapPanel == null) {
+            return;
+        }
+        String text = missatge.get();
+        if (registre) {
+            Registre.escriure(Registre.Nivell.DEPURACIO, text);
+        }
+        pintarMissatge(text);
     }
 
     /**
@@ -632,16 +1168,159 @@ public class Simulador {
         this.estadistiques = estadistiques;
     }
 
+    /**
+     * @pre parquing != null; vehicle != null; desDe >= 0, en ticks.
+     * @post Retorna els minuts que passen des que el vehicle arriba al pàrquing
+     *       a desDe fins que hi acaba de carregar, esperant si cal que s'alliberi
+     *       un punt de càrrega públic, o -1 si el pàrquing no en té cap.
+     */
+    public double minutsCarregaPublica(Parquing parquing, Vehicle vehicle, long desDe) {
+        int punt = puntCarregaPublic(parquing, vehicle, desDe);
+        if (punt < 0) {
+            return -1;
+        }
+        long inici = Math.max(desDe, ocupatFins(parquing)[punt]);
+        return (inici - desDe) / (double) Temps.minuts(1) + minutsCarrega(parquing, punt, vehicle);
+    }
+
+    /**
+     * @pre parquing != null; conductor != null; desDe >= 0, en ticks.
+     * @post Si el pàrquing té punts de càrrega públics, ocupa el que deixa
+     *       carregat abans el vehicle del conductor si hi arriba a desDe,
+     *       programa la càrrega quan el punt queda lliure i retorna l'hora en
+     *       què s'acaba; altrament retorna Temps.SENSE_HORA.
+     */
+    public long programarCarregaPublica(Parquing parquing, Conductor conductor, long desDe, boolean parada) {
+        Vehicle vehicle = conductor.getVehicle();
+        int punt = puntCarregaPublic(parquing, vehicle, desDe);
+        if (punt < 0) {
+            return Temps.SENSE_HORA;
+        }
+        long[] fins = ocupatFins(parquing);
+        long inici = Math.max(desDe, fins[punt]);
+        double duracio = minutsCarrega(parquing, punt, vehicle);
+        fins[punt] = inici + Temps.minuts((long) duracio);
+        afegirEsdeveniment(new CarregarBateriaEvent(inici, vehicle, duracio, conductor, parada));
+        return fins[punt];
+    }
+
+    /**
+     * @pre parquing != null
+     * @post Retorna els punts de càrrega públics del pàrquing en aquesta
+     *       simulació.
+     */
+    private List<PuntCarrega> puntsCarregaPublics(Parquing parquing) {
+        return carregadors == null ? parquing.obtenirLlistaPuntsCarregaPublics()
+                : carregadors.puntsCarregaPublics(parquing);
+    }
+
+    /**
+     * @pre parquing != null
+     * @post Retorna, per cada punt de càrrega públic del pàrquing, l'instant
+     *       en què queda lliure, en ticks.
+     */
+    private long[] ocupatFins(Parquing parquing) {
+        return carregadorsOcupatsFins.computeIfAbsent(parquing.obtenirId(),
+                id -> new long[puntsCarregaPublics(parquing).size()]);
+    }
+
+    /**
+     * @pre 0 <= punt < puntsCarregaPublics(parquing).size()
+     * @post Retorna els minuts que el vehicle triga a carregar al punt.
+     */
+    private double minutsCarrega(Parquing parquing, int punt, Vehicle vehicle) {
+        return puntsCarregaPublics(parquing).get(punt).getTipusCarga() == TipusPuntCarrega.CARGA_LENTA
+                ? vehicle.TEMPSCARGALENTA
+                : vehicle.TEMPSCARGARAPIDA;
+    }
+
+    /**
+     * @pre parquing != null; vehicle != null
+     * @post Retorna l'índex del punt de càrrega públic del pàrquing on el
+     *       vehicle acabaria abans de carregar si hi arriba a desDe, o -1 si no
+     *       n'hi ha cap.
+     */
+    private int puntCarregaPublic(Parquing parquing, Vehicle vehicle, long desDe) {
+        long[] fins = ocupatFins(parquing);
+        int millor = -1;
+        long millorFi = Long.MAX_VALUE;
+        for (int i = 0; i < fins.length; i++) {
+            long fi = Math.max(desDe, fins[i]) + Temps.minuts((long) minutsCarrega(parquing, i, vehicle));
+            if (fi < millorFi) {
+                millor = i;
+                millorFi = fi;
+            }
+        }
+        return millor;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna l'hora de l'últim instant executat, en ticks.
+     */
+    public long getHoraActual() {
+        return horaActual;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna les estadístiques de la simulació.
+     */
+    public Estadistiques getEstadistiques() {
+        return estadistiques;
+    }
+
+    /**
+     * @pre Cert.
+     * @post A partir d'ara, les dades aleatòries de la simulació surten d'un
+     * generador amb la llavor donada, de manera que es poden repetir. Sense
+     * cridar-la, la llavor és LLAVOR_PER_DEFECTE.
+     */
+    public void setLlavor(long llavor) {
+        this.aleatori = new GeneradorAleatori(llavor);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el generador aleatori de la simulació. Cada component
+     * aleatori n'ha de fer servir un flux propi (GeneradorAleatori.flux()).
+     */
+    public GeneradorAleatori getAleatori() {
+        return aleatori;
+    }
+
+    /**
+     * @pre events són els esdeveniments d'una simulació guardada, en ordre
+     * d'execució.
+     * @post El diari passa a ser el dels esdeveniments donats, que són els que
+     * reprodueix executarSimulacioGuardada().
+     */
     public void setEsdeviments(List<Event> events) {
-        // Crear una PriorityQueue con un comparador que ordene por tiempo
-        PriorityQueue<Event> eventsQueue = new PriorityQueue<>(
-                Comparator.comparing(Event::getTemps)
-        );
+        this.diari = new DiariEsdeveniments(events);
+        this.posicioReproduccio = 0;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el diari dels esdeveniments executats.
+     */
+    public DiariEsdeveniments getDiari() {
+        return diari;
+    }
 
-        // Añadir todos los eventos de la lista a la cola
-        eventsQueue.addAll(events);
-        this.esdevenimentsExecutats.addAll(events);
-        esdeveniments = eventsQueue;
+    /**
+     * @pre directori existeix; blocsEnMemoria >= 0
+     * @post El diari d'esdeveniments bolca a fitxers temporals del directori
+     * els blocs que passin de blocsEnMemoria, per simulacions massa llargues
+     * per tenir-les senceres a memòria.
+     */
+    public void activarBolcatDiari(File directori, int blocsEnMemoria) {
+        Map<Integer, Lloc> llocsPerId = new HashMap<>();
+        for (Lloc lloc : mapa.getLlocs().keySet()) {
+            llocsPerId.put(lloc.obtenirId(), lloc);
+        }
+        diari.activarBolcat(directori, blocsEnMemoria, LectorJSON.convertirLlistaAMap_Vehicles(vehicles),
+                LectorJSON.convertirLlistaAMap_Conductors(conductors), llocsPerId);
     }
 
     /**
@@ -674,27 +1353,13 @@ public class Simulador {
             }
         }
 
-        Timer timer = new Timer(1000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (!esdevenimentsExecutats.isEmpty() && horaActual.isBefore(horaFi)) {
-                    Event event = esdevenimentsExecutats.poll();
-                    horaActual = event.getTemps();
-                    mapPanel.setHoraActual(horaActual);
-                    if (event instanceof CarregarBateriaEvent) {
-                        CarregarBateriaEvent carregaEvent = (CarregarBateriaEvent) event;
-                        Integer idCarregaador = carregaEvent.getConductor().getVehicle().getUbicacioActual().obtenirId();
-                        vegadesUsat.merge(idCarregaador, 1, Integer::sum);
-                    }
-                    event.executar(Simulador.this);
-
-                } else {
-                    finalitzarSimulacio(e, null, null, false);
-
-                }
+        executarBucle(true, event -> {
+            if (event instanceof CarregarBateriaEvent) {
+                CarregarBateriaEvent carregaEvent = (CarregarBateriaEvent) event;
+                Integer idCarregaador = carregaEvent.getConductor().getVehicle().getUbicacioActual().obtenirId();
+                vegadesUsat.merge(idCarregaador, 1, Integer::sum);
             }
-        });
-        timer.start();
+        }, () -> finalitzarSimulacio(null, null, false));
 
         return vegadesUsat;
     }
@@ -722,27 +1387,13 @@ public class Simulador {
             vegadesUsat.put(conductorsTotals.get(i).getId(), 0);
         }
 
-        Timer timer = new Timer(1000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (!esdevenimentsExecutats.isEmpty() && horaActual.isBefore(horaFi)) {
-                    Event event = esdevenimentsExecutats.poll();
-                    horaActual = event.getTemps();
-                    mapPanel.setHoraActual(horaActual);
-                    if (event instanceof DeixarPassatgersEvent) {
-                        DeixarPassatgersEvent deixarPassatg = (DeixarPassatgersEvent) event;
-                        Integer idConductor = deixarPassatg.getConductor().getId();
-                        vegadesUsat.merge(idConductor, 1, Integer::sum);
-                    }
-                    event.executar(Simulador.this);
-
-                } else {
-                    finalitzarSimulacio(e, null, null, false);
-
-                }
+        executarBucle(true, event -> {
+            if (event instanceof DeixarPassatgersEvent) {
+                DeixarPassatgersEvent deixarPassatg = (DeixarPassatgersEvent) event;
+                Integer idConductor = deixarPassatg.getConductor().getId();
+                vegadesUsat.merge(idConductor, 1, Integer::sum);
             }
-        });
-        timer.start();
+        }, () -> finalitzarSimulacio(null, null, false));
 
         return vegadesUsat;
     }
@@ -0,0 +1,99 @@
+package core;
+
+/**
+ * @class TaulaCamins
+ * @brief Taula de dispersió d'adreçament obert que indexa els camins pel
+ *        parell (id origen, id destí).
+ * @details La clau és un long amb l'identificador d'origen als 32 bits alts i
+ *          el de destí als 32 bits baixos. Les col·lisions es resolen amb
+ *          sondeig lineal i la taula es dobla quan supera la meitat
+ *          d'ocupació, de manera que cada consulta és d'un sol sondeig en cost
+ *          esperat constant.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.03
+ */
+final class TaulaCamins {
+
+    private long[] claus; /// < Clau de cada posició.
+    private Cami[] camins; /// < Camí de cada posició, o null si és buida.
+    private int mida; /// < Nombre de camins a la taula.
+
+    /**
+     * @pre Cert.
+     * @post Crea una taula buida.
+     */
+    TaulaCamins() {
+        claus = new long[16];
+        camins = new Cami[16];
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna la clau del parell (origen, desti).
+     */
+    static long clau(int idOrigen, int idDesti) {
+        return ((long) idOrigen << 32) | (idDesti & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna el camí entre els dos identificadors, o null si no n'hi ha.
+     */
+    Cami obtenir(int idOrigen, int idDesti) {
+        long clau = clau(idOrigen, idDesti);
+        int mascara = claus.length - 1;
+        for (int i = posicio(clau, mascara); camins[i] != null; i = (i + 1) & mascara) {
+            if (claus[i] == clau) {
+                return camins[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @pre cami != null
+     * @post Afegeix el camí si no n'hi ha cap altre amb el mateix origen i
+     *       destí; altrament es conserva el primer.
+     */
+    void afegir(Cami cami) {
+        if (2 * (mida + 1) > claus.length) {
+            redimensionar();
+        }
+        long clau = clau(cami.obtenirOrigen().obtenirId(), cami.obtenirDesti().obtenirId());
+        int mascara = claus.length - 1;
+        int i = posicio(clau, mascara);
+        while (camins[i] != null) {
+            if (claus[i] == clau) {
+                return;
+            }
+            i = (i + 1) & mascara;
+        }
+        claus[i] = clau;
+        camins[i] = cami;
+        mida++;
+    }
+
+    private void redimensionar() {
+        long[] clausAntigues = claus;
+        Cami[] caminsAntics = camins;
+        claus = new long[clausAntigues.length * 2];
+        camins = new Cami[caminsAntics.length * 2];
+        int mascara = claus.length - 1;
+        for (int j = 0; j < caminsAntics.length; j++) {
+            if (caminsAntics[j] != null) {
+                int i = posicio(clausAntigues[j], mascara);
+                while (camins[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                claus[i] = clausAntigues[j];
+                camins[i] = caminsAntics[j];
+            }
+        }
+    }
+
+    private static int posicio(long clau, int mascara) {
+        long h = clau * 0x9E3779B97F4A7C15L; // dispersió de Fibonacci
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
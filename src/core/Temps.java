@@ -0,0 +1,91 @@
+package core;
+
+import java.time.LocalTime;
+
+/**
+ * @class Temps
+ * @brief Conversions entre el temps intern de la simulació i LocalTime.
+ * @details El motor treballa amb ticks: segons des de la mitjanit del primer
+ *          dia de l'escenari, en un long. Així comparar i sumar temps no crea
+ *          cap objecte i una simulació pot durar diversos dies. LocalTime
+ *          només es fa servir en llegir i escriure fitxers i a la interfície.
+ *          En text, les hores del primer dia s'escriuen com sempre ("08:30")
+ *          i les dels dies següents amb el dia al davant ("1+08:30").
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.16
+ */
+public final class Temps {
+
+    public static final long SEGONS_MINUT = 60; /// < Ticks d'un minut.
+    public static final long SEGONS_DIA = 86_400; /// < Ticks d'un dia.
+    public static final long SENSE_HORA = -1; /// < Valor que indica que no hi ha cap hora.
+
+    private Temps() {
+    }
+
+    /**
+     * @pre hora != null
+     * @post Retorna els ticks de l'hora donada del primer dia.
+     */
+    public static long ticks(LocalTime hora) {
+        return hora.toSecondOfDay();
+    }
+
+    /**
+     * @pre dia >= 0; hora != null
+     * @post Retorna els ticks de l'hora donada del dia indicat (0 és el
+     *       primer).
+     */
+    public static long ticks(int dia, LocalTime hora) {
+        return dia * SEGONS_DIA + hora.toSecondOfDay();
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna els ticks que dura el nombre de minuts donat.
+     */
+    public static long minuts(long minuts) {
+        return minuts * SEGONS_MINUT;
+    }
+
+    /**
+     * @pre ticks >= 0
+     * @post Retorna l'hora del dia dels ticks donats.
+     */
+    public static LocalTime hora(long ticks) {
+        return LocalTime.ofSecondOfDay(ticks % SEGONS_DIA);
+    }
+
+    /**
+     * @pre ticks >= 0
+     * @post Retorna el dia dels ticks donats (0 és el primer).
+     */
+    public static int dia(long ticks) {
+        return (int) (ticks / SEGONS_DIA);
+    }
+
+    /**
+     * @pre ticks >= 0
+     * @post Retorna els ticks en text: l'hora si és del primer dia, o
+     *       "dia+hora" altrament.
+     */
+    public static String text(long ticks) {
+        int dia = dia(ticks);
+        return dia == 0 ? hora(ticks).toString() : dia + "+" + hora(ticks);
+    }
+
+    /**
+     * @pre text té el format de text(long).
+     * @post Retorna els ticks del text donat.
+     * @throws java.time.format.DateTimeParseException si l'hora no és vàlida.
+     */
+    public static long llegir(String text) {
+        String t = text.trim();
+        int mes = t.indexOf('+');
+        if (mes < 0) {
+            return ticks(LocalTime.parse(t));
+        }
+        return ticks(Integer.parseInt(t.substring(0, mes)), LocalTime.parse(t.substring(mes + 1)));
+    }
+}
@@ -0,0 +1,16 @@
+package core;
+
+/**
+ * @class TipusEncaminament
+ * @brief Enumeració dels algorismes de cerca de camins que pot fer servir el
+ *        mapa.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.07
+ */
+public enum TipusEncaminament {
+    DIJKSTRA, /// < Dijkstra clàssic des de l'origen.
+    BIDIRECCIONAL, /// < Dijkstra des de l'origen i des del destí alhora.
+    ALT, /// < A* amb cotes inferiors de fites (landmarks) i desigualtat triangular.
+    CONTRACCIO, /// < Cerca bidireccional sobre una jerarquia de contracció.
+}
@@ -1,5 +1,7 @@
 package core;
 
+import java.io.Serializable;
+
 /**
  * @class Vehicle
  * @brief Defineix el vehicle i les seves característiques
@@ -7,7 +9,8 @@ package core;
  * @author Anouar El Barkouki Hitach
  * @version 2025.03.04
  */
-public class Vehicle {
+public class Vehicle implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     final int MAXPASSATGERS; /// < Nombre màxim de passatgers que pot transportar el vehicle.
     final int AUTONOMIA; /// < Autonomia màxima del vehicle en quilòmetres.
@@ -20,6 +23,7 @@ public class Vehicle {
     private int percentatgeCarrega; /// < Percentatge de càrrega del vehicle (0% - 100%).
     private int numPassatgers; /// < Nombre de passatgers actuals del vehicle.
     private boolean carregant; /// < Indica si el vehicle està carregant.
+    private transient IndexEspacial indexEspacial; /// < Índex de posicions on és registrat el vehicle, o null.
 
     /**
      * Constructor de la classe Vehicle.
@@ -127,7 +131,10 @@ public class Vehicle {
     public void carregarBateria(boolean vorac) {
         bateria = vorac ? 80 : 100;
         percentatgeCarrega = vorac ? 80 : 100;
-        System.out.println("----------- Carregant bateria -----------: " + percentatgeCarrega);
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            Registre.escriure(Registre.Nivell.DEPURACIO,
+                    "----------- Carregant bateria -----------: " + percentatgeCarrega);
+        }
         carregant = false; // El vehicle ja no està carregant
     }
 
@@ -138,17 +145,16 @@ public class Vehicle {
      * @param distancia Distància en quilòmetres que el vehicle ha recorregut.
      */
     public boolean consumirBateria(double distancia) {
-        System.out.println("-----------");
-        System.out.println("Distància: " + distancia);
-
         // Calculem el percentatge necessari per aquesta distància
         int consumPercentatge = (int) Math.ceil((distancia / AUTONOMIA) * 100);
 
-        System.out.println("Bateria abans: " + percentatgeCarrega);
+        int abans = percentatgeCarrega;
         bateria -= distancia;
         percentatgeCarrega -= consumPercentatge;
-        System.out.println("Bateria després: " + percentatgeCarrega);
-        System.out.println("-----------");
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            Registre.escriure(Registre.Nivell.DEPURACIO,
+                    "Distància: " + distancia + ", bateria abans: " + abans + ", després: " + percentatgeCarrega);
+        }
         return true;
 
     }
@@ -162,6 +168,23 @@ public class Vehicle {
         // return this.bateria;
     }
 
+    /**
+     * @pre Cert.
+     * @post Retorna els km que el vehicle pot recórrer amb la bateria actual.
+     */
+    public double autonomiaRestant() {
+        return percentatgeCarrega * AUTONOMIA / 100.0;
+    }
+
+    /**
+     * @pre Cert.
+     * @post Retorna els km que el vehicle pot recórrer just després d'una
+     *       càrrega, que FiCarregaEvent fa amb carregarBateria(true).
+     */
+    public double autonomiaCarregada() {
+        return 80 * AUTONOMIA / 100.0;
+    }
+
     /**
      * @pre Cert.
      * @post Retorna true si la bateria està per sota del 20%, false en cas
@@ -184,9 +207,21 @@ public class Vehicle {
     public void moure(Lloc novaUbicacio, double distancia) {
         consumirBateria(distancia);
         this.ubicacio = novaUbicacio;
+        if (indexEspacial != null) {
+            indexEspacial.actualitzar(this);
+        }
 
     }
 
+    /**
+     * @pre Cert.
+     * @post El vehicle avisarà l'índex donat (o cap, si és null) cada vegada
+     *       que es mogui.
+     */
+    void assignarIndexEspacial(IndexEspacial index) {
+        this.indexEspacial = index;
+    }
+
     /**
      * @pre Cert.
      * @post Retorna true si el vehicle està carregant, false en cas contrari.
@@ -1,9 +1,8 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
 import core.Simulador;
+import core.Temps;
 import core.Vehicle;
 
 /**
@@ -15,20 +14,34 @@ import core.Vehicle;
  * @version 2025.03.04
  */
 public class CarregarBateriaEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Vehicle vehicle;
     /// < Vehicle que es carrega
     private double duracioCarregaMinuts;
     /// < Duració de la càrrega en minuts
     private Conductor conductor;
-
     /// < Conductor que realitza l'esdeveniment
+    private boolean parada;
 
-    public CarregarBateriaEvent(LocalTime temps, Vehicle vehicle, double duracioCarregaMinuts, Conductor conductor) {
+    /// < Indica si és una parada enmig d'una ruta, que continua en acabar
+
+    public CarregarBateriaEvent(long temps, Vehicle vehicle, double duracioCarregaMinuts, Conductor conductor) {
+        this(temps, vehicle, duracioCarregaMinuts, conductor, false);
+    }
+
+    /**
+     * @pre Cert.
+     * @post Crea l'esdeveniment; si parada és cert, la càrrega és una parada
+     * d'una ruta en curs i en acabar el conductor no queda lliure.
+     */
+    public CarregarBateriaEvent(long temps, Vehicle vehicle, double duracioCarregaMinuts, Conductor conductor,
+            boolean parada) {
         super(temps);
         this.vehicle = vehicle;
         this.duracioCarregaMinuts = duracioCarregaMinuts;
         this.conductor = conductor;
+        this.parada = parada;
     }
 
     /**
@@ -41,13 +54,14 @@ public class CarregarBateriaEvent extends Event {
      */
     @Override
     public void executar(Simulador simulador) {
-        String missatge = "[" + temps + "] El vehicle " + vehicle.getId() + " comença a carregar la bateria.";
-        System.out.println(missatge);
-        simulador.pintarMissatge(missatge);
+        if (simulador.informa()) {
+            simulador.informar(() -> "[" + Temps.text(temps) + "] El vehicle " + vehicle.getId()
+                    + " comença a carregar la bateria.");
+        }
         vehicle.esCarregant();
         // Programem final de la càrrega
-        LocalTime fiCarrega = temps.plusMinutes((long) duracioCarregaMinuts);
-        simulador.afegirEsdeveniment(new FiCarregaEvent(fiCarrega, conductor));
+        long fiCarrega = temps + Temps.minuts((long) duracioCarregaMinuts);
+        simulador.afegirEsdeveniment(new FiCarregaEvent(fiCarrega, conductor, parada));
     }
 
     //GETTERS
@@ -77,4 +91,12 @@ public class CarregarBateriaEvent extends Event {
     public Conductor getConductor() {
         return this.conductor;
     }
+
+    /**
+     * @pre Cert.
+     * @post Retorna si la càrrega és una parada d'una ruta en curs.
+     */
+    public boolean esParada() {
+        return this.parada;
+    }
 }
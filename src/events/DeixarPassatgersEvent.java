@@ -1,10 +1,9 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
 import core.Lloc;
 import core.Simulador;
+import core.Temps;
 
 /**
  * @class DeixarPassatgersEvent
@@ -15,6 +14,7 @@ import core.Simulador;
  * @version 2025.05.15
  */
 public class DeixarPassatgersEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Conductor conductor;
     /// < Conductor que realitza l'esdeveniment
@@ -24,7 +24,7 @@ public class DeixarPassatgersEvent extends Event {
 
     /// < Nombre de passatgers deixats
 
-    public DeixarPassatgersEvent(LocalTime temps, Conductor conductor, Lloc desti, int passatgersDeixats) {
+    public DeixarPassatgersEvent(long temps, Conductor conductor, Lloc desti, int passatgersDeixats) {
         super(temps);
         this.conductor = conductor;
         this.desti = desti;
@@ -41,13 +41,13 @@ public class DeixarPassatgersEvent extends Event {
     public void executar(Simulador simulador) {
         if ((conductor.getVehicle().passatgersActuals() - passatgersDeixats) >= 0) {
             conductor.getVehicle().alliberarPassatgersConcret(passatgersDeixats);
-            String missatge = "[" + temps + "] El conductor " + conductor.getId()
-                    + " ha deixat els passatgers al destí: "
-                    + desti.obtenirId();
-            String missatge2 = " (Passatgers actuals: " + conductor.getVehicle().getPassatgersActuals() + ")";
-            System.out.println(missatge);
-            simulador.pintarMissatge(missatge);
-            simulador.pintarMissatge(missatge2);
+            if (simulador.informa()) {
+                simulador.informar(() -> "[" + Temps.text(temps) + "] El conductor " + conductor.getId()
+                        + " ha deixat els passatgers al destí: "
+                        + desti.obtenirId());
+                simulador.pintarMissatge(
+                        () -> " (Passatgers actuals: " + conductor.getVehicle().getPassatgersActuals() + ")");
+            }
         }
 
     }
@@ -1,41 +1,66 @@
 package events;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
 
 import core.Simulador;
+import core.Temps;
 
 /**
  * @class Event
  * @brief Representa un esdeveniment en la simulació.
- * @details Cada esdeveniment té un temps associat i pot ser comparat amb altres
+ * @details Cada esdeveniment té un temps associat i pot ser comparat amb altres.
+ *          El temps és en ticks (vegeu Temps). Els esdeveniments del mateix
+ *          tick s'ordenen pel número de seqüència, que creix amb cada
+ *          esdeveniment creat, de manera que s'executen en l'ordre en què
+ *          s'han programat.
  *
  * @author Dídac Gros Labrador
  * @version 2025.03.04
  */
-public abstract class Event implements Comparable<Event> {
-    protected LocalTime temps; /// < Temps associat a l'esdeveniment
+public abstract class Event implements Comparable<Event>, Serializable {
+    private static final long serialVersionUID = 1L;
 
-    public Event(LocalTime temps) {
+    private static final AtomicLong comptador = new AtomicLong(); /// < Següent número de seqüència.
+
+    protected long temps; /// < Temps associat a l'esdeveniment, en ticks.
+    private final long sequencia; /// < Ordre de creació, per desempatar esdeveniments del mateix tick.
+
+    public Event(long temps) {
         this.temps = temps;
+        this.sequencia = comptador.getAndIncrement();
     }
 
     /**
      * @pre Cert.
-     * @post Retorna el temps associat a l'esdeveniment.
+     * @post Retorna el temps associat a l'esdeveniment, en ticks.
      * @return temps Temps associat a l'esdeveniment.
      */
-    public LocalTime getTemps() {
+    public long getTemps() {
         return temps;
     }
 
+    /**
+     * @pre Cert.
+     * @post Retorna l'hora del dia de l'esdeveniment, per mostrar-la.
+     */
+    public LocalTime getHora() {
+        return Temps.hora(temps);
+    }
+
     /**
      * @pre Cert.
      * @post Retorna negatiu si l'esdeveniment actual és anterior a l'altre, positiu si és
-     *       posterior i 0 si són iguals.
+     *       posterior i 0 si són el mateix. Entre esdeveniments del mateix tick
+     *       va primer el que s'ha creat abans.
      */
     @Override
     public int compareTo(Event altre) {
-        return this.temps.compareTo(altre.temps);
+        int c = Long.compare(this.temps, altre.temps);
+        return c != 0 ? c : Long.compare(this.sequencia, altre.sequencia);
     }
 
     /**
@@ -44,5 +69,16 @@ public abstract class Event implements Comparable<Event> {
      * @param simulador
      */
     public abstract void executar(Simulador simulador);
+
+    /**
+     * @pre Cert.
+     * @post Llegeix l'esdeveniment d'un punt de control i avança el comptador,
+     *       perquè els esdeveniments que es creïn després s'ordenin darrere
+     *       seu dins del mateix tick.
+     */
+    private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+        entrada.defaultReadObject();
+        comptador.accumulateAndGet(sequencia + 1, Math::max);
+    }
     
 }
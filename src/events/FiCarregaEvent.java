@@ -1,10 +1,8 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
-import core.ConductorVorac;
 import core.Simulador;
+import core.Temps;
 
 /**
  * @class FiCarregaEvent
@@ -15,37 +13,52 @@ import core.Simulador;
  * @version 2025.03.04
  */
 public class FiCarregaEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Conductor conductor;
-
     /// < Conductor que realitza l'esdeveniment
+    private boolean parada;
+
+    /// < Indica si és una parada enmig d'una ruta, que continua en acabar
+
+    public FiCarregaEvent(long temps, Conductor conductor) {
+        this(temps, conductor, false);
+    }
 
-    public FiCarregaEvent(LocalTime temps, Conductor conductor) {
+    /**
+     * @pre Cert.
+     * @post Crea l'esdeveniment; si parada és cert, la càrrega és una parada
+     * d'una ruta en curs i el conductor no queda lliure.
+     */
+    public FiCarregaEvent(long temps, Conductor conductor, boolean parada) {
         super(temps);
         this.conductor = conductor;
+        this.parada = parada;
     }
 
     /**
      * @pre Cert.
      * @post El vehicle del conductor acaba la càrrega i es pinta el missatge
-     * per pantalla. El conductor queda lliure i s'intenten assignar les
-     * peticions
+     * per pantalla. Si no és una parada d'una ruta, el conductor queda lliure
+     * i, al final de l'instant, s'intenten assignar les peticions
      */
     @Override
     public void executar(Simulador simulador) {
         conductor.getVehicle().carregarBateria(true);
-        conductor.setOcupat(false);
-        String missatge = "[" + temps + "] Càrrega finalitzada del vehicle " + conductor.getVehicle().getId();
-        System.out.println(missatge);
-        simulador.pintarMissatge(missatge);
-
-        if (simulador.hiHaPeticions()) {
-            if (conductor instanceof ConductorVorac) {
-                simulador.assignarPeticionsvorac(); 
-            }else {
-                simulador.assignarPeticionsPlan();
+        if (parada) {
+            if (simulador.informa()) {
+                simulador.informar(() -> "[" + Temps.text(temps) + "] Càrrega finalitzada del vehicle "
+                        + conductor.getVehicle().getId() + ", que continua la ruta");
             }
+            return;
         }
+        conductor.setOcupat(false);
+        if (simulador.informa()) {
+            simulador.informar(() -> "[" + Temps.text(temps) + "] Càrrega finalitzada del vehicle "
+                    + conductor.getVehicle().getId());
+        }
+
+        simulador.demanarAssignacio(conductor);
     }
 
     /**
@@ -60,4 +73,12 @@ public class FiCarregaEvent extends Event {
         }
         return this.conductor;
     }
+
+    /**
+     * @pre Cert.
+     * @post Retorna si la càrrega és una parada d'una ruta en curs.
+     */
+    public boolean esParada() {
+        return this.parada;
+    }
 }
@@ -1,11 +1,10 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
-import core.ConductorVorac;
+import core.Registre;
 import core.Ruta;
 import core.Simulador;
+import core.Temps;
 
 /**
  * @class FiRutaEvent
@@ -16,6 +15,7 @@ import core.Simulador;
  * @version 2025.03.04
  */
 public class FiRutaEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Conductor conductor;
     /// < Conductor que realitza l'esdeveniment
@@ -23,37 +23,33 @@ public class FiRutaEvent extends Event {
 
     /// < Ruta que es realitza
 
-    public FiRutaEvent(LocalTime temps, Conductor Conductor, Ruta ruta) {
+    public FiRutaEvent(long temps, Conductor Conductor, Ruta ruta) {
         super(temps);
         this.conductor = Conductor;
         if (ruta != null) {
             this.ruta = ruta;
         } else {
-            System.out.println("Ruta no vàlida");
+            Registre.avis(() -> "Ruta no vàlida");
         }
     }
 
     /**
      * @pre Cert.
      * @post El vehicle del conductor acaba la ruta i es pinta el missatge per
-     * pantalla. El conductor queda lliure i s'intenten assignar les peticions
+     * pantalla. El conductor queda lliure i, al final de l'instant, s'intenten
+     * assignar les peticions
      * @param simulador Simulador on es realitza l'esdeveniment
      */
     @Override
     public void executar(Simulador simulador) {
         conductor.setOcupat(false);
 
-        if (simulador.hiHaPeticions()) {
-            if (conductor instanceof ConductorVorac) {
-                simulador.assignarPeticionsvorac(); 
-            }else {
-                simulador.assignarPeticionsPlan();
-            }
-        }
+        simulador.demanarAssignacio(conductor);
 
-        String missatge = "[" + temps + "] Conductor " + conductor.getId() + " ha acabat la ruta.";
-        System.out.println(missatge);
-        simulador.pintarMissatge(missatge);
+        if (simulador.informa()) {
+            simulador.informar(
+                    () -> "[" + Temps.text(temps) + "] Conductor " + conductor.getId() + " ha acabat la ruta.");
+        }
     }
 
     /**
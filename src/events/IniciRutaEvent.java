@@ -1,11 +1,11 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
 import core.Lloc;
+import core.Registre;
 import core.Ruta;
 import core.Simulador;
+import core.Temps;
 import core.Vehicle;
 
 /**
@@ -17,6 +17,7 @@ import core.Vehicle;
  * @version 2025.03.04
  */
 public class IniciRutaEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Conductor conductor;
     /// < Conductor que realitza l'esdeveniment
@@ -26,30 +27,21 @@ public class IniciRutaEvent extends Event {
 
     /// < Vehicle que es fa servir per realitzar la ruta
 
-    public IniciRutaEvent(LocalTime temps, Conductor conductor, Vehicle vehicle, Ruta ruta) {
+    public IniciRutaEvent(long temps, Conductor conductor, Vehicle vehicle, Ruta ruta) {
         super(temps);
         this.conductor = conductor;
         this.ruta = ruta;
         this.vehicle = vehicle;
-        if (ruta.isRutaCarrega()) {
-            System.out.println("[" + temps + "] IniciRutaEvent: Conductor " + conductor.getId()
-                    + " ha planificat la ruta amb vehicle "
-                    + vehicle.getId() + " i ha de carregar la bateria.");
-            System.out.println("Llocs: ");
-            for (Lloc lloc : ruta.getLlocs()) {
-                System.out.print(lloc.obtenirId() + " --> ");
-            }
-        } else {
-            System.out.println("[" + temps + "] IniciRutaEvent: Conductor " + conductor.getId()
-                    + " ha planificat la ruta amb vehicle "
-                    + vehicle.getId() + " per anar a buscar una peticio.");
-            System.out.println("Llocs: ");
+        if (Registre.actiu(Registre.Nivell.DEPURACIO)) {
+            StringBuilder text = new StringBuilder("[" + Temps.text(temps) + "] IniciRutaEvent: Conductor "
+                    + conductor.getId() + " ha planificat la ruta amb vehicle " + vehicle.getId()
+                    + (ruta.isRutaCarrega() ? " i ha de carregar la bateria." : " per anar a buscar una peticio."));
+            text.append(System.lineSeparator()).append("Llocs: ").append(System.lineSeparator());
             for (Lloc lloc : ruta.getLlocs()) {
-                System.out.print(lloc.obtenirId() + " --> ");
+                text.append(lloc.obtenirId()).append(" --> ");
             }
+            Registre.escriure(Registre.Nivell.DEPURACIO, text.toString());
         }
-        System.out.println();
-
     }
 
     /**
@@ -60,17 +52,11 @@ public class IniciRutaEvent extends Event {
      */
     @Override
     public void executar(Simulador simulador) {
-        String missatge = "";
-        if (ruta.isRutaCarrega()) {
-            missatge = "[" + temps + "] El conductor " + conductor.getId()
-                    + " inicia la ruta per anar a carregar.";
-
-        } else {
-            missatge = "[" + temps + "] El conductor " + conductor.getId()
-                    + " inicia la ruta per fer la petició.";
+        if (simulador.informa()) {
+            simulador.informar(() -> "[" + Temps.text(temps) + "] El conductor " + conductor.getId()
+                    + (ruta.isRutaCarrega() ? " inicia la ruta per anar a carregar."
+                            : " inicia la ruta per fer la petició."));
         }
-        System.out.println(missatge);
-        simulador.pintarMissatge(missatge);
 
         conductor.setOcupat(true);
         conductor.executarRuta(ruta, vehicle, simulador);
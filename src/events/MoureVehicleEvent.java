@@ -1,10 +1,9 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Cami;
 import core.Lloc;
 import core.Simulador;
+import core.Temps;
 import core.Vehicle;
 
 /**
@@ -15,13 +14,14 @@ import core.Vehicle;
  * @version 2025.03.04
  */
 public class MoureVehicleEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Vehicle vehicle; /// < Vehicle que es mou
     private Lloc origen; /// < Lloc d'origen del vehicle
     private Lloc desti; /// < Lloc de destí del vehicle
     private double distancia; /// < Distància entre l'origen i el destí
 
-    public MoureVehicleEvent(LocalTime temps, Vehicle vehicle, Lloc origen, Lloc desti, double distancia) {
+    public MoureVehicleEvent(long temps, Vehicle vehicle, Lloc origen, Lloc desti, double distancia) {
         super(temps);
         this.vehicle = vehicle;
         this.origen = origen;
@@ -36,10 +36,10 @@ public class MoureVehicleEvent extends Event {
      */
     @Override
     public void executar(Simulador simulador) {
-        String missatge = "[" + temps + "] Vehicle " + vehicle.getId() + " es mou de " + origen.obtenirId() + " a "
-                + desti.obtenirId() + ".";
-        System.out.println(missatge);
-        simulador.pintarMissatge(missatge);
+        if (simulador.informa()) {
+            simulador.informar(() -> "[" + Temps.text(temps) + "] Vehicle " + vehicle.getId() + " es mou de "
+                    + origen.obtenirId() + " a " + desti.obtenirId() + ".");
+        }
         vehicle.moure(desti, distancia);
 
         // Notificar al MapPanel per pintar aquest tram
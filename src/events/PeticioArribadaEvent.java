@@ -0,0 +1,50 @@
+package events;
+
+import core.Peticio;
+import core.Simulador;
+import core.Temps;
+
+/**
+ * @class PeticioArribadaEvent
+ * @brief Representa un esdeveniment que indica que arriba una petició nova a
+ * la simulació.
+ *
+ * @author Dídac Gros Labrador
+ * @version 2025.06.21
+ */
+public class PeticioArribadaEvent extends Event {
+    private static final long serialVersionUID = 1L;
+
+    private Peticio peticio;
+
+    /// < Petició que arriba
+
+    public PeticioArribadaEvent(long temps, Peticio peticio) {
+        super(temps);
+        this.peticio = peticio;
+    }
+
+    /**
+     * @pre Cert.
+     * @post La petició passa a ser pendent al simulador i es pinta el missatge
+     * per pantalla. Al final de l'instant s'intenta assignar als conductors.
+     * @param simulador Simulador on es realitza l'esdeveniment
+     */
+    @Override
+    public void executar(Simulador simulador) {
+        if (simulador.informa()) {
+            simulador.informar(() -> "[" + Temps.text(temps) + "] Arriba la petició " + peticio.obtenirId() + ": "
+                    + peticio.obtenirOrigen().obtenirId() + " -> " + peticio.obtenirDesti().obtenirId());
+        }
+        simulador.arribadaPeticio(peticio);
+    }
+
+    /**
+     * Obté la petició que arriba
+     *
+     * @return La petició associada a l'esdeveniment
+     */
+    public Peticio getPeticio() {
+        return this.peticio;
+    }
+}
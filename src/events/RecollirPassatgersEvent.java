@@ -1,10 +1,9 @@
 package events;
 
-import java.time.LocalTime;
-
 import core.Conductor;
 import core.Lloc;
 import core.Simulador;
+import core.Temps;
 
 /**
  * @class RecollirPassatgersEvent
@@ -15,6 +14,7 @@ import core.Simulador;
  * @version 2025.05.15
  */
 public class RecollirPassatgersEvent extends Event {
+    private static final long serialVersionUID = 1L;
 
     private Conductor conductor;
     /// < Conductor que realitza l'esdeveniment
@@ -24,7 +24,7 @@ public class RecollirPassatgersEvent extends Event {
 
     /// < Nombre de passatgers recollits
 
-    public RecollirPassatgersEvent(LocalTime temps, Conductor conductor, Lloc desti, int passatgersRecollits) {
+    public RecollirPassatgersEvent(long temps, Conductor conductor, Lloc desti, int passatgersRecollits) {
         super(temps);
         this.conductor = conductor;
         this.desti = desti;
@@ -41,13 +41,12 @@ public class RecollirPassatgersEvent extends Event {
         if ((conductor.getVehicle().passatgersActuals() + passatgersRecollits) <= conductor.getVehicle()
                 .getMaxPassatgers()) {
             conductor.getVehicle().afegirPassatgers(passatgersRecollits);
-            String missatge = "[" + temps + "] El conductor " + conductor.getId() + " ha recollit passatgers al lloc "
-                    + desti.obtenirId();
-            String missatge2 = "(Passatgers actuals: " + conductor.getVehicle().getPassatgersActuals() + ")";
-
-            System.out.println(missatge);
-            simulador.pintarMissatge(missatge);
-            simulador.pintarMissatge(missatge2);
+            if (simulador.informa()) {
+                simulador.informar(() -> "[" + Temps.text(temps) + "] El conductor " + conductor.getId()
+                        + " ha recollit passatgers al lloc " + desti.obtenirId());
+                simulador.pintarMissatge(
+                        () -> "(Passatgers actuals: " + conductor.getVehicle().getPassatgersActuals() + ")");
+            }
         }
 
     }